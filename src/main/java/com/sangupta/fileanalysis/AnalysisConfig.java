@@ -0,0 +1,260 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import com.sangupta.fileanalysis.db.DBColumnType;
+import com.sangupta.jerry.util.AssertUtils;
+import com.sangupta.jerry.util.ConsoleUtils;
+import com.sangupta.jerry.util.StringUtils;
+
+/**
+ * The choices made while analyzing files, such as whether the data has a
+ * header row or which columns to index. When interactive, each choice is
+ * asked of the user on the console, else it is read from a set of properties
+ * given on the command line or in a config file, falling back to the default
+ * of the choice. Thus the tool may run without a console, such as from cron.
+ * 
+ * Keys understood are:
+ * <ul>
+ * <li><code>files</code> - files, folders or globs to load, separated by the
+ * path separator</li>
+ * <li><code>format</code> - the format of the files, detected from the
+ * extension if missing</li>
+ * <li><code>memory</code> - whether to hold the data in memory</li>
+ * <li><code>header</code> - whether delimited data has a header row</li>
+ * <li><code>delimiter</code> - the delimiter of the <code>Delimited</code>
+ * format</li>
+ * <li><code>type.&lt;column&gt;</code> - the type of the column, in place of
+ * the one inferred</li>
+ * <li><code>column.&lt;position&gt;</code> - name and type of the field at
+ * the position in an Apache log line, as in <code>size,long</code></li>
+ * <li><code>indexes</code> - columns to index, or <code>none</code></li>
+ * <li><code>merge</code> - whether to merge log files in time order</li>
+ * <li><code>long.messages</code> and <code>skip.debug</code> - handling of
+ * log messages</li>
+ * <li><code>script</code> - file of SQL statements to run once loaded</li>
+ * <li><code>output</code> - folder the results are written to</li>
+ * <li><code>export</code> and <code>gzip</code> - the format of the results
+ * written</li>
+ * <li><code>timeout</code> - seconds after which a statement is
+ * cancelled</li>
+ * <li><code>snapshot</code> - whether to save data held in memory to
+ * disk</li>
+ * </ul>
+ * 
+ * @author sangupta
+ *
+ */
+public class AnalysisConfig {
+	
+	/**
+	 * Prefix of the keys that set the type of a column
+	 */
+	public static final String TYPE_PREFIX = "type.";
+	
+	private final Properties properties;
+	
+	private final boolean interactive;
+	
+	private AnalysisConfig(Properties properties, boolean interactive) {
+		this.properties = properties;
+		this.interactive = interactive;
+	}
+	
+	/**
+	 * Create a configuration that asks the user for each choice.
+	 * 
+	 * @return
+	 */
+	public static AnalysisConfig interactive() {
+		return new AnalysisConfig(new Properties(), true);
+	}
+	
+	/**
+	 * Create a configuration that reads the choices from the given
+	 * properties, without asking the user.
+	 * 
+	 * @param properties
+	 * @return
+	 */
+	public static AnalysisConfig of(Properties properties) {
+		return new AnalysisConfig(properties, false);
+	}
+	
+	/**
+	 * Create a configuration from command line arguments. Arguments of the
+	 * form <code>--key=value</code> set a choice, <code>--config=file</code>
+	 * reads the choices from a properties file, and any other argument is
+	 * a file, folder or glob to load. Choices on the command line win over
+	 * those in the config file.
+	 * 
+	 * @param args
+	 * @return
+	 * @throws IOException
+	 *             if the config file cannot be read
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if an argument is not understood
+	 */
+	public static AnalysisConfig fromArgs(String[] args) throws IOException {
+		Properties properties = new Properties();
+		Properties overrides = new Properties();
+		List<String> files = new ArrayList<String>();
+		
+		for(String arg : args) {
+			if(!arg.startsWith("--")) {
+				files.add(arg);
+				continue;
+			}
+			
+			int index = arg.indexOf('=');
+			if(index < 3) {
+				throw new IllegalArgumentException("Invalid argument: " + arg + ", use --key=value");
+			}
+			
+			String key = arg.substring(2, index);
+			String value = arg.substring(index + 1);
+			if("config".equals(key)) {
+				load(properties, new File(value));
+				continue;
+			}
+			
+			overrides.setProperty(key, value);
+		}
+		
+		properties.putAll(overrides);
+		
+		if(!files.isEmpty()) {
+			String existing = properties.getProperty("files");
+			if(AssertUtils.isNotBlank(existing)) {
+				files.add(0, existing);
+			}
+			
+			properties.setProperty("files", org.apache.commons.lang3.StringUtils.join(files, File.pathSeparator));
+		}
+		
+		return of(properties);
+	}
+	
+	private static void load(Properties properties, File file) throws IOException {
+		InputStream stream = new FileInputStream(file);
+		try {
+			properties.load(stream);
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Get the value of a choice.
+	 * 
+	 * @param key
+	 * @param prompt
+	 *            the question asked of the user when interactive, or
+	 *            <code>null</code> to never ask
+	 * 
+	 * @param defaultValue
+	 * @return the value, or the default if none was given
+	 */
+	public String getString(String key, String prompt, String defaultValue) {
+		String value;
+		if(this.interactive) {
+			value = prompt == null ? null : ConsoleUtils.readLine(prompt, true);
+		} else {
+			value = this.properties.getProperty(key);
+		}
+		
+		if(AssertUtils.isEmpty(value)) {
+			return defaultValue;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Get the value of a choice that is either true or false.
+	 * 
+	 * @param key
+	 * @param prompt
+	 *            the question asked of the user when interactive, or
+	 *            <code>null</code> to never ask
+	 * 
+	 * @param defaultValue
+	 * @return
+	 */
+	public boolean getBoolean(String key, String prompt, boolean defaultValue) {
+		return StringUtils.getBoolean(getString(key, prompt, null), defaultValue);
+	}
+	
+	/**
+	 * Get the type given for the column, if any. Column names are matched
+	 * ignoring case.
+	 * 
+	 * @param column
+	 * @return the type, or <code>null</code> to keep the type inferred
+	 */
+	public DBColumnType getColumnType(String column) {
+		for(String key : this.properties.stringPropertyNames()) {
+			if(key.startsWith(TYPE_PREFIX) && key.substring(TYPE_PREFIX.length()).equalsIgnoreCase(column)) {
+				return DBColumnType.decipherColumnType(this.properties.getProperty(key).trim());
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Get the files, folders or globs to load.
+	 * 
+	 * @return
+	 */
+	public List<String> getFiles() {
+		List<String> files = new ArrayList<String>();
+		String value = this.properties.getProperty("files");
+		if(AssertUtils.isEmpty(value)) {
+			return files;
+		}
+		
+		for(String file : value.split(File.pathSeparator)) {
+			if(AssertUtils.isNotBlank(file)) {
+				files.add(file.trim());
+			}
+		}
+		
+		return files;
+	}
+	
+	// Usual accessors follow
+	
+	public boolean isInteractive() {
+		return interactive;
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Handles Ctrl-C pressed on the console. Signals can only be handled using
+ * <code>sun.misc.Signal</code>, which is not part of the Java API and may be
+ * missing from some runtimes, and is thus looked up reflectively. Where it
+ * is missing, Ctrl-C is not handled and exits the tool as usual.
+ * 
+ * @author sangupta
+ *
+ */
+abstract class ConsoleInterrupt implements InvocationHandler {
+	
+	private static final String SIGNAL_CLASS = "sun.misc.Signal";
+	
+	private static final String SIGNAL_HANDLER_CLASS = "sun.misc.SignalHandler";
+	
+	/**
+	 * Called on the thread the runtime handles the signal on, each time
+	 * Ctrl-C is pressed.
+	 * 
+	 * @param signal
+	 *            the number of the signal
+	 */
+	public abstract void interrupted(int signal);
+	
+	/**
+	 * Start handling Ctrl-C.
+	 * 
+	 * @return <code>true</code> if Ctrl-C will now be handled,
+	 *         <code>false</code> if signals cannot be handled on this runtime
+	 */
+	public boolean install() {
+		try {
+			Class<?> signalClass = Class.forName(SIGNAL_CLASS);
+			Class<?> handlerClass = Class.forName(SIGNAL_HANDLER_CLASS);
+			
+			Object signal = signalClass.getConstructor(String.class).newInstance("INT");
+			Object handler = Proxy.newProxyInstance(handlerClass.getClassLoader(), new Class<?>[] { handlerClass }, this);
+			signalClass.getMethod("handle", signalClass, handlerClass).invoke(null, signal, handler);
+			return true;
+		} catch(Exception e) {
+			// no signal API, or INT cannot be handled here
+			return false;
+		} catch(LinkageError e) {
+			// signal API present, but unusable
+			return false;
+		}
+	}
+	
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if(!"handle".equals(method.getName())) {
+			// equals, hashCode and toString of the handler
+			return method.invoke(this, args);
+		}
+		
+		Object signal = args[0];
+		Object number = signal.getClass().getMethod("getNumber").invoke(signal);
+		interrupted((Integer) number);
+		return null;
+	}
+	
+}
\ No newline at end of file
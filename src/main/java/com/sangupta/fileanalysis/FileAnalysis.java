@@ -26,14 +26,31 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.sangupta.fileanalysis.db.DBResultViewer;
 import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.DatasetCatalog;
+import com.sangupta.fileanalysis.db.ExportFormat;
+import com.sangupta.fileanalysis.db.PagedQuery;
+import com.sangupta.fileanalysis.db.QueryCache;
+import com.sangupta.fileanalysis.db.QueryTask;
+import com.sangupta.fileanalysis.db.DatasetCatalog.DatasetState;
 import com.sangupta.fileanalysis.db.SQLStatementConsumer;
+import com.sangupta.fileanalysis.ingest.IngestStats;
+import com.sangupta.fileanalysis.io.Compression;
+import com.sangupta.fileanalysis.io.FileFingerprint;
 import com.sangupta.jerry.print.ConsoleTable;
 import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.jerry.util.ConsoleUtils;
-import com.sangupta.jerry.util.StringUtils;
 
 
 /**
@@ -46,6 +63,11 @@ import com.sangupta.jerry.util.StringUtils;
  */
 public class FileAnalysis implements Closeable {
 	
+	/**
+	 * Number of files of a set that are loaded at the same time
+	 */
+	private static final int FILE_WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	
 	/**
 	 * The database we are currently connected to
 	 * 
@@ -53,15 +75,72 @@ public class FileAnalysis implements Closeable {
 	private final Database database;
 	
 	/**
-	 * The input file
+	 * The input file, the first of the set when loading many
 	 */
 	private final File file;
 	
+	/**
+	 * All files being loaded, in the order of their paths
+	 */
+	private final List<File> files;
+	
 	/**
 	 * The file format of the file
 	 */
 	private final FileFormat fileFormat;
 	
+	/**
+	 * Tracks the file loaded into the database
+	 */
+	private final DatasetCatalog catalog;
+	
+	/**
+	 * The handler that loaded the file
+	 */
+	private FileFormatHandler handler;
+	
+	/**
+	 * Follows the file for appended lines, if asked for
+	 */
+	private FileFollower follower;
+	
+	/**
+	 * Whether the data was loaded completely in this session
+	 */
+	private boolean loaded;
+	
+	/**
+	 * Whether the input file is compressed, in which case lines appended to
+	 * it cannot be loaded on their own
+	 */
+	private boolean compressed;
+	
+	/**
+	 * The choices made by the user, asked for when interactive
+	 */
+	private AnalysisConfig config = AnalysisConfig.interactive();
+	
+	/**
+	 * Queries run in the background, in the order started
+	 */
+	private final List<QueryJob> jobs = new ArrayList<QueryJob>();
+	
+	/**
+	 * Whether a query is being run from the prompt
+	 */
+	private volatile boolean querying;
+	
+	/**
+	 * The task of the query being run from the prompt, if any
+	 */
+	private volatile QueryTask foreground;
+	
+	/**
+	 * Number of the first table for the results of a job, past those left by
+	 * earlier sessions, or zero if not known yet
+	 */
+	private int firstJobTable;
+	
 	/**
 	 * Create a new instance.
 	 * 
@@ -69,27 +148,99 @@ public class FileAnalysis implements Closeable {
 	 * @param format
 	 */
 	public FileAnalysis(File file, FileFormat format) {
-		this.file = file;
+		this(file, format, false);
+	}
+	
+	/**
+	 * Create a new instance.
+	 * 
+	 * @param file
+	 * @param format
+	 * @param inMemory
+	 *            whether to hold the data in memory rather than on disk
+	 */
+	public FileAnalysis(File file, FileFormat format, boolean inMemory) {
+		this(file, Collections.singletonList(file), format, inMemory);
+	}
+	
+	/**
+	 * Create a new instance that loads a set of files into the same tables,
+	 * such as those found in a directory or matched by a glob.
+	 * 
+	 * @param input
+	 *            the directory or glob the files were found for, which the
+	 *            database is named after
+	 * 
+	 * @param files
+	 *            the files to load, with the same format
+	 * 
+	 * @param format
+	 * @param inMemory
+	 *            whether to hold the data in memory rather than on disk
+	 */
+	public FileAnalysis(File input, List<File> files, FileFormat format, boolean inMemory) {
+		if(files.isEmpty()) {
+			throw new IllegalArgumentException("At least one file is needed");
+		}
+		
+		this.file = files.get(0);
+		this.files = new ArrayList<File>(files);
 		this.fileFormat = format;
 		
-		String databaseName = getDBName(file, format);
-		this.database = new Database(databaseName);
+		String databaseName = getDBName(files.size() == 1 ? this.file : input, format);
+		this.database = new Database(databaseName, inMemory);
+		this.catalog = new DatasetCatalog(this.database);
 	}
 	
 	/**
 	 * Handle the input and start {@link FileAnalysis} query engine.
 	 * 
-	 * @param args
+	 * @return <code>true</code> if all data of the files is in the tables,
+	 *         <code>false</code> if a file could not be loaded, in whole or
+	 *         in part
 	 */
-	public void analyzeFile() {
+	public boolean analyzeFile() {
 		// obtain the correct handler
 		FileFormatHandler handler = fileFormat.getHandler();
+		handler.setConfig(this.config);
+		this.handler = handler;
+		
+		if(this.files.size() > 1) {
+			return analyzeFiles(handler);
+		}
+		
+		try {
+			this.compressed = Compression.isCompressed(this.file);
+		} catch (IOException e) {
+			System.out.println("Unable to read data file: " + e.getMessage());
+			return false;
+		}
+		
+		// check if the file was loaded earlier
+		DatasetState state = this.catalog.getState(this.file);
+		if(state == DatasetState.UNCHANGED && !isFollowable()) {
+			System.out.println("File has not changed since it was last loaded, reusing loaded data.");
+			return true;
+		}
+		
+		boolean resume = state != DatasetState.NEW && isFollowable();
 		
-		// create the database
-
 		// initialize the handler
 		handler.initialize(database, file);
 		
+		if(resume) {
+			long loaded = this.catalog.getFingerprint().size;
+			((FollowableFileFormatHandler) handler).setLoadedOffset(loaded);
+			if(state == DatasetState.UNCHANGED) {
+				System.out.println("File has not changed since it was last loaded, reusing loaded data.");
+			} else {
+				System.out.println("File was loaded earlier, loading only data appended after byte " + loaded + "...");
+			}
+		} else {
+			// a partial load must never be reused
+			this.catalog.clear();
+		}
+		
 		// read configuration
 		System.out.println("Reading configuration...");
 		handler.readConfiguration();
@@ -100,39 +251,357 @@ public class FileAnalysis implements Closeable {
 		
 		// start loading data
 		System.out.println("Populating data...");
+		long fileSize = this.file.length();
+		long loadSize = this.compressed ? IngestStats.UNKNOWN : fileSize - (resume ? ((FollowableFileFormatHandler) handler).getLoadedOffset() : 0);
+		ProgressReporter progress = startProgress(loadSize);
 		try {
 			long start = System.currentTimeMillis();
-			handler.loadFile();
+			if(resume) {
+				((FollowableFileFormatHandler) handler).loadAppended();
+			} else {
+				handler.loadFile();
+			}
+			
+			this.database.flushBatches();
 			long end = System.currentTimeMillis();
+			progress.stop();
 			
 			System.out.println("Loaded data in " + (end - start) + " millis.");
+			progress.showSummary();
 		} catch (IOException e) {
 			// unable to load file
 			System.out.println("Unable to load data file: " + e.getMessage());
-			return;
-		} 
+			return false;
+		} finally {
+			progress.stop();
+			
+			// make sure rows read before any failure still get written
+			this.database.flushBatches();
+		}
+		
+		buildIndexes();
+		
+		// remember what has been loaded
+		this.loaded = true;
+		if(hasRejectedRows()) {
+			return false;
+		}
+		
+		recordDataset(fileSize);
+		return true;
+	}
+	
+	/**
+	 * Load all files of the set into the same tables, with a column for the
+	 * file each row came from. The configuration is read and the tables are
+	 * created once, from the first file. Files are then loaded concurrently
+	 * on a pool of workers, so the rows of different files are interleaved
+	 * in the table, while those of a file keep their order. Log files may
+	 * instead be merged so that the rows are in time order across files.
+	 * 
+	 * @param handler
+	 * @return <code>true</code> if all files were loaded in full
+	 */
+	private boolean analyzeFiles(FileFormatHandler handler) {
+		if(this.catalog.getState(this.files) == DatasetState.UNCHANGED) {
+			System.out.println("Files have not changed since they were last loaded, reusing loaded data.");
+			return true;
+		}
+		
+		// a partial load must never be reused
+		this.catalog.clear();
+		
+		handler.initialize(database, this.file);
+		handler.setSourceColumn(true);
+		
+		System.out.println("Reading configuration...");
+		handler.readConfiguration();
+		
+		boolean merge = false;
+		if(handler instanceof MergeableFileFormatHandler) {
+			merge = this.config.getBoolean("merge", "Merge records of all files in time order (true): ", true);
+		}
+		
+		System.out.println("Creating required tables...");
+		handler.createDBTables();
+		
+		System.out.println("Populating data from " + this.files.size() + " files...");
+		ProgressReporter progress = startProgress(getLoadSize(this.files));
+		long start = System.currentTimeMillis();
+		int failed;
+		try {
+			if(merge) {
+				failed = mergeFiles((MergeableFileFormatHandler) handler);
+			} else {
+				failed = loadFiles(handler);
+			}
+		} finally {
+			progress.stop();
+			this.database.flushBatches();
+		}
+		
+		long end = System.currentTimeMillis();
+		System.out.println("Loaded data in " + (end - start) + " millis.");
+		progress.showSummary();
+		
+		buildIndexes();
+		this.loaded = true;
+		
+		if(failed > 0) {
+			// loading again is needed to get the missing rows
+			System.out.println("Unable to load " + failed + " of " + this.files.size() + " files");
+			return false;
+		}
+		
+		if(hasRejectedRows()) {
+			return false;
+		}
+		
+		List<FileFingerprint> fingerprints = new ArrayList<FileFingerprint>();
+		try {
+			for(File file : this.files) {
+				fingerprints.add(FileFingerprint.of(file, file.length()));
+			}
+		} catch (IOException e) {
+			// the data is loaded, only it cannot be reused the next time
+			System.out.println("Unable to fingerprint file: " + e.getMessage());
+			return true;
+		}
+		
+		this.catalog.record(fingerprints);
+		return true;
+	}
+	
+	/**
+	 * Load every file of the set with a handler of its own, a few files at
+	 * a time. The threads of the handler that created the tables are divided
+	 * between the files loaded at the same time.
+	 * 
+	 * @param handler
+	 *            the handler that created the tables
+	 * 
+	 * @return the number of files that could not be loaded
+	 */
+	private int loadFiles(FileFormatHandler handler) {
+		int ways = Math.min(FILE_WORKERS, this.files.size());
+		ExecutorService workers = Executors.newFixedThreadPool(ways);
+		
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+		for(File file : this.files) {
+			final FileFormatHandler fileHandler = handler.forFile(file, ways);
+			results.add(workers.submit(new Callable<Void>() {
+				
+				@Override
+				public Void call() throws Exception {
+					fileHandler.loadFile();
+					return null;
+				}
+				
+			}));
+		}
+		
+		int failed = 0;
+		try {
+			for(int index = 0; index < results.size(); index++) {
+				try {
+					results.get(index).get();
+				} catch (ExecutionException e) {
+					failed++;
+					System.out.println("Unable to load data file " + this.files.get(index) + ": " + e.getCause().getMessage());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return this.files.size();
+		} finally {
+			workers.shutdownNow();
+		}
+		
+		return failed;
+	}
+	
+	/**
+	 * Load all files of the set merged in time order, so that the order of
+	 * rows in the table is that of time across all files.
+	 * 
+	 * @param handler
+	 * @return the number of files that could not be loaded
+	 */
+	private int mergeFiles(MergeableFileFormatHandler handler) {
+		try {
+			handler.loadMerged(this.files);
+			return 0;
+		} catch (IOException e) {
+			System.out.println("Unable to merge data files: " + e.getMessage());
+			return this.files.size();
+		}
+	}
+	
+	/**
+	 * Check if any rows could not be inserted, or were cut short, during the
+	 * last load, in which case the data is not recorded as loaded, so that it
+	 * is loaded afresh the next time.
+	 * 
+	 * @return
+	 */
+	private boolean hasRejectedRows() {
+		IngestStats stats = this.database.getIngestStats();
+		if(stats.getRejectedRows() == 0 && stats.getTruncatedRecords() == 0) {
+			return false;
+		}
+		
+		System.out.println("Data is incomplete and will be loaded again the next time");
+		return true;
+	}
+	
+	/**
+	 * Start counting the bytes and rows loaded, and showing the progress of
+	 * the load.
+	 * 
+	 * @param loadSize
+	 *            the bytes to load, or {@link IngestStats#UNKNOWN}
+	 * 
+	 * @return
+	 */
+	private ProgressReporter startProgress(long loadSize) {
+		IngestStats stats = this.database.getIngestStats();
+		stats.start(loadSize);
+		
+		ProgressReporter progress = new ProgressReporter(stats);
+		progress.start();
+		return progress;
+	}
+	
+	/**
+	 * Get the total size of the given files, which is not known if any of
+	 * them is compressed, as the progress is counted in decompressed bytes.
+	 * 
+	 * @param files
+	 * @return the bytes, or {@link IngestStats#UNKNOWN}
+	 */
+	private static long getLoadSize(List<File> files) {
+		long size = 0;
+		for(File file : files) {
+			try {
+				if(Compression.isCompressed(file)) {
+					return IngestStats.UNKNOWN;
+				}
+			} catch (IOException e) {
+				return IngestStats.UNKNOWN;
+			}
+			
+			size += file.length();
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * Build the indexes declared on the tables, now that all data is in.
+	 * 
+	 */
+	private void buildIndexes() {
+		System.out.println("Creating indexes...");
+		long start = System.currentTimeMillis();
+		int indexes = this.database.createIndexes();
+		long end = System.currentTimeMillis();
+		System.out.println("Created " + indexes + " indexes in " + (end - start) + " millis.");
 		
 		// update the list of col sizes in database
 		this.database.updateColSizes();
 	}
+	
+	/**
+	 * Record the fingerprint of the data loaded into the database, so that
+	 * it may be reused the next time.
+	 * 
+	 * @param fileSize
+	 *            size of file loaded, unless the handler tracks the offset
+	 *            loaded up to itself
+	 */
+	private void recordDataset(long fileSize) {
+		if(isFollowable()) {
+			fileSize = ((FollowableFileFormatHandler) this.handler).getLoadedOffset();
+		}
+		
+		try {
+			this.catalog.record(FileFingerprint.of(this.file, fileSize));
+		} catch (IOException e) {
+			System.out.println("Unable to fingerprint file: " + e.getMessage());
+		}
+	}
 
+	/**
+	 * Check if lines appended to the file can be loaded on their own.
+	 * 
+	 * @return
+	 */
+	private boolean isFollowable() {
+		return this.handler instanceof FollowableFileFormatHandler && !this.compressed;
+	}
+	
 	private static void showHelp() {
 		ConsoleTable table = new ConsoleTable();
 		
 		table.addHeaderRow("Command", "Description");
+		table.addRow("bg", "Run a SELECT query in the background into a table of its own, as in BG <query>");
+		table.addRow("cache", "Show the hits and misses of the cache of query results");
+		table.addRow("cancel", "Cancel a query running in the background, as in CANCEL <job>");
 		table.addRow("count", "Show number of items in the dataset");
 		table.addRow("data", "Show all data from default DATA table in a paginated way");
 		table.addRow("desc", "Describe the default DATA table structure");
 		table.addRow("exit", "Exit the FA console");
-		table.addRow("export", "Export the data in one of CSV, XML, JSON format");
+		table.addRow("export", "Export the data in one of CSV, XML, JSON format, gzip compressed if asked for");
+		table.addRow("follow", "Keep loading lines appended to a log file, checking every 5 (or given) seconds");
 		table.addRow("help", "Show this help screen");
+		table.addRow("jobs", "Show the queries run in the background and their elapsed time");
 		table.addRow("quit", "Exit the FA console");
+		table.addRow("snapshot", "Save the data held in memory to disk, to reuse it later");
 		table.addRow("tables", "Show a list of all tables that were created");
+		table.addRow("timeout", "Cancel queries that run longer than the given seconds, 0 for no limit");
+		table.addRow("unfollow", "Stop loading lines appended to the file");
 		
 		table.write(System.out);
 	}
 	
+	/**
+	 * Run the query or command entered on the prompt. A query that runs too
+	 * long may be cancelled meanwhile by {@link #cancelQuery()}.
+	 * 
+	 * @param query
+	 */
 	public void executeQuery(String query) {
+		this.querying = true;
+		try {
+			runQuery(query);
+		} finally {
+			this.querying = false;
+		}
+	}
+	
+	/**
+	 * Cancel the query being run from the prompt, if any, as on Ctrl-C.
+	 * Queries run in the background keep running.
+	 * 
+	 * @return <code>false</code> if no query is being run
+	 */
+	public boolean cancelQuery() {
+		if(!this.querying) {
+			return false;
+		}
+		
+		// the task may be waiting for another query to complete
+		QueryTask task = this.foreground;
+		boolean cancelled = task != null && task.cancelExecution();
+		
+		if(this.database.cancelQueries() > 0 || cancelled) {
+			System.out.println("\nCancelling query...");
+		}
+		
+		return true;
+	}
+	
+	private void runQuery(String query) {
 		if("help".equalsIgnoreCase(query)) {
 			showHelp();
 			return;
@@ -163,7 +632,61 @@ public class FileAnalysis implements Closeable {
 			return;
 		}
 		
-		this.database.execute(query, new SQLStatementConsumer() {
+		if("follow".equalsIgnoreCase(query) || query.startsWith("follow ")) {
+			this.doFollow(query);
+			return;
+		}
+		
+		if("snapshot".equalsIgnoreCase(query)) {
+			this.snapshot();
+			return;
+		}
+		
+		if("cache".equalsIgnoreCase(query)) {
+			this.showCache();
+			return;
+		}
+		
+		if(query.startsWith("bg ")) {
+			this.doBackground(query);
+			return;
+		}
+		
+		if("jobs".equalsIgnoreCase(query)) {
+			this.showJobs();
+			return;
+		}
+		
+		if(query.startsWith("cancel ")) {
+			this.doCancel(query);
+			return;
+		}
+		
+		if("timeout".equalsIgnoreCase(query) || query.startsWith("timeout ")) {
+			this.doTimeout(query);
+			return;
+		}
+		
+		if("unfollow".equalsIgnoreCase(query)) {
+			if(this.follower == null || !this.follower.isRunning()) {
+				System.out.println("File is not being followed");
+				return;
+			}
+			
+			this.follower.stop();
+			System.out.println("Stopped following file");
+			return;
+		}
+		
+		// plain selects over a table are read a page at a time
+		PagedQuery pagedQuery = PagedQuery.of(this.database, query);
+		if(pagedQuery != null) {
+			new DBResultViewer(database).viewResult(pagedQuery);
+			return;
+		}
+		
+		// run on the query executor, so that the query can be cancelled
+		QueryTask task = this.database.submit(query, new SQLStatementConsumer() {
 			
 			@Override
 			public void consume(Statement statement) {
@@ -177,46 +700,267 @@ public class FileAnalysis implements Closeable {
 			}
 			
 		});
+		
+		this.foreground = task;
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			task.cancel(true);
+			Thread.currentThread().interrupt();
+		} catch (CancellationException e) {
+			System.out.println("Query cancelled");
+		} catch (ExecutionException e) {
+			System.out.println("Unable to run the query");
+			e.getCause().printStackTrace();
+		} finally {
+			this.foreground = null;
+		}
+	}
+
+	/**
+	 * Show the use of the cache of query results.
+	 * 
+	 */
+	public void showCache() {
+		QueryCache cache = this.database.getQueryCache();
+		System.out.println("Query cache holds " + cache.getSize() + " results in " + (cache.getBytes() / 1024) + " KB of " + (cache.getMaxBytes() / 1024) + " KB");
+		System.out.println("Hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+	}
+	
+	/**
+	 * Start running the given query in the background, into a table named
+	 * after the job.
+	 * 
+	 * @param query
+	 */
+	public void doBackground(String query) {
+		String selectQuery = query.substring("bg ".length()).trim();
+		String normalized = QueryCache.normalize(selectQuery);
+		if(!normalized.startsWith("select ") || !QueryCache.isReadOnly(normalized)) {
+			System.out.println("Invalid syntax: use BG <query>");
+			System.out.println("\twhere query is a single SELECT query");
+			return;
+		}
+		
+		// drop the trailing semi-colon as the query is nested
+		while(selectQuery.endsWith(";")) {
+			selectQuery = selectQuery.substring(0, selectQuery.length() - 1).trim();
+		}
+		
+		// skip tables left by jobs of earlier sessions, checked only once
+		// as the jobs of this session are numbered after them
+		if(this.firstJobTable == 0) {
+			this.firstJobTable = 1;
+			while(this.database.hasTable("JOB_" + this.firstJobTable)) {
+				this.firstJobTable++;
+			}
+		}
+		
+		int id = this.jobs.size() + 1;
+		String table = "JOB_" + (this.firstJobTable + id - 1);
+		
+		QueryJob job = new QueryJob(id, table, selectQuery);
+		this.jobs.add(job);
+		job.start(this.database);
+		
+		System.out.println("Started job " + id + ", results go to table " + table + "; use JOBS to see its status");
+	}
+	
+	/**
+	 * Show the queries run in the background.
+	 * 
+	 */
+	public void showJobs() {
+		if(this.jobs.isEmpty()) {
+			System.out.println("No queries have been run in the background");
+			return;
+		}
+		
+		ConsoleTable table = new ConsoleTable();
+		
+		table.addHeaderRow("Job", "Status", "Elapsed", "Table", "Query");
+		for(QueryJob job : this.jobs) {
+			table.addRow(String.valueOf(job.getId()), job.getStatus(), job.getElapsedTime() + " millis", job.getTable(), job.getQuery());
+		}
+		
+		table.write(System.out);
+	}
+	
+	/**
+	 * Cancel the query run in the background as the given job.
+	 * 
+	 * @param query
+	 */
+	public void doCancel(String query) {
+		String[] tokens = query.split(" ");
+		int id = 0;
+		if(tokens.length == 2) {
+			try {
+				id = Integer.parseInt(tokens[1]);
+			} catch(NumberFormatException e) {
+				// invalid job
+			}
+		}
+		
+		if(id < 1 || id > this.jobs.size()) {
+			System.out.println("Invalid syntax: use CANCEL <job>");
+			System.out.println("\twhere job is the number shown by JOBS");
+			return;
+		}
+		
+		if(this.jobs.get(id - 1).cancel()) {
+			System.out.println("Cancelled job " + id);
+		} else {
+			System.out.println("Job " + id + " is already done");
+		}
+	}
+	
+	/**
+	 * Set the number of seconds after which queries are cancelled.
+	 * 
+	 * @param query
+	 */
+	public void doTimeout(String query) {
+		String[] tokens = query.split(" ");
+		if(tokens.length == 1) {
+			int seconds = this.database.getQueryTimeout();
+			System.out.println(seconds == 0 ? "Queries run without a time limit" : "Queries are cancelled after " + seconds + " seconds");
+			return;
+		}
+		
+		int seconds = -1;
+		if(tokens.length == 2) {
+			try {
+				seconds = Integer.parseInt(tokens[1]);
+			} catch(NumberFormatException e) {
+				// invalid timeout
+			}
+		}
+		
+		if(seconds < 0) {
+			System.out.println("Invalid syntax: use TIMEOUT <seconds>");
+			System.out.println("\twhere seconds is 0 to run queries without a time limit");
+			return;
+		}
+		
+		this.database.setQueryTimeout(seconds);
+		System.out.println(seconds == 0 ? "Queries run without a time limit" : "Queries are cancelled after " + seconds + " seconds");
+	}
+	
+	/**
+	 * Save the data held in memory to the database on disk.
+	 * 
+	 */
+	public void snapshot() {
+		System.out.println("Saving snapshot to disk...");
+		long start = System.currentTimeMillis();
+		if(this.database.snapshot()) {
+			long end = System.currentTimeMillis();
+			System.out.println("Saved snapshot to database " + this.database.getDatabaseName() + " in " + (end - start) + " millis.");
+		}
+	}
+	
+	public void doFollow(String query) {
+		if(!(this.handler instanceof FollowableFileFormatHandler)) {
+			System.out.println("Follow is only supported for log files");
+			return;
+		}
+		
+		if(this.files.size() > 1) {
+			System.out.println("Follow is only supported when loading a single file");
+			return;
+		}
+		
+		if(this.compressed) {
+			System.out.println("Follow is not supported for compressed files");
+			return;
+		}
+		
+		if(this.follower != null && this.follower.isRunning()) {
+			System.out.println("File is already being followed");
+			return;
+		}
+		
+		int seconds = 5;
+		String[] tokens = query.split(" ");
+		if(tokens.length == 2) {
+			try {
+				seconds = Integer.parseInt(tokens[1]);
+			} catch(NumberFormatException e) {
+				// use the default
+			}
+		}
+		
+		if(seconds < 1) {
+			System.out.println("Invalid syntax: use FOLLOW <seconds>");
+			return;
+		}
+		
+		this.follower = new FileFollower(this.file, (FollowableFileFormatHandler) this.handler, this.database, seconds * 1000l);
+		this.follower.start();
+		System.out.println("Following file for appended lines every " + seconds + " seconds, use UNFOLLOW to stop");
 	}
 
 	public void doExport(String query) {
 		String[] tokens = query.split(" ");
-		if(tokens.length != 2) {
-			System.out.println("Invalid syntax: use EXPORT <format>");
+		if(tokens.length < 2 || tokens.length > 3 || (tokens.length == 3 && !"gzip".equalsIgnoreCase(tokens[2]))) {
+			System.out.println("Invalid syntax: use EXPORT <format> [GZIP]");
 			System.out.println("\twhere format can be CSV, JSON, or XML");
 			return;
 		}
 		
-		final String format = tokens[1].toLowerCase();
-		if(!StringUtils.contains(new String[] { "csv", "json", "xml"}, format)) {
-			System.out.println("Invalid format: use EXPORT <format>");
+		final ExportFormat format = ExportFormat.fromName(tokens[1]);
+		if(format == null) {
+			System.out.println("Invalid format: use EXPORT <format> [GZIP]");
 			System.out.println("\twhere format can be CSV, JSON, or XML");
 			return;
 		}
 		
+		final boolean gzip = tokens.length == 3;
+		
 		String selectQuery = ConsoleUtils.readLine("Enter SELECT query (empty for all): ", true);
 		if(AssertUtils.isEmpty(selectQuery)) {
 			selectQuery = "SELECT * FROM DATA;";
 		}
 		
+		// the whole result is written out once, so is not cached
 		this.database.execute(selectQuery, new SQLStatementConsumer() {
 			
 			@Override
 			public void consume(Statement statement) {
 				// display the result appropriately
 				try {
-					new DBResultViewer(database).export(statement, format);
+					new DBResultViewer(database).export(statement, format, gzip);
 				} catch (SQLException e) {
 					System.out.println("Unable to display results of the query");
 					e.printStackTrace();
 				}
 			}
 			
-		});
+		}, false);
 	}
 	
 	@Override
 	public void close() {
+		// stop following the file
+		if(this.follower != null) {
+			this.follower.stop();
+			
+			// lines may have been appended
+			if(this.loaded) {
+				synchronized(this.database) {
+					recordDataset(this.file.length());
+				}
+			}
+		}
+		
+		// stop the queries running in the background
+		for(QueryJob job : this.jobs) {
+			if(job.isRunning()) {
+				job.cancel();
+			}
+		}
+		
 		// close the database
 		if(this.database != null) {
 			this.database.closeDatabase();
@@ -231,7 +975,21 @@ public class FileAnalysis implements Closeable {
 	 * @return
 	 */
 	private String getDBName(File file, FileFormat format) {
-		return file.getName();
+		return DatasetCatalog.getDatabaseName(file, format.name());
+	}
+	
+	// Usual accessors follow
+	
+	public Database getDatabase() {
+		return database;
+	}
+	
+	public AnalysisConfig getConfig() {
+		return config;
+	}
+	
+	public void setConfig(AnalysisConfig config) {
+		this.config = config;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,342 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import com.sangupta.fileanalysis.db.DBResultViewer;
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.ExportFormat;
+import com.sangupta.fileanalysis.db.SQLScript;
+import com.sangupta.fileanalysis.db.SQLStatementConsumer;
+import com.sangupta.jerry.print.ConsoleTable;
+
+/**
+ * Runs the tool without a console, such as from cron or a build: the files
+ * are loaded with the choices given in an {@link AnalysisConfig}, the
+ * statements of a SQL script are run, and the result of each is written to
+ * a file of its own. A summary of the time taken by each step is printed
+ * and written next to the results.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileAnalysisBatch {
+	
+	/**
+	 * Name of the file the summary is written to
+	 */
+	public static final String SUMMARY_FILE = "summary.txt";
+	
+	/**
+	 * Longest text of a statement shown in the summary
+	 */
+	private static final int MAX_STEP_LENGTH = 60;
+	
+	private final AnalysisConfig config;
+	
+	private final ConsoleTable summary = new ConsoleTable();
+	
+	public FileAnalysisBatch(AnalysisConfig config) {
+		this.config = config;
+		this.summary.addHeaderRow("Step", "Status", "Millis", "Rows", "Output");
+	}
+	
+	/**
+	 * Run the tool with the given command line arguments.
+	 * 
+	 * @param args
+	 * @return the exit status, zero if all steps succeeded
+	 */
+	public static int run(String[] args) {
+		AnalysisConfig config;
+		try {
+			config = AnalysisConfig.fromArgs(args);
+		} catch (IOException e) {
+			System.out.println("Unable to read config file: " + e.getMessage());
+			return 2;
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			showUsage();
+			return 2;
+		}
+		
+		return new FileAnalysisBatch(config).run();
+	}
+	
+	private static void showUsage() {
+		System.out.println("Usage: java -jar fileanalysis.jar [--config=<file>] [--<key>=<value>...] <file, folder or glob>...");
+		System.out.println("\twhere keys include format, memory, header, delimiter, type.<column>, indexes, script, output, export, gzip, timeout");
+	}
+	
+	/**
+	 * Load the files and run the script.
+	 * 
+	 * @return the exit status, zero if all steps succeeded
+	 */
+	public int run() {
+		List<String> inputs = this.config.getFiles();
+		if(inputs.isEmpty()) {
+			System.out.println("No files given to analyze");
+			showUsage();
+			return 2;
+		}
+		
+		List<File> files = new ArrayList<File>();
+		for(String input : inputs) {
+			List<File> found = FileAnalysisMain.getInputFiles(input);
+			if(found == null) {
+				return 1;
+			}
+			
+			files.addAll(found);
+		}
+		
+		FileFormat format = getFileFormat(files.get(0));
+		if(format == null) {
+			System.out.println("File format not understood by the tool... exiting!");
+			return 2;
+		}
+		
+		ExportFormat exportFormat = ExportFormat.fromName(this.config.getString("export", null, "csv"));
+		if(exportFormat == null) {
+			System.out.println("Invalid export format: use one of CSV, JSON, or XML");
+			return 2;
+		}
+		
+		File output = new File(this.config.getString("output", null, "."));
+		if(!output.isDirectory() && !output.mkdirs()) {
+			System.out.println("Unable to create output folder: " + output.getAbsolutePath());
+			return 1;
+		}
+		
+		int timeout;
+		try {
+			timeout = Integer.parseInt(this.config.getString("timeout", null, "0"));
+		} catch(NumberFormatException e) {
+			System.out.println("Invalid timeout: use the number of seconds, 0 for no limit");
+			return 2;
+		}
+		
+		boolean inMemory = this.config.getBoolean("memory", null, FileAnalysisMain.fitsInMemory(files));
+		
+		int failed = 0;
+		FileAnalysis analysis = null;
+		try {
+			analysis = new FileAnalysis(new File(inputs.get(0)), files, format, inMemory);
+			analysis.setConfig(this.config);
+			
+			long start = System.currentTimeMillis();
+			boolean loaded = false;
+			try {
+				loaded = analysis.analyzeFile();
+			} finally {
+				addStep("Load " + files.size() + " files", loaded, System.currentTimeMillis() - start, null, null);
+			}
+			
+			if(loaded) {
+				Database database = analysis.getDatabase();
+				database.setQueryTimeout(timeout);
+				
+				failed += runScript(database, output, exportFormat);
+				
+				if(inMemory && this.config.getBoolean("snapshot", null, false)) {
+					analysis.snapshot();
+				}
+			} else {
+				// results of the script would be wrong with rows missing
+				System.out.println("Data was not loaded in full, skipping the script");
+				failed++;
+			}
+		} catch(Exception e) {
+			System.out.println("Error analyzing file... exiting!");
+			e.printStackTrace();
+			failed++;
+		} finally {
+			if(analysis != null) {
+				analysis.close();
+			}
+		}
+		
+		writeSummary(output);
+		return failed == 0 ? 0 : 1;
+	}
+	
+	/**
+	 * Find the format of the files, as given or else from the extension.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	private FileFormat getFileFormat(File file) {
+		String name = this.config.getString("format", null, null);
+		if(name == null) {
+			return FileAnalysisMain.detectFileFormat(file);
+		}
+		
+		return FileFormat.fromName(name);
+	}
+	
+	/**
+	 * Run each statement of the script, writing the rows of those that
+	 * return any to a file. The rows are read once, and thus not cached.
+	 * 
+	 * @param database
+	 * @param output
+	 * @param exportFormat
+	 * @return the number of statements that failed
+	 * @throws IOException
+	 *             if the script cannot be read
+	 */
+	private int runScript(Database database, File output, ExportFormat exportFormat) throws IOException {
+		String script = this.config.getString("script", null, null);
+		if(script == null) {
+			return 0;
+		}
+		
+		List<String> statements = SQLScript.split(FileUtils.readFileToString(new File(script), "UTF-8"));
+		boolean gzip = this.config.getBoolean("gzip", null, false);
+		
+		int failed = 0;
+		for(int index = 0; index < statements.size(); index++) {
+			String query = statements.get(index);
+			System.out.println("Running: " + query);
+			
+			File file = new File(output, "result-" + (index + 1) + exportFormat.getExtension() + (gzip ? ".gz" : ""));
+			ScriptStatement statement = new ScriptStatement(database, file, exportFormat, gzip);
+			
+			long start = System.currentTimeMillis();
+			database.execute(query, statement, false);
+			long millis = System.currentTimeMillis() - start;
+			
+			if(!statement.completed) {
+				failed++;
+			}
+			
+			addStep(query, statement.completed, millis, statement.rows, statement.written ? file.getName() : null);
+		}
+		
+		return failed;
+	}
+	
+	private void addStep(String step, boolean completed, long millis, Long rows, String output) {
+		if(step.length() > MAX_STEP_LENGTH) {
+			step = step.substring(0, MAX_STEP_LENGTH - 3) + "...";
+		}
+		
+		this.summary.addRow(step.replaceAll("\\s+", " "), completed ? "Done" : "Failed", String.valueOf(millis), rows == null ? "" : String.valueOf(rows), output == null ? "" : output);
+	}
+	
+	/**
+	 * Print the summary of the steps, and write it to the output folder.
+	 * 
+	 * @param output
+	 */
+	private void writeSummary(File output) {
+		System.out.println();
+		this.summary.write(System.out);
+		
+		File file = new File(output, SUMMARY_FILE);
+		try {
+			PrintStream stream = new PrintStream(new FileOutputStream(file), true, "UTF-8");
+			try {
+				this.summary.write(stream);
+			} finally {
+				stream.close();
+			}
+			
+			System.out.println("Summary written to disk at: " + file.getAbsolutePath());
+		} catch (IOException e) {
+			System.out.println("Unable to write summary to disk: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes the result of a statement of the script to its file.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class ScriptStatement implements SQLStatementConsumer {
+		
+		final Database database;
+		
+		final File file;
+		
+		final ExportFormat format;
+		
+		final boolean gzip;
+		
+		/**
+		 * Whether the statement ran, and its result was written
+		 */
+		boolean completed;
+		
+		/**
+		 * Whether a file of rows was written
+		 */
+		boolean written;
+		
+		/**
+		 * Rows returned or updated, if known
+		 */
+		Long rows;
+		
+		ScriptStatement(Database database, File file, ExportFormat format, boolean gzip) {
+			this.database = database;
+			this.file = file;
+			this.format = format;
+			this.gzip = gzip;
+		}
+		
+		@Override
+		public void consume(Statement statement) {
+			try {
+				ResultSet resultSet = statement.getResultSet();
+				if(resultSet == null) {
+					this.rows = Long.valueOf(statement.getUpdateCount());
+				} else {
+					this.rows = Long.valueOf(new DBResultViewer(this.database).export(resultSet, this.format, this.file, this.gzip));
+					this.written = true;
+				}
+				
+				this.completed = true;
+			} catch (SQLException e) {
+				System.out.println("Unable to read results of the query: " + e.getMessage());
+			} catch (IOException e) {
+				System.out.println("Unable to write file to disk: " + e.getMessage());
+			}
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -22,9 +22,6 @@
 package com.sangupta.fileanalysis;
 
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 /**
  * 
@@ -33,7 +30,7 @@ import java.util.Date;
  */
 public class FileAnalysisHelper {
 	
-	public static final SimpleDateFormat LOG_DATE_FORMAT = new SimpleDateFormat("dd/MMM/yyyy:hh:mm:ss Z");
+	public static final TimestampParser LOG_DATE_PARSER = new TimestampParser("dd/MMM/yyyy:HH:mm:ss Z");
 	
 	public static boolean isAnyOf(String value, String[] list) {
 		for(String item : list) {
@@ -66,13 +63,6 @@ public class FileAnalysisHelper {
 	}
 
 	public static Timestamp tryDateParse(String item) {
-		try {
-			Date date = LOG_DATE_FORMAT.parse(item);
-			return new Timestamp(date.getTime());
-		} catch(ParseException e) {
-			// eat up
-		}
-		
-		return null;
+		return LOG_DATE_PARSER.parse(item);
 	}
 }
\ No newline at end of file
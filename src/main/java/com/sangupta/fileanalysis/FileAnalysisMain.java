@@ -22,9 +22,15 @@
 package com.sangupta.fileanalysis;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.sangupta.fileanalysis.io.Compression;
+import com.sangupta.fileanalysis.io.InputFiles;
 
 import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.jerry.util.ConsoleUtils;
+import com.sangupta.jerry.util.StringUtils;
 
 /**
  * Command line interface to the {@link FileAnalysis} tool.
@@ -35,17 +41,30 @@ import com.sangupta.jerry.util.ConsoleUtils;
 public class FileAnalysisMain {
 	
 	/**
-	 * Start the interactive tool.
+	 * Start the interactive tool, or when given arguments, load the files
+	 * and run the SQL script given without asking anything.
 	 * 
 	 * @param args
+	 * @see FileAnalysisBatch
 	 */
 	public static void main(String[] args) {
-		File file = getInputFile();
-		if(file == null) {
+		if(args.length > 0) {
+			System.exit(FileAnalysisBatch.run(args));
+			return;
+		}
+		
+		String filePath = ConsoleUtils.readLine("Enter file, folder or glob to be analyzed: ", true);
+		if(AssertUtils.isEmpty(filePath)) {
+			System.out.println("Nothing to do... exiting!");
+			return;
+		}
+		
+		List<File> files = getInputFiles(filePath);
+		if(files == null) {
 			return;
 		}
 		
-		FileFormat format = getFileFormat(file);
+		FileFormat format = getFileFormat(files.get(0));
 		if(format == null) {
 			System.out.println("File format not understood by the tool... exiting!");
 			return;
@@ -53,11 +72,13 @@ public class FileAnalysisMain {
 		
 		// check the validity of the parameters
 		System.out.println("\nChecking parameters...");
+		boolean inMemory = isInMemory(files);
 
 		// start the engine
 		FileAnalysis analysis = null;
 		try {
-			analysis = new FileAnalysis(file, format);
+			analysis = new FileAnalysis(new File(filePath), files, format, inMemory);
+			handleInterrupt(analysis);
 			analysis.analyzeFile();
 			
 			// now ask user for input
@@ -79,6 +100,11 @@ public class FileAnalysisMain {
 				analysis.executeQuery(query);
 			} while(true);
 			
+			// in-memory data is lost unless saved
+			if(inMemory && StringUtils.getBoolean(ConsoleUtils.readLine("Save snapshot of data to disk before exiting (false): ", true), false)) {
+				analysis.snapshot();
+			}
+			
 			System.out.println("File Analysis complete.");
 		} catch(Exception e) {
 			System.out.println("Error analyzing file... exiting!");
@@ -88,6 +114,26 @@ public class FileAnalysisMain {
 		}
 	}
 
+	/**
+	 * Make Ctrl-C cancel the query being run, rather than exit and lose the
+	 * data loaded. When no query is being run the tool exits as usual, as it
+	 * does on runtimes where signals cannot be handled.
+	 * 
+	 * @param analysis
+	 */
+	private static void handleInterrupt(final FileAnalysis analysis) {
+		new ConsoleInterrupt() {
+			
+			@Override
+			public void interrupted(int signal) {
+				if(!analysis.cancelQuery()) {
+					System.exit(128 + signal);
+				}
+			}
+			
+		}.install();
+	}
+
 	/**
 	 * Find the format of the file that we will be working upon, either
 	 * by guessing, or by asking the user.
@@ -96,8 +142,30 @@ public class FileAnalysisMain {
 	 * @return
 	 */
 	private static FileFormat getFileFormat(File file) {
-		// extract file extension
-		String name = file.getName();
+		FileFormat format = detectFileFormat(file);
+		if(format != null) {
+			return format;
+		}
+		
+		System.out.println("Valid file formats: csv, tsv, pipe, delim, httpd, log4j, logback");
+		String fileFormat = ConsoleUtils.readLine("Enter file format: ", true);
+		if(AssertUtils.isEmpty(fileFormat)) {
+			System.out.println("No file format specified... exiting!");
+			return null;
+		}
+		
+		return FileFormat.valueOf(fileFormat);
+	}
+	
+	/**
+	 * Detect the format of the file from its extension.
+	 * 
+	 * @param file
+	 * @return the format, or <code>null</code> if not known
+	 */
+	static FileFormat detectFileFormat(File file) {
+		// extract file extension, ignoring that of the compression
+		String name = Compression.stripExtension(file.getName());
 		int index = name.indexOf('.');
 		if(index != -1) {
 			String extension = name.substring(index + 1);
@@ -126,41 +194,68 @@ public class FileAnalysisMain {
 			System.out.println("Unable to detect file format from extension: " + name);
 		}
 		
-		
-		System.out.println("Valid file formats: csv, tsv, pipe, delim, httpd, log4j, logback");
-		String fileFormat = ConsoleUtils.readLine("Enter file format: ", true);
-		if(AssertUtils.isEmpty(fileFormat)) {
-			System.out.println("No file format specified... exiting!");
-			return null;
-		}
-		
-		return FileFormat.valueOf(fileFormat);
+		return null;
 	}
 
 	/**
-	 * Ask the user for file that we need to work upon.
+	 * Ask the user whether to load the data in memory rather than on disk.
+	 * Memory is suggested when the files comfortably fit in the heap.
 	 * 
+	 * @param files
 	 * @return
 	 */
-	private static File getInputFile() {
-		String filePath = ConsoleUtils.readLine("Enter file path to be analyzed: ", true);
-		if(AssertUtils.isEmpty(filePath)) {
-			System.out.println("Nothing to do... exiting!");
-			return null;
+	private static boolean isInMemory(List<File> files) {
+		boolean fits = fitsInMemory(files);
+		return StringUtils.getBoolean(ConsoleUtils.readLine("Load data in memory instead of on disk (" + fits + "): ", true), fits);
+	}
+	
+	/**
+	 * Check if the data of the files comfortably fits in the heap.
+	 * 
+	 * @param files
+	 * @return
+	 */
+	static boolean fitsInMemory(List<File> files) {
+		long size = 0;
+		for(File file : files) {
+			size += file.length();
 		}
 		
-		File file = new File(filePath);
-		if(!file.exists()) {
-			System.out.println("No such file exists... exiting!");
+		return size * 4 < Runtime.getRuntime().maxMemory();
+	}
+	
+	/**
+	 * Find the files to work upon for the path given by the user: a file, a
+	 * folder or a glob.
+	 * 
+	 * @param filePath
+	 * @return the files, or <code>null</code> if none were found
+	 */
+	static List<File> getInputFiles(String filePath) {
+		List<File> files;
+		try {
+			files = InputFiles.resolve(filePath);
+		} catch (IOException e) {
+			System.out.println("Unable to list files: " + e.getMessage() + "... exiting!");
 			return null;
 		}
 		
-		if(!file.isFile()) {
-			System.out.println("Not a valid file... exiting!");
+		if(files.isEmpty()) {
+			File file = new File(filePath);
+			if(!InputFiles.isGlob(filePath) && !file.exists()) {
+				System.out.println("No such file exists... exiting!");
+			} else {
+				System.out.println("No files found to analyze... exiting!");
+			}
+			
 			return null;
 		}
 		
-		return file;
+		if(files.size() > 1) {
+			System.out.println("Found " + files.size() + " files to analyze.");
+		}
+		
+		return files;
 	}
 	
 }
\ No newline at end of file
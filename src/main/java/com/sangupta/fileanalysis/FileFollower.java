@@ -0,0 +1,163 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import com.sangupta.fileanalysis.db.Database;
+
+/**
+ * Follows a file in the background, like <code>tail -f</code>, loading the
+ * lines appended to it into the database as they are written. The query
+ * prompt stays usable meanwhile, as the {@link Database} loads the rows
+ * on its writer connection, apart from the queries.
+ * 
+ * If the file shrinks, or its first bytes change, it has been truncated or
+ * rotated, and the data is loaded afresh from the start of the file.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileFollower implements Runnable {
+	
+	/**
+	 * Number of bytes at the start of the file compared to detect rotation
+	 */
+	private static final int HEAD_SIZE = 1024;
+	
+	private final File file;
+	
+	private final FollowableFileFormatHandler handler;
+	
+	private final Database database;
+	
+	private final long intervalMillis;
+	
+	/**
+	 * The first bytes of the file when it was last loaded
+	 */
+	private byte[] head;
+	
+	private volatile Thread thread;
+	
+	public FileFollower(File file, FollowableFileFormatHandler handler, Database database, long intervalMillis) {
+		this.file = file;
+		this.handler = handler;
+		this.database = database;
+		this.intervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * Start following the file on a background thread.
+	 * 
+	 */
+	public synchronized void start() {
+		if(this.thread != null) {
+			return;
+		}
+		
+		this.thread = new Thread(this, "fa-follower");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	/**
+	 * Stop following the file.
+	 * 
+	 */
+	public synchronized void stop() {
+		if(this.thread == null) {
+			return;
+		}
+		
+		this.thread.interrupt();
+		this.thread = null;
+	}
+	
+	public boolean isRunning() {
+		return this.thread != null;
+	}
+	
+	@Override
+	public void run() {
+		try {
+			this.head = readHead(HEAD_SIZE);
+			
+			while(!Thread.currentThread().isInterrupted()) {
+				Thread.sleep(this.intervalMillis);
+				follow();
+			}
+		} catch (InterruptedException e) {
+			// stopped
+		} catch (IOException e) {
+			System.out.println("\nUnable to follow file: " + e.getMessage());
+			this.thread = null;
+		}
+	}
+	
+	/**
+	 * Load whatever has been appended to the file since the last check.
+	 * 
+	 * @throws IOException
+	 */
+	private void follow() throws IOException {
+		synchronized(this.database) {
+			boolean replaced = this.file.length() < this.handler.getLoadedOffset() || !Arrays.equals(this.head, readHead(this.head.length));
+			if(replaced) {
+				System.out.println("\nFile has been truncated or rotated, loading it again...");
+				this.handler.clearData();
+			}
+			
+			try {
+				this.handler.loadAppended();
+			} finally {
+				this.database.flushBatches();
+			}
+			
+			if(replaced || this.head.length < HEAD_SIZE) {
+				this.head = readHead(HEAD_SIZE);
+			}
+		}
+	}
+	
+	/**
+	 * Read up to the given number of bytes from the start of the file.
+	 * 
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] readHead(int size) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "r");
+		try {
+			byte[] bytes = new byte[(int) Math.min(size, randomAccessFile.length())];
+			randomAccessFile.readFully(bytes);
+			return bytes;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+	
+}
\ No newline at end of file
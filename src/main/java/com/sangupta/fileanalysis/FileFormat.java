@@ -83,6 +83,22 @@ public enum FileFormat {
 		return new DoNothingHandler();
 	}
 
+	/**
+	 * Find the format with the given name, ignoring case.
+	 * 
+	 * @param name
+	 * @return the format, or <code>null</code> if there is none
+	 */
+	public static FileFormat fromName(String name) {
+		for(FileFormat format : values()) {
+			if(format.name().equalsIgnoreCase(name)) {
+				return format;
+			}
+		}
+		
+		return null;
+	}
+	
 	public static FileFormat forExtension(String extension) {
 		if(AssertUtils.isEmpty(extension)) {
 			throw new IllegalArgumentException("Extension cannot be null/empty");
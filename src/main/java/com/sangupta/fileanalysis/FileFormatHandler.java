@@ -41,4 +41,36 @@ public interface FileFormatHandler {
 
 	public void loadFile() throws IOException;
 	
+	/**
+	 * Add a <code>source_file</code> column to the tables, holding the path
+	 * of the file each row was loaded from. Must be called before the tables
+	 * are created.
+	 * 
+	 * @param sourceColumn
+	 */
+	public void setSourceColumn(boolean sourceColumn);
+	
+	/**
+	 * Set the configuration the choices of the handler are read from, such
+	 * as whether the data has a header row. Must be called before the
+	 * configuration is read.
+	 * 
+	 * @param config
+	 */
+	public void setConfig(AnalysisConfig config);
+	
+	/**
+	 * Create a handler that loads another file into the tables created by
+	 * this handler, with the same configuration. The handler returned is
+	 * ready to load, and may do so concurrently with this one.
+	 * 
+	 * @param file
+	 * @param ways
+	 *            the number of files loaded at the same time, between which
+	 *            the threads and memory used to load are divided
+	 * 
+	 * @return
+	 */
+	public FileFormatHandler forFile(File file, int ways);
+	
 }
\ No newline at end of file
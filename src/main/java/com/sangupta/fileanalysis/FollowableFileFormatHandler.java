@@ -0,0 +1,64 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.IOException;
+
+/**
+ * A {@link FileFormatHandler} that can pick up lines appended to the file
+ * after it has been loaded, such as those of a live log file.
+ * 
+ * @author sangupta
+ *
+ */
+public interface FollowableFileFormatHandler extends FileFormatHandler {
+	
+	/**
+	 * Offset in the file up to which the data has been loaded.
+	 * 
+	 * @return
+	 */
+	public long getLoadedOffset();
+	
+	/**
+	 * Resume loading at the given offset, keeping the data loaded earlier
+	 * from before it. Must be called before the tables are created.
+	 * 
+	 * @param offset
+	 */
+	public void setLoadedOffset(long offset);
+	
+	/**
+	 * Load the complete lines appended to the file since the last load.
+	 * 
+	 * @throws IOException
+	 */
+	public void loadAppended() throws IOException;
+	
+	/**
+	 * Remove all loaded data, so that the file is loaded again from the
+	 * start on the next call to {@link #loadAppended()}.
+	 * 
+	 */
+	public void clearData();
+	
+}
\ No newline at end of file
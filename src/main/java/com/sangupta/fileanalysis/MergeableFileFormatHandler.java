@@ -0,0 +1,47 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link FileFormatHandler} for records that carry a time, such as log
+ * lines, which can load a set of files merged into one table in time order.
+ * 
+ * @author sangupta
+ *
+ */
+public interface MergeableFileFormatHandler extends FileFormatHandler {
+	
+	/**
+	 * Load all given files into the tables created by this handler, so that
+	 * the rows are in the order of time across files. Each file must be in
+	 * time order itself.
+	 * 
+	 * @param files
+	 * @throws IOException
+	 */
+	public void loadMerged(List<File> files) throws IOException;
+	
+}
\ No newline at end of file
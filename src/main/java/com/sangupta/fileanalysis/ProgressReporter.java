@@ -0,0 +1,235 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+
+import com.sangupta.fileanalysis.ingest.IngestStats;
+import com.sangupta.fileanalysis.io.StreamChunker;
+import com.sangupta.jerry.print.ConsoleTable;
+
+/**
+ * Shows the progress of a load while it runs: the bytes read out of the
+ * total, the rows and megabytes loaded per second, and the time left. Once
+ * the load is done, the time spent in each stage of loading is shown along
+ * with the heap used and the time spent collecting garbage, to tell which
+ * stage holds up the load.
+ * 
+ * @author sangupta
+ *
+ */
+public class ProgressReporter implements Runnable {
+	
+	/**
+	 * Default millis between two lines of progress
+	 */
+	public static final long DEFAULT_INTERVAL = 5000;
+	
+	private static final double MB = 1024d * 1024d;
+	
+	private final IngestStats stats;
+	
+	private final PrintStream out;
+	
+	private final long intervalMillis;
+	
+	private volatile Thread thread;
+	
+	public ProgressReporter(IngestStats stats) {
+		this(stats, System.out, DEFAULT_INTERVAL);
+	}
+	
+	public ProgressReporter(IngestStats stats, PrintStream out, long intervalMillis) {
+		this.stats = stats;
+		this.out = out;
+		this.intervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * Start showing progress on a background thread.
+	 * 
+	 */
+	public synchronized void start() {
+		if(this.thread != null) {
+			return;
+		}
+		
+		this.thread = new Thread(this, "fa-progress");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	/**
+	 * Stop showing progress.
+	 * 
+	 */
+	public synchronized void stop() {
+		if(this.thread == null) {
+			return;
+		}
+		
+		this.thread.interrupt();
+		this.thread = null;
+	}
+	
+	@Override
+	public void run() {
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+				Thread.sleep(this.intervalMillis);
+				this.out.println(getProgress(this.stats.getBytesRead(), this.stats.getTotalBytes(), this.stats.getRows(), this.stats.getElapsedMillis()));
+			}
+		} catch (InterruptedException e) {
+			// stopped
+		}
+	}
+	
+	/**
+	 * Show the time spent in each stage of the load, the throughput, and
+	 * the use of memory.
+	 * 
+	 */
+	public void showSummary() {
+		long millis = this.stats.getElapsedMillis();
+		
+		ConsoleTable table = new ConsoleTable();
+		table.addHeaderRow("Stage", "Millis", "% of load");
+		addStage(table, "Read", this.stats.getReadNanos(), millis);
+		addStage(table, "Parse", this.stats.getParseNanos(), millis);
+		addStage(table, "Wait for parse", this.stats.getWaitNanos(), millis);
+		addStage(table, "Bind", this.stats.getBindNanos(), millis);
+		addStage(table, "Write", this.stats.getWriteNanos(), millis);
+		addStage(table, "Commit", this.stats.getCommitNanos(), millis);
+		table.write(this.out);
+		
+		long invalid = this.stats.getInvalidValues();
+		if(invalid > 0) {
+			this.out.println("Set " + invalid + " values that could not be read as the type of their column to NULL");
+		}
+		
+		long truncated = this.stats.getTruncatedRecords();
+		if(truncated > 0) {
+			this.out.println("Cut " + truncated + " records short that ran more than " + formatBytes(StreamChunker.MAX_LOOK_AHEAD) + " past the end of a chunk of compressed data");
+		}
+		
+		long rejected = this.stats.getRejectedRows();
+		if(rejected > 0) {
+			this.out.println("Skipped " + rejected + " rows that could not be inserted, the first for: " + this.stats.getRejectReason());
+		}
+		
+		this.out.println("Loaded " + (this.stats.getRows() - rejected) + " rows, " + formatBytes(this.stats.getBytesRead()) + " in " + formatDuration(millis) + ": " + getThroughput(this.stats.getBytesRead(), this.stats.getRows(), millis));
+		
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		this.out.println("Heap used " + formatBytes(heap.getUsed()) + " of " + formatBytes(heap.getCommitted()) + " committed, " + formatBytes(heap.getMax()) + " max; "
+				+ this.stats.getGcCountSinceStart() + " garbage collections took " + this.stats.getGcMillisSinceStart() + " millis");
+		this.out.println("Stage times are summed over threads, and parsing runs on several threads at once");
+	}
+	
+	private static void addStage(ConsoleTable table, String stage, long nanos, long elapsedMillis) {
+		long millis = nanos / 1000000l;
+		String share = elapsedMillis == 0 ? "" : String.format(Locale.US, "%.1f", 100d * millis / elapsedMillis);
+		table.addRow(stage, String.valueOf(millis), share);
+	}
+	
+	/**
+	 * Describe the progress of a load.
+	 * 
+	 * @param bytesRead
+	 * @param totalBytes
+	 *            the bytes to load, or {@link IngestStats#UNKNOWN}
+	 * 
+	 * @param rows
+	 * @param elapsedMillis
+	 * @return
+	 */
+	static String getProgress(long bytesRead, long totalBytes, long rows, long elapsedMillis) {
+		StringBuilder builder = new StringBuilder(128);
+		builder.append("Read ").append(formatBytes(bytesRead));
+		if(totalBytes > 0) {
+			builder.append(" of ").append(formatBytes(totalBytes));
+			builder.append(String.format(Locale.US, " (%.1f%%)", 100d * Math.min(bytesRead, totalBytes) / totalBytes));
+		}
+		
+		builder.append(", ").append(getThroughput(bytesRead, rows, elapsedMillis));
+		
+		long eta = getEta(bytesRead, totalBytes, elapsedMillis);
+		builder.append(", ETA ").append(eta < 0 ? "unknown" : formatDuration(eta));
+		return builder.toString();
+	}
+	
+	static String getThroughput(long bytes, long rows, long elapsedMillis) {
+		double seconds = Math.max(1, elapsedMillis) / 1000d;
+		return String.format(Locale.US, "%d rows/sec, %.1f MB/sec", (long) (rows / seconds), bytes / MB / seconds);
+	}
+	
+	/**
+	 * Estimate the millis left for a load at the rate it has run so far.
+	 * 
+	 * @param bytesRead
+	 * @param totalBytes
+	 * @param elapsedMillis
+	 * @return the millis, or <code>-1</code> if the size of the load is not
+	 *         known or nothing has been read yet
+	 */
+	static long getEta(long bytesRead, long totalBytes, long elapsedMillis) {
+		if(totalBytes <= 0 || bytesRead <= 0) {
+			return -1;
+		}
+		
+		if(bytesRead >= totalBytes) {
+			return 0;
+		}
+		
+		return (long) ((double) (totalBytes - bytesRead) * elapsedMillis / bytesRead);
+	}
+	
+	static String formatBytes(long bytes) {
+		if(bytes < 1024) {
+			return bytes + " bytes";
+		}
+		
+		if(bytes < 1024l * 1024l) {
+			return String.format(Locale.US, "%.1f KB", bytes / 1024d);
+		}
+		
+		if(bytes < 1024l * 1024l * 1024l) {
+			return String.format(Locale.US, "%.1f MB", bytes / MB);
+		}
+		
+		return String.format(Locale.US, "%.2f GB", bytes / MB / 1024d);
+	}
+	
+	/**
+	 * Format the millis as hours, minutes and seconds.
+	 * 
+	 * @param millis
+	 * @return
+	 */
+	static String formatDuration(long millis) {
+		long seconds = (millis + 500) / 1000;
+		return String.format(Locale.US, "%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+	
+}
\ No newline at end of file
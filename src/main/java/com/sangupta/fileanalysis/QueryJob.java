@@ -0,0 +1,127 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.sql.Statement;
+
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.QueryTask;
+import com.sangupta.fileanalysis.db.SQLStatementConsumer;
+
+/**
+ * A query run in the background into a table of its own, like a shell job,
+ * so that the query prompt stays usable meanwhile. The job runs on a
+ * connection of its own, so that it neither waits for nor holds up the
+ * loading of rows, nor other jobs. The results are read from the table once
+ * the job is done.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryJob implements SQLStatementConsumer {
+	
+	private final int id;
+	
+	private final String table;
+	
+	private final String query;
+	
+	private QueryTask task;
+	
+	/**
+	 * Whether the query ran without error
+	 */
+	private volatile boolean completed;
+	
+	public QueryJob(int id, String table, String query) {
+		this.id = id;
+		this.table = table;
+		this.query = query;
+	}
+	
+	/**
+	 * Start running the query into the table of the job. The table is
+	 * created empty first and then filled by a separate statement, as H2
+	 * holds the lock on its schema for as long as a statement that creates
+	 * a table runs, which would hold up the loading of rows meanwhile.
+	 * 
+	 * @param database
+	 */
+	public void start(Database database) {
+		this.task = database.submit("CREATE TABLE " + this.table + " AS SELECT * FROM (" + this.query + ") LIMIT 0; "
+				+ "INSERT INTO " + this.table + " " + this.query, this, true);
+	}
+	
+	/**
+	 * Stop the job, if it is still running.
+	 * 
+	 * @return <code>false</code> if the job was already done
+	 */
+	public boolean cancel() {
+		return this.task.cancel(true);
+	}
+	
+	@Override
+	public void consume(Statement statement) {
+		this.completed = true;
+	}
+	
+	/**
+	 * Get the state of the job for display.
+	 * 
+	 * @return
+	 */
+	public String getStatus() {
+		if(!this.task.isDone()) {
+			return this.task.getElapsedTime() == 0 ? "Waiting" : "Running";
+		}
+		
+		if(this.task.isCancelled()) {
+			return "Cancelled";
+		}
+		
+		return this.completed ? "Done" : "Failed";
+	}
+	
+	public boolean isRunning() {
+		return !this.task.isDone();
+	}
+	
+	// Usual accessors follow
+	
+	public int getId() {
+		return id;
+	}
+	
+	public String getTable() {
+		return table;
+	}
+	
+	public String getQuery() {
+		return query;
+	}
+	
+	public long getElapsedTime() {
+		return this.task.getElapsedTime();
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.sql.Timestamp;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * Parses the timestamps of log lines. A pattern such as
+ * <code>yyyy-MM-dd HH:mm:ss,SSS</code> is split into the part up to the
+ * second, which is parsed using a {@link DateTimeFormatter}, and the
+ * trailing fraction of the second, which is read digit by digit.
+ * 
+ * Consecutive lines of a log file mostly fall within the same second, and
+ * thus the part up to the second is parsed once and cached. For the lines
+ * that follow, only the fraction is read.
+ * 
+ * Instances are safe to use from multiple threads. The cache holds a few
+ * recent seconds, as parallel parsers work on different parts of a file,
+ * and its entries are immutable, so that threads replacing them race
+ * harmlessly.
+ * 
+ * @author sangupta
+ *
+ */
+public class TimestampParser {
+	
+	/**
+	 * Returned by {@link #parseMillis(CharSequence)} for text that does not
+	 * match the pattern
+	 */
+	public static final long INVALID = Long.MIN_VALUE;
+	
+	/**
+	 * Number of seconds held in the cache, must be a power of two
+	 */
+	private static final int CACHE_SIZE = 64;
+	
+	private final DateTimeFormatter formatter;
+	
+	/**
+	 * The zone used when the pattern does not include one
+	 */
+	private final ZoneId zone;
+	
+	/**
+	 * The character before the fraction of the second, if any
+	 */
+	private final char fractionSeparator;
+	
+	/**
+	 * Number of digits in the fraction of the second, zero if none
+	 */
+	private final int fractionDigits;
+	
+	private final Second[] cache = new Second[CACHE_SIZE];
+	
+	/**
+	 * Create a parser for the given pattern, in the default time zone.
+	 * 
+	 * @param pattern
+	 *            the pattern as accepted by {@link DateTimeFormatter}, where
+	 *            a trailing fraction of the second must be written as a run
+	 *            of <code>S</code> after a separator, such as
+	 *            <code>,SSS</code>
+	 */
+	public TimestampParser(String pattern) {
+		this(pattern, ZoneId.systemDefault());
+	}
+	
+	public TimestampParser(String pattern, ZoneId zone) {
+		int digits = 0;
+		while(digits < pattern.length() && pattern.charAt(pattern.length() - 1 - digits) == 'S') {
+			digits++;
+		}
+		
+		int separator = pattern.length() - 1 - digits;
+		if(digits > 0 && separator > 0 && !Character.isLetter(pattern.charAt(separator))) {
+			this.fractionDigits = Math.min(digits, 9);
+			this.fractionSeparator = pattern.charAt(separator);
+			pattern = pattern.substring(0, separator);
+		} else {
+			this.fractionDigits = 0;
+			this.fractionSeparator = 0;
+		}
+		
+		this.formatter = DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH);
+		this.zone = zone;
+	}
+	
+	/**
+	 * Parse the given text.
+	 * 
+	 * @param text
+	 * @return the timestamp, or <code>null</code> if the text does not match
+	 *         the pattern
+	 */
+	public Timestamp parse(CharSequence text) {
+		long millis = parseMillis(text);
+		if(millis == INVALID) {
+			return null;
+		}
+		
+		return new Timestamp(millis);
+	}
+	
+	/**
+	 * Parse the given text into milliseconds since the epoch.
+	 * 
+	 * @param text
+	 * @return the milliseconds, or {@link #INVALID} if the text does not
+	 *         match the pattern
+	 */
+	public long parseMillis(CharSequence text) {
+		if(text == null) {
+			return INVALID;
+		}
+		
+		int length = text.length();
+		int millis = 0;
+		if(this.fractionDigits > 0) {
+			length = length - this.fractionDigits - 1;
+			if(length <= 0 || text.charAt(length) != this.fractionSeparator) {
+				return INVALID;
+			}
+			
+			millis = parseFraction(text, length + 1);
+			if(millis < 0) {
+				return INVALID;
+			}
+		}
+		
+		// look up the second in the cache
+		int hash = 0;
+		for(int index = 0; index < length; index++) {
+			hash = 31 * hash + text.charAt(index);
+		}
+		
+		int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+		Second second = this.cache[slot];
+		if(second == null || !second.matches(text, length)) {
+			String prefix = text.subSequence(0, length).toString();
+			long epochSecond = parseEpochSecond(prefix);
+			if(epochSecond == INVALID) {
+				return INVALID;
+			}
+			
+			second = new Second(prefix, epochSecond * 1000);
+			this.cache[slot] = second;
+		}
+		
+		return second.millis + millis;
+	}
+	
+	/**
+	 * Read the digits of the fraction of the second as milliseconds.
+	 * 
+	 * @param text
+	 * @param from
+	 * @return the milliseconds, or <code>-1</code> if not all digits
+	 */
+	private int parseFraction(CharSequence text, int from) {
+		int value = 0;
+		for(int index = 0; index < this.fractionDigits; index++) {
+			int digit = text.charAt(from + index) - '0';
+			if(digit < 0 || digit > 9) {
+				return -1;
+			}
+			
+			if(index < 3) {
+				value = value * 10 + digit;
+			}
+		}
+		
+		// scale to three digits
+		for(int index = this.fractionDigits; index < 3; index++) {
+			value *= 10;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Parse the part of the text up to the second. The text is checked
+	 * before it is resolved, so that text that does not match, as is common
+	 * when looking for the start of a log record, does not throw.
+	 * 
+	 * @param text
+	 * @return
+	 */
+	private long parseEpochSecond(String text) {
+		ParsePosition position = new ParsePosition(0);
+		if(this.formatter.parseUnresolved(text, position) == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+			return INVALID;
+		}
+		
+		try {
+			TemporalAccessor parsed = this.formatter.parse(text);
+			if(parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+				return Instant.from(parsed).getEpochSecond();
+			}
+			
+			return LocalDateTime.from(parsed).atZone(this.zone).toEpochSecond();
+		} catch(DateTimeException e) {
+			// eat up
+		}
+		
+		return INVALID;
+	}
+	
+	/**
+	 * A second that has been parsed.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class Second {
+		
+		final String text;
+		
+		final long millis;
+		
+		Second(String text, long millis) {
+			this.text = text;
+			this.millis = millis;
+		}
+		
+		boolean matches(CharSequence other, int length) {
+			if(this.text.length() != length) {
+				return false;
+			}
+			
+			for(int index = 0; index < length; index++) {
+				if(this.text.charAt(index) != other.charAt(index)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+	}
+	
+}
\ No newline at end of file
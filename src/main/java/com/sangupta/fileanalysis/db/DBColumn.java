@@ -21,6 +21,9 @@
 
 package com.sangupta.fileanalysis.db;
 
+import java.sql.Timestamp;
+
+import com.sangupta.fileanalysis.TimestampParser;
 import com.sangupta.jerry.util.AssertUtils;
 
 /**
@@ -30,13 +33,49 @@ import com.sangupta.jerry.util.AssertUtils;
  */
 public class DBColumn {
 	
+	/**
+	 * Length of string columns that hold values of any length
+	 */
+	public static final int UNBOUNDED = -1;
+	
 	public final String name;
 	
 	public final DBColumnType columnType;
 	
+	/**
+	 * Maximum length of values of a string column, zero to use the default
+	 * length of the type, or {@link #UNBOUNDED}
+	 */
+	public final int length;
+	
+	/**
+	 * Parser for the text of a timestamp column, or <code>null</code> to
+	 * use the format of log files
+	 */
+	public final TimestampParser timestampParser;
+	
 	int maxSize;
 	
 	public DBColumn(String name, DBColumnType type) {
+		this(name, type, 0);
+	}
+	
+	public DBColumn(String name, DBColumnType type, int length) {
+		this(name, type, length, null);
+	}
+	
+	/**
+	 * Create a timestamp column whose values are text in the format of the
+	 * given parser.
+	 * 
+	 * @param name
+	 * @param timestampParser
+	 */
+	public DBColumn(String name, TimestampParser timestampParser) {
+		this(name, DBColumnType.TIMESTAMP, 0, timestampParser);
+	}
+	
+	private DBColumn(String name, DBColumnType type, int length, TimestampParser timestampParser) {
 		if(AssertUtils.isEmpty(name)) {
 			throw new IllegalArgumentException("Cannot create DBColumn with empty/null name");
 		}
@@ -47,13 +86,47 @@ public class DBColumn {
 		
 		this.name = DBHelper.sanitizeName(name);
 		this.columnType = type;
+		this.length = length;
+		this.timestampParser = timestampParser;
 	}
 	
 	public DBColumn getCloned(String name) {
-		DBColumn col = new DBColumn(name, this.columnType);
+		DBColumn col = new DBColumn(name, this.columnType, this.length, this.timestampParser);
 		return col;
 	}
 	
+	/**
+	 * The SQL type of this column.
+	 * 
+	 * @return
+	 */
+	public String getDBType() {
+		if(this.columnType == DBColumnType.STRNG && this.length == UNBOUNDED) {
+			return "VARCHAR";
+		}
+		
+		if(this.columnType == DBColumnType.STRNG && this.length > 0) {
+			return "VARCHAR(" + this.length + ")";
+		}
+		
+		return this.columnType.getDBType();
+	}
+	
+	/**
+	 * Read a value of this timestamp column.
+	 * 
+	 * @param item
+	 * @return the timestamp, or <code>null</code> if the value is blank or
+	 *         not in the format of the column
+	 */
+	public Timestamp parseTimestamp(Object item) {
+		if(this.timestampParser != null && item instanceof CharSequence) {
+			return this.timestampParser.parse(item.toString().trim());
+		}
+		
+		return this.columnType.parseTimestamp(item);
+	}
+	
 	@Override
 	public boolean equals(Object obj) {
 		if(obj == null) {
@@ -79,7 +152,7 @@ public class DBColumn {
 	
 	@Override
 	public String toString() {
-		return this.name + "[" + this.columnType + "]";
+		return this.name + "[" + getDBType() + "]";
 	}
 
 }
\ No newline at end of file
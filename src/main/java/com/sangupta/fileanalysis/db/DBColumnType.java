@@ -27,6 +27,7 @@ import java.sql.Timestamp;
 import java.util.Date;
 
 import com.sangupta.fileanalysis.FileAnalysisHelper;
+import com.sangupta.fileanalysis.io.ByteSlice;
 import com.sangupta.jerry.util.AssertUtils;
 
 /**
@@ -62,73 +63,6 @@ public enum DBColumnType {
 		return this.dbType;
 	}
 	
-	public long parseLong(Object obj) {
-		if(obj instanceof String) {
-			String item = (String) obj;
-			if(AssertUtils.isBlank(item)) {
-				return 0;
-			}
-			
-			return Long.parseLong(item);
-		}
-		
-		if(obj instanceof Integer) {
-			return ((Integer) obj).longValue();
-		}
-		
-		if(obj instanceof Long) {
-			return (Long) obj;
-		}
-		
-		return 0;
-	}
-	
-	public int parseInt(Object obj) {
-		if(obj instanceof String) {
-			String item = (String) obj;
-			if(AssertUtils.isBlank(item)) {
-				return 0;
-			}
-			
-			return Integer.parseInt(item);
-		}
-		
-		if(obj instanceof Integer) {
-			return (Integer) obj;
-		}
-		
-		if(obj instanceof Long) {
-			return ((Long) obj).intValue();
-		}
-		
-		return 0;
-	}
-	
-	public double parseDouble(Object obj) {
-		if(obj instanceof String) {
-			String item = (String) obj;
-			if(AssertUtils.isBlank(item)) {
-				return 0d;
-			}
-			
-			return Double.parseDouble(item);
-		}
-		
-		if(obj instanceof Integer) {
-			return ((Integer) obj).doubleValue();
-		}
-		
-		if(obj instanceof Long) {
-			return ((Long) obj).doubleValue();
-		}
-		
-		if(obj instanceof Double) {
-			return (Double) obj;
-		}
-		
-		return 0d;
-	}
-
 	public static DBColumnType decipherColumnType(String str) {
 		if(AssertUtils.isEmpty(str)) {
 			return null;
@@ -162,7 +96,21 @@ public enum DBColumnType {
 			return new Timestamp(((Date) item).getTime());
 		}
 		
-		return FileAnalysisHelper.tryDateParse((String) item);
+		return FileAnalysisHelper.tryDateParse((String) decode(item));
+	}
+
+	/**
+	 * Decode values read as {@link ByteSlice}s into {@link String}s.
+	 * 
+	 * @param obj
+	 * @return
+	 */
+	private static Object decode(Object obj) {
+		if(obj instanceof ByteSlice) {
+			return obj.toString();
+		}
+		
+		return obj;
 	}
 
 	public Reader parseText(Object item) {
@@ -23,8 +23,12 @@ package com.sangupta.fileanalysis.db;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.List;
 
+import com.sangupta.fileanalysis.db.FieldParser.Status;
+
 /**
  * 
  * @author sangupta
@@ -33,20 +37,16 @@ import java.util.List;
 public class DBHelper {
 	
 	public static DBColumnType detectColumnType(String item) {
+		FieldParser parser = new FieldParser();
+		
 		// check for number
-		try {
-			Long.parseLong(item);
+		if(parser.parseLong(item) == Status.VALUE) {
 			return DBColumnType.LONG;
-		} catch(NumberFormatException e) {
-			
 		}
 		
 		// check for double
-		try {
-			Double.parseDouble(item);
+		if(parser.parseDouble(item) == Status.VALUE) {
 			return DBColumnType.DOUBLE;
-		} catch(NumberFormatException e) {
-			
 		}
 		
 		return DBColumnType.STRNG;
@@ -63,51 +63,94 @@ public class DBHelper {
 	}
 
 	/**
-	 * Populate a prepared statement with the values for given columns
+	 * Populate a prepared statement with the values for given columns.
+	 * Numbers and timestamps that are missing, or cannot be parsed, are set
+	 * to <code>NULL</code>, as are <code>null</code> items of any type.
 	 * 
 	 * @param statement
 	 * @param list 
 	 * @param items
+	 * @param parser
+	 *            the parser to read numbers with
+	 * 
+	 * @return the number of values set to <code>NULL</code> as they could
+	 *         not be parsed
+	 * 
 	 * @throws SQLException
 	 */
-	public static void populatePreparedStatement(PreparedStatement statement, List<DBColumn> columns, Object[] items) throws SQLException {
+	public static int populatePreparedStatement(PreparedStatement statement, List<DBColumn> columns, Object[] items, FieldParser parser) throws SQLException {
 		if(items.length > columns.size()) {
-			throw new RuntimeException("Number of columns are less than number of values in rows");
+			// counted as a rejected row by the caller
+			throw new SQLException("Number of columns are less than number of values in rows");
 		}
 		
+		int invalid = 0;
 		for(int index = 1; index <= items.length; index++) {
 			Object item = items[index - 1];
-			DBColumnType type = columns.get(index - 1).columnType;
+			DBColumn column = columns.get(index - 1);
+			DBColumnType type = column.columnType;
+			Status status = Status.VALUE;
 
 			switch(type) {
 				case LONG:
-					statement.setLong(index, type.parseLong(item));
-					continue;
+					status = parser.parseLong(item);
+					if(status == Status.VALUE) {
+						statement.setLong(index, parser.getLong());
+					} else {
+						statement.setNull(index, Types.BIGINT);
+					}
+					break;
 					
 				case INT:
-					statement.setInt(index, type.parseInt(item));
-					continue;
+					status = parser.parseInt(item);
+					if(status == Status.VALUE) {
+						statement.setInt(index, parser.getInt());
+					} else {
+						statement.setNull(index, Types.INTEGER);
+					}
+					break;
 					
 				case DOUBLE:
-					statement.setDouble(index, type.parseDouble(item));
-					continue;
+					status = parser.parseDouble(item);
+					if(status == Status.VALUE) {
+						statement.setDouble(index, parser.getDouble());
+					} else {
+						statement.setNull(index, Types.DOUBLE);
+					}
+					break;
 					
 				case STRNG:
-					statement.setString(index, item.toString());
-					continue;
+					if(item == null) {
+						statement.setNull(index, Types.VARCHAR);
+					} else {
+						statement.setString(index, item.toString());
+					}
+					break;
 					
 				case TIMESTAMP:
-					statement.setTimestamp(index, type.parseTimestamp(item));
-					continue;
+					Timestamp timestamp = column.parseTimestamp(item);
+					statement.setTimestamp(index, timestamp);
+					status = timestamp != null ? Status.VALUE : (FieldParser.isNull(item) ? Status.NULL : Status.INVALID);
+					break;
 					
 				case TEXT:
-					statement.setCharacterStream(index, type.parseText(item));
-					continue;
+					if(item == null) {
+						statement.setNull(index, Types.CLOB);
+					} else {
+						statement.setCharacterStream(index, type.parseText(item));
+					}
+					break;
 					
 				default:
 					throw new RuntimeException("Not yet implemented");
 			}
-		}		
+			
+			if(status == Status.INVALID) {
+				invalid++;
+			}
+		}
+		
+		return invalid;
 	}
 
 }
\ No newline at end of file
@@ -21,21 +21,22 @@
 
 package com.sangupta.fileanalysis.db;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
-
-import org.apache.commons.io.FileUtils;
+import java.util.zip.GZIPOutputStream;
 
 import com.sangupta.jerry.print.ConsoleTable;
-import com.sangupta.jerry.print.ConsoleTableWriter;
 import com.sangupta.jerry.util.ConsoleUtils;
 
 /**
@@ -47,6 +48,21 @@ import com.sangupta.jerry.util.ConsoleUtils;
  */
 public class DBResultViewer {
 	
+	/**
+	 * Size of the buffers used when writing an export
+	 */
+	private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * Number of rows displayed before asking the user for more
+	 */
+	private static final int PAGE_SIZE = 20;
+	
+	/**
+	 * Shown for SQL NULL values
+	 */
+	static final String NULL_VALUE = "NULL";
+	
 	protected Database database;
 	
 	public DBResultViewer(Database db) {
@@ -83,96 +99,136 @@ public class DBResultViewer {
 	 * @throws SQLException
 	 */
 	public void export(Statement statement, String format) throws SQLException {
+		export(statement, ExportFormat.fromName(format), false);
+	}
+	
+	/**
+	 * Export results of a {@link Statement} to a file, optionally gzip
+	 * compressed.
+	 * 
+	 * @param statement
+	 * @param format
+	 * @param gzip
+	 * @throws SQLException
+	 */
+	public void export(Statement statement, ExportFormat format, boolean gzip) throws SQLException {
 		if(statement == null) {
 			// nothing to do
 			return;
 		}
 		
+		if(format == null) {
+			System.out.println("Unknown export format.");
+			return;
+		}
+		
 		if(statement.getResultSet() == null) {
 			System.out.println("No resultset obtained.");
 			return;
 		}
 
 		// results were obtained
-		export(statement.getResultSet(), format);
-		return;
-	}
-
-	private void export(ResultSet resultSet, String format) throws SQLException {
-		if(resultSet == null) {
-			// nothing to do
-			return;
-		}
+		String name = "export-" + format.name().toLowerCase() + "-" + System.currentTimeMillis() + format.getExtension() + (gzip ? ".gz" : "");
+		File file = new File(name);
 		
+		try {
+			long start = System.currentTimeMillis();
+			long rows = export(statement.getResultSet(), format, file, gzip);
+			long millis = Math.max(1, System.currentTimeMillis() - start);
+			
+			System.out.println("File written to disk at: " + file.getAbsoluteFile().getAbsolutePath());
+			System.out.println("Exported " + rows + " rows in " + millis + " millis (" + (rows * 1000 / millis) + " rows/sec).");
+		} catch (IOException e) {
+			System.out.println("Unable to write file to disk.");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Write the rows of the result set to the file as they are read, so
+	 * that the memory used does not grow with the number of rows.
+	 * 
+	 * @param resultSet
+	 * @param format
+	 * @param file
+	 * @param gzip
+	 * @return the number of rows written
+	 * 
+	 * @throws SQLException
+	 * @throws IOException
+	 */
+	public long export(ResultSet resultSet, ExportFormat format, File file, boolean gzip) throws SQLException, IOException {
 		// collect the meta
 		ResultSetMetaData meta = resultSet.getMetaData();
 		
 		final int numColumns = meta.getColumnCount();
 		final int[] colType = new int[numColumns + 1];
 		
-		String[] columns = new String[numColumns];
-		
-		// display the header row
+		final String[] headers = new String[numColumns];
 		for(int index = 1; index <= numColumns; index++) {
 			colType[index] = meta.getColumnType(index);
-			columns[index - 1] = meta.getColumnLabel(index);
+			headers[index - 1] = meta.getColumnLabel(index);
 		}
-		final String[] headers = Arrays.copyOf(columns, columns.length);
 		
-		// start iterating over the result set
-		ConsoleTable table = new ConsoleTable();
-		table.addHeaderRow(headers);
-		while (resultSet.next()) {
-			// clean up columns
-			Arrays.fill(columns, "");
+		String[] values = new String[numColumns];
+		long rows = 0;
+		
+		OutputStream output = new FileOutputStream(file);
+		try {
+			if(gzip) {
+				output = new GZIPOutputStream(output, EXPORT_BUFFER_SIZE);
+			}
 			
-			for(int index = 1; index <= numColumns; index++) {
-				switch(colType[index]) {
-					case Types.DECIMAL:
-					case Types.DOUBLE:
-					case Types.REAL:
-						columns[index - 1] = String.valueOf(resultSet.getDouble(index));
-						continue;
-						
-					case Types.INTEGER:
-					case Types.SMALLINT:
-						columns[index - 1] = String.valueOf(resultSet.getInt(index));
-						continue;
-						
-					case Types.VARCHAR:
-						columns[index - 1] = resultSet.getString(index);
-						continue;
-						
-					case Types.TIMESTAMP:
-						columns[index - 1] = String.valueOf(resultSet.getTimestamp(index));
-						continue;
-
-					case Types.BIGINT:
-						columns[index - 1] = resultSet.getBigDecimal(index).toString();
-						continue;
-				}
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"), EXPORT_BUFFER_SIZE);
+			format.writeStart(writer, headers);
+			while(resultSet.next()) {
+				readValues(resultSet, colType, values);
+				format.writeRow(writer, headers, values, ++rows);
 			}
-			table.addRow((Object[]) columns);
-		}
-		
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		PrintStream stream = new PrintStream(baos);
-		
-		if("csv".equalsIgnoreCase(format)) {
-			ConsoleTableWriter.writeCsv(table, stream);
-		} else if("json".equalsIgnoreCase(format)) {
-			ConsoleTableWriter.writeJson(table, stream);
-		} else if("xml".equalsIgnoreCase(format)) {
-			ConsoleTableWriter.writeXml(table, stream, "data", "row");
+			format.writeEnd(writer);
+			
+			writer.flush();
+		} finally {
+			output.close();
 		}
 		
-		try {
-			File file = new File("export-" + format + "-" + System.currentTimeMillis() + "." + format);
-			FileUtils.writeByteArrayToFile(file, baos.toByteArray());
-			System.out.println("File written to disk at: " + file.getAbsoluteFile().getAbsolutePath());
-		} catch (IOException e) {
-			System.out.println("Unable to write file to disk.");
-			e.printStackTrace();
+		return rows;
+	}
+	
+	/**
+	 * Read the values of the current row as strings, <code>null</code> for
+	 * SQL NULL.
+	 * 
+	 * @param resultSet
+	 * @param colType
+	 * @param values
+	 * @throws SQLException
+	 */
+	private static void readValues(ResultSet resultSet, int[] colType, String[] values) throws SQLException {
+		for(int index = 1; index <= values.length; index++) {
+			String value;
+			switch(colType[index]) {
+				case Types.DECIMAL:
+				case Types.DOUBLE:
+				case Types.REAL:
+					value = String.valueOf(resultSet.getDouble(index));
+					break;
+					
+				case Types.INTEGER:
+				case Types.SMALLINT:
+					value = String.valueOf(resultSet.getInt(index));
+					break;
+					
+				case Types.TIMESTAMP:
+					value = String.valueOf(resultSet.getTimestamp(index));
+					break;
+					
+				default:
+					value = resultSet.getString(index);
+					break;
+			}
+			
+			values[index - 1] = resultSet.wasNull() ? null : value;
 		}
 	}
 
@@ -216,36 +272,11 @@ public class DBResultViewer {
 			rowsDisplayed++;
 			numRecords++;
 			
-			for(int index = 1; index <= numColumns; index++) {
-				switch(colType[index]) {
-					case Types.DECIMAL:
-					case Types.DOUBLE:
-					case Types.REAL:
-						columns[index - 1] = String.valueOf(resultSet.getDouble(index));
-						continue;
-						
-					case Types.INTEGER:
-					case Types.SMALLINT:
-						columns[index - 1] = String.valueOf(resultSet.getInt(index));
-						continue;
-						
-					case Types.VARCHAR:
-						columns[index - 1] = resultSet.getString(index);
-						continue;
-						
-					case Types.TIMESTAMP:
-						columns[index - 1] = String.valueOf(resultSet.getTimestamp(index));
-						continue;
-
-					case Types.BIGINT:
-						columns[index - 1] = resultSet.getBigDecimal(index).toString();
-						continue;
-				}
-			}
+			readColumns(resultSet, colType, columns, 1);
 			table.addRow((Object[]) columns);
 			
 			// check for rows displayed
-			if(rowsDisplayed == 20) {
+			if(rowsDisplayed == PAGE_SIZE) {
 				// display rows
 				table.write(System.out);
 				
@@ -272,5 +303,143 @@ public class DBResultViewer {
 		
 		System.out.println("\nTotal number of rows displayed: " + numRecords);
 	}
+	
+	/**
+	 * View results of a {@link PagedQuery}, running the query for one page
+	 * at a time as the user asks for more. The database is not held in
+	 * between pages.
+	 * 
+	 * @param query
+	 */
+	public void viewResult(PagedQuery query) {
+		Long after = null;
+		int numRecords = 0;
+		while(true) {
+			Page page = new Page();
+			if(!this.database.execute(query.getPageQuery(after, PAGE_SIZE), page) || page.table == null) {
+				// error has been displayed
+				return;
+			}
+			
+			numRecords += page.rows;
+			if(page.rows > 0 || after == null) {
+				page.table.write(System.out);
+			}
+			
+			if(page.rows < PAGE_SIZE) {
+				break;
+			}
+			
+			// ask the user if more data needs to be displayed
+			String cont = ConsoleUtils.readLine("\nType \"it\" for more: ", true);
+			if(!"it".equalsIgnoreCase(cont)) {
+				break;
+			}
+			
+			System.out.println();
+			after = page.lastKey;
+		}
+		
+		System.out.println("\nTotal number of rows displayed: " + numRecords);
+	}
+	
+	/**
+	 * Read the values of the current row for display, starting at the
+	 * given column of the result set. SQL NULL is shown as
+	 * {@link #NULL_VALUE}, and columns of other types are left as is.
+	 * 
+	 * @param resultSet
+	 * @param colType
+	 * @param columns
+	 * @param first
+	 *            the column of the result set read into the first value
+	 * 
+	 * @throws SQLException
+	 */
+	private static void readColumns(ResultSet resultSet, int[] colType, String[] columns, int first) throws SQLException {
+		for(int index = first; index < first + columns.length; index++) {
+			String value;
+			switch(colType[index]) {
+				case Types.DECIMAL:
+				case Types.DOUBLE:
+				case Types.REAL:
+					value = String.valueOf(resultSet.getDouble(index));
+					break;
+					
+				case Types.INTEGER:
+				case Types.SMALLINT:
+					value = String.valueOf(resultSet.getInt(index));
+					break;
+					
+				case Types.VARCHAR:
+					value = resultSet.getString(index);
+					break;
+					
+				case Types.TIMESTAMP:
+					value = String.valueOf(resultSet.getTimestamp(index));
+					break;
+
+				case Types.BIGINT:
+					value = String.valueOf(resultSet.getLong(index));
+					break;
+					
+				default:
+					continue;
+			}
+			
+			columns[index - first] = resultSet.wasNull() ? NULL_VALUE : value;
+		}
+	}
+	
+	/**
+	 * Reads one page of a {@link PagedQuery} into a table, along with the
+	 * key of its last row.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class Page implements SQLStatementConsumer {
+		
+		ConsoleTable table;
+		
+		int rows;
+		
+		Long lastKey;
+		
+		@Override
+		public void consume(Statement statement) {
+			try {
+				ResultSet resultSet = statement.getResultSet();
+				ResultSetMetaData meta = resultSet.getMetaData();
+				
+				// the first column is the key
+				final int numColumns = meta.getColumnCount();
+				final int[] colType = new int[numColumns + 1];
+				
+				String[] columns = new String[numColumns - 1];
+				for(int index = 2; index <= numColumns; index++) {
+					colType[index] = meta.getColumnType(index);
+					columns[index - 2] = meta.getColumnLabel(index);
+				}
+				
+				ConsoleTable table = new ConsoleTable();
+				table.addHeaderRow(Arrays.copyOf(columns, columns.length));
+				while(resultSet.next()) {
+					this.lastKey = resultSet.getLong(1);
+					this.rows++;
+					
+					Arrays.fill(columns, "");
+					readColumns(resultSet, colType, columns, 2);
+					table.addRow((Object[]) columns);
+				}
+				
+				this.table = table;
+			} catch (SQLException e) {
+				System.out.println("Unable to display results of the query");
+				e.printStackTrace();
+			}
+		}
+		
+	}
 
 }
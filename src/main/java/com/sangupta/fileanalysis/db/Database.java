@@ -21,6 +21,9 @@
 
 package com.sangupta.fileanalysis.db;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -28,15 +31,41 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.sangupta.fileanalysis.ingest.IngestStats;
+import com.sangupta.fileanalysis.jfr.CommitEvent;
+import com.sangupta.fileanalysis.jfr.InsertBatchEvent;
+import com.sangupta.fileanalysis.jfr.JfrEvents;
+import com.sangupta.fileanalysis.jfr.QueryEvent;
 import com.sangupta.jerry.util.AssertUtils;
 
 /**
  * Simple utility class to work with H2 database using plain
- * simple JDBC.
+ * simple JDBC. All writes, including loading rows, go through a single
+ * writer connection, and thus methods that use it are synchronized. Queries
+ * that only read run on a small pool of read connections instead, so that
+ * they neither wait for nor hold up the writer, and several may run at once,
+ * either on the calling thread or on the query executor via
+ * {@link #submit(String, SQLStatementConsumer)}. Statements submitted to run
+ * in the background, such as a <code>CREATE TABLE ... AS SELECT</code> job,
+ * run on a connection of their own outside the writer.
+ * 
+ * The database is opened in H2's multi-threaded mode, so that statements of
+ * different connections run at the same time. Tables are still locked: a
+ * write waits for the statements reading its table to complete.
  * 
  * @author sangupta
  *
@@ -44,13 +73,106 @@ import com.sangupta.jerry.util.AssertUtils;
 public class Database {
 	
 	/**
-	 * The database connection
+	 * Default number of rows that are sent to the database in one batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	
+	/**
+	 * Most bytes of query results held in the cache
+	 */
+	private static final long QUERY_CACHE_BYTES = Math.min(64l * 1024l * 1024l, Runtime.getRuntime().maxMemory() / 8);
+	
+	/**
+	 * Most connections used to run queries that only read
+	 */
+	private static final int READ_CONNECTIONS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	
+	/**
+	 * Milliseconds a statement waits for a lock held by another connection,
+	 * such as that of the writer while committing a batch
+	 */
+	private static final int LOCK_TIMEOUT = 10000;
+	
+	/**
+	 * Milliseconds the writer waits for a lock, long enough that rows being
+	 * loaded wait for a long query over their table instead of failing
+	 */
+	private static final int WRITER_LOCK_TIMEOUT = Integer.MAX_VALUE;
+	
+	/**
+	 * The connection all writes go through
 	 */
 	private final Connection connection;
 	
+	/**
+	 * Read connections not in use
+	 */
+	private final BlockingQueue<Connection> readConnections = new LinkedBlockingQueue<Connection>();
+	
+	/**
+	 * All read connections opened
+	 */
+	private final List<Connection> openReadConnections = new ArrayList<Connection>();
+	
+	/**
+	 * Runs the queries submitted
+	 */
+	private final ExecutorService queryExecutor;
+	
+	/**
+	 * Statements of queries not run in the background that are executing
+	 */
+	private final Set<Statement> executing = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
+	
+	/**
+	 * Seconds after which a query is cancelled, zero for no limit
+	 */
+	private volatile int queryTimeout;
+	
+	/**
+	 * Name of the database, which is also the name of its files on disk
+	 */
+	private final String databaseName;
+	
+	/**
+	 * Whether the database is held in memory only
+	 */
+	private final boolean inMemory;
+	
 	final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
 	
-	final Map<String, Integer> maxColSizes = new HashMap<String, Integer>();
+	/**
+	 * Number of rows pending in the batch of each cached statement
+	 */
+	final Map<String, Integer> pendingRows = new HashMap<String, Integer>();
+	
+	/**
+	 * Number of rows to accumulate before flushing them to the database
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	/**
+	 * Parser for the numbers bound to insert statements
+	 */
+	private final FieldParser fieldParser = new FieldParser();
+	
+	/**
+	 * Results of the queries run recently
+	 */
+	private final QueryCache queryCache = new QueryCache(QUERY_CACHE_BYTES);
+	
+	/**
+	 * Version of the data, changed on every write so that cached results
+	 * of queries are not used once the data has changed
+	 */
+	private final AtomicLong version = new AtomicLong();
+	
+	/**
+	 * Time spent binding, writing and committing the rows inserted
+	 */
+	private final IngestStats ingestStats = new IngestStats();
+	
+	final Map<String, Integer> maxColSizes = new ConcurrentHashMap<String, Integer>();
 	
 	final DatabaseTable colSizes;
 	
@@ -60,9 +182,30 @@ public class Database {
 	 * Initialize the database
 	 */
 	public Database(String databaseName) {
+		this(databaseName, false);
+	}
+	
+	/**
+	 * Initialize the database, either on disk or in memory. An in-memory
+	 * database is lost when closed, unless a {@link #snapshot()} is taken.
+	 * 
+	 * @param databaseName
+	 * @param inMemory
+	 */
+	public Database(String databaseName, boolean inMemory) {
+		this.databaseName = databaseName;
+		this.inMemory = inMemory;
+		
 		try {
 			Class.forName("org.h2.Driver");
-			connection = DriverManager.getConnection("jdbc:h2:" + databaseName);
+			connection = DriverManager.getConnection(getUrl());
+			
+			Statement statement = connection.createStatement();
+			try {
+				statement.execute("SET LOCK_TIMEOUT " + WRITER_LOCK_TIMEOUT);
+			} finally {
+				statement.close();
+			}
 		} catch (ClassNotFoundException e) {
 			// no DB driver found
 			throw new RuntimeException("No H2 driver found - use the JAR with embedded dependencies");
@@ -76,6 +219,28 @@ public class Database {
 		colSizes.addColumn(new DBColumn("COL_SIZE", DBColumnType.INT));
 		
 		execute(colSizes.getCreateQuery());
+		
+		this.queryExecutor = Executors.newFixedThreadPool(READ_CONNECTIONS, new ThreadFactory() {
+			
+			private final AtomicInteger count = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "fa-query-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		});
+	}
+	
+	/**
+	 * Get the JDBC URL of the database.
+	 * 
+	 * @return
+	 */
+	private String getUrl() {
+		return (this.inMemory ? "jdbc:h2:mem:" : "jdbc:h2:") + this.databaseName + ";MULTI_THREADED=1;LOCK_TIMEOUT=" + LOCK_TIMEOUT;
 	}
 	
 	/**
@@ -89,6 +254,38 @@ public class Database {
 		tables.add(table);
 	}
 	
+	/**
+	 * Create the indexes declared on all tables. Meant to be called after
+	 * the data has been loaded.
+	 * 
+	 * @return the number of indexes created
+	 */
+	public synchronized int createIndexes() {
+		int created = 0;
+		for(DatabaseTable table : this.tables) {
+			for(String query : table.getCreateIndexQueries()) {
+				Statement statement = null;
+				try {
+					statement = this.connection.createStatement();
+					statement.executeUpdate(query);
+					created++;
+				} catch (SQLException e) {
+					System.out.println("Unable to create index: " + e.getMessage());
+				} finally {
+					if(statement != null) {
+						try {
+							statement.close();
+						} catch (SQLException e) {
+							e.printStackTrace();
+						}
+					}
+				}
+			}
+		}
+		
+		return created;
+	}
+	
 	/**
 	 * 
 	 * @param query
@@ -99,16 +296,249 @@ public class Database {
 	}
 	
 	/**
-	 * Execute a simple string query.
+	 * Execute a simple string query. Queries that only read run on a read
+	 * connection, and may run at the same time as others, while all other
+	 * statements run on the writer connection one after the other.
 	 * 
 	 * @param query
 	 * @return
 	 */
 	public boolean execute(String query, SQLStatementConsumer consumer) {
+		return execute(query, consumer, null, true);
+	}
+	
+	/**
+	 * Execute a simple string query, reading its result from, and keeping it
+	 * in, the query cache only if asked to. Results read once, such as those
+	 * exported to a file, are better not cached, as caching reads up to a
+	 * quarter of the cache size of the result into memory.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @param cache
+	 *            whether the result may be cached
+	 * 
+	 * @return
+	 */
+	public boolean execute(String query, SQLStatementConsumer consumer, boolean cache) {
+		return execute(query, consumer, null, cache);
+	}
+	
+	/**
+	 * Submit the query to run on the query executor.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @return the task, which may be cancelled to stop the query
+	 */
+	public QueryTask submit(String query, SQLStatementConsumer consumer) {
+		return submit(query, consumer, false);
+	}
+	
+	/**
+	 * Submit the query to run on the query executor.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @param background
+	 *            whether the query runs in the background, and is thus not
+	 *            cancelled by {@link #cancelQueries()}
+	 * 
+	 * @return the task, which may be cancelled to stop the query
+	 */
+	public QueryTask submit(String query, SQLStatementConsumer consumer, boolean background) {
+		QueryTask task = new QueryTask(this, query, consumer, background);
+		this.queryExecutor.execute(task);
+		return task;
+	}
+	
+	/**
+	 * Cancel the queries that are executing, other than those run in the
+	 * background. Queries whose results are already being read are left to
+	 * complete.
+	 * 
+	 * @return the number of queries cancelled
+	 */
+	public int cancelQueries() {
+		int cancelled = 0;
+		for(Statement statement : this.executing) {
+			try {
+				statement.cancel();
+				cancelled++;
+			} catch (SQLException e) {
+				// the statement may have completed
+			}
+		}
+		
+		return cancelled;
+	}
+	
+	/**
+	 * Execute the query for the given task, if any.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @param task
+	 * @return
+	 */
+	boolean execute(String query, SQLStatementConsumer consumer, QueryTask task) {
+		return execute(query, consumer, task, true);
+	}
+	
+	private boolean execute(String query, SQLStatementConsumer consumer, QueryTask task, boolean cache) {
+		String normalized = QueryCache.normalize(query);
+		if(!QueryCache.isReadOnly(normalized)) {
+			if(task != null && task.isBackground()) {
+				return executeBackground(query, consumer, task);
+			}
+			
+			return executeWrite(query, consumer, task);
+		}
+		
+		String cacheKey = cache && consumer != null && QueryCache.isCacheable(normalized) ? normalized : null;
+		if(cacheKey != null) {
+			Statement cached = this.queryCache.get(cacheKey, this.version.get());
+			if(cached != null) {
+				if(task != null && !task.startReading()) {
+					return false;
+				}
+				
+				try {
+					consumer.consume(cached);
+				} finally {
+					closeQuietly(cached);
+				}
+				
+				return true;
+			}
+		}
+		
+		Connection readConnection;
+		try {
+			readConnection = borrowReadConnection();
+		} catch (SQLException e) {
+			System.out.println("SQL Error: " + e.getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		
+		try {
+			return execute(readConnection, query, cacheKey, consumer, task);
+		} finally {
+			this.readConnections.add(readConnection);
+		}
+	}
+	
+	/**
+	 * Execute a statement that may change the data on the writer connection.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @param task
+	 * @return
+	 */
+	private synchronized boolean executeWrite(String query, SQLStatementConsumer consumer, QueryTask task) {
+		try {
+			return execute(this.connection, query, null, consumer, task);
+		} finally {
+			// may have changed the data
+			this.version.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Execute a statement run in the background, such as one that creates a
+	 * table from a long query, on a connection of its own. The writer is
+	 * thus neither held up by the statement, nor does it hold up the
+	 * statement while loading rows.
+	 * 
+	 * @param query
+	 * @param consumer
+	 * @param task
+	 * @return
+	 */
+	private boolean executeBackground(String query, SQLStatementConsumer consumer, QueryTask task) {
+		Connection jobConnection;
+		try {
+			jobConnection = DriverManager.getConnection(getUrl());
+		} catch (SQLException e) {
+			System.out.println("SQL Error: " + e.getMessage());
+			return false;
+		}
+		
+		try {
+			return execute(jobConnection, query, null, consumer, task);
+		} finally {
+			// may have changed the data
+			this.version.incrementAndGet();
+			
+			try {
+				jobConnection.close();
+			} catch (SQLException e) {
+				// eat up
+			}
+		}
+	}
+	
+	/**
+	 * Execute the query on the given connection, caching its result under
+	 * the given key, if any.
+	 * 
+	 * @param connection
+	 * @param query
+	 * @param cacheKey
+	 * @param consumer
+	 * @param task
+	 * @return
+	 */
+	private boolean execute(Connection connection, String query, String cacheKey, SQLStatementConsumer consumer, QueryTask task) {
+		// a result read after a write has started may be stale
+		long version = this.version.get();
+		
 		Statement statement = null;
 		try {
-			statement = connection.createStatement();
-			boolean success = statement.execute(query);
+			if(cacheKey == null) {
+				statement = connection.createStatement();
+			} else {
+				// scrollable so that the result can be read again after caching
+				statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+			}
+			
+			if(task != null) {
+				task.setStatement(statement);
+			}
+			
+			statement.setQueryTimeout(this.queryTimeout);
+			
+			boolean foreground = task == null || !task.isBackground();
+			if(foreground) {
+				this.executing.add(statement);
+			}
+			
+			QueryEvent event = JfrEvents.AVAILABLE ? new QueryEvent(query, !foreground) : null;
+			
+			boolean success;
+			try {
+				success = statement.execute(query);
+			} finally {
+				if(foreground) {
+					this.executing.remove(statement);
+				}
+			}
+			
+			if(event != null) {
+				recordQuery(event, statement, cacheKey != null);
+			}
+			
+			if(task != null && !task.startReading()) {
+				return false;
+			}
+			
+			if(cacheKey != null && statement.getResultSet() != null) {
+				this.queryCache.put(cacheKey, version, statement.getResultSet());
+			}
 			
 			if(consumer != null) {
 				consumer.consume(statement);
@@ -116,25 +546,141 @@ public class Database {
 			
 			return success;
 		} catch (SQLException e) {
-			System.out.println("SQL Error: " + e.getMessage());
+			if(task == null || !task.isCancelled()) {
+				System.out.println("SQL Error: " + e.getMessage());
+			}
+			
 			return false;
 		} finally {
-			if(statement != null) {
+			if(task != null) {
+				task.setStatement(null);
+			}
+			
+			closeQuietly(statement);
+		}
+	}
+	
+	/**
+	 * Take a read connection from the pool, opening one if all are in use
+	 * and the pool is not full yet, or else waiting for one to be returned.
+	 * 
+	 * @return
+	 * @throws SQLException
+	 * @throws InterruptedException
+	 */
+	private Connection borrowReadConnection() throws SQLException, InterruptedException {
+		Connection readConnection = this.readConnections.poll();
+		if(readConnection != null) {
+			return readConnection;
+		}
+		
+		synchronized(this.openReadConnections) {
+			if(this.openReadConnections.size() < READ_CONNECTIONS) {
+				readConnection = DriverManager.getConnection(getUrl());
+				this.openReadConnections.add(readConnection);
+				return readConnection;
+			}
+		}
+		
+		return this.readConnections.take();
+	}
+	
+	private static void closeQuietly(Statement statement) {
+		if(statement != null) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Check if a table of the given name exists.
+	 * 
+	 * @param tableName
+	 * @return
+	 */
+	public boolean hasTable(String tableName) {
+		Connection readConnection = null;
+		ResultSet resultSet = null;
+		try {
+			readConnection = borrowReadConnection();
+			resultSet = readConnection.getMetaData().getTables(null, null, tableName.toUpperCase(), null);
+			return resultSet.next();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			if(resultSet != null) {
 				try {
-					statement.close();
+					resultSet.close();
 				} catch (SQLException e) {
 					e.printStackTrace();
 				}
 			}
+			
+			if(readConnection != null) {
+				this.readConnections.add(readConnection);
+			}
 		}
 	}
-
+	
+	/**
+	 * Check if the primary key of the given table is made of the given
+	 * column alone. Tables created from a query, such as by
+	 * <code>CREATE TABLE ... AS SELECT</code>, have no primary key even
+	 * when they copy the key column of another table.
+	 * 
+	 * @param tableName
+	 * @param columnName
+	 * @return
+	 */
+	public boolean isPrimaryKey(String tableName, String columnName) {
+		Connection readConnection = null;
+		ResultSet resultSet = null;
+		try {
+			readConnection = borrowReadConnection();
+			resultSet = readConnection.getMetaData().getPrimaryKeys(null, null, tableName.toUpperCase());
+			
+			int columns = 0;
+			boolean found = false;
+			while(resultSet.next()) {
+				columns++;
+				found = found || columnName.equalsIgnoreCase(resultSet.getString("COLUMN_NAME"));
+			}
+			
+			return found && columns == 1;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			if(resultSet != null) {
+				try {
+					resultSet.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			
+			if(readConnection != null) {
+				this.readConnections.add(readConnection);
+			}
+		}
+	}
+	
 	/**
 	 * Execute the given query.
 	 * 
 	 * @param query
 	 */
-	public void executeQuery(String query) {
+	public synchronized void executeQuery(String query) {
 		Statement statement = null;
 		ResultSet resultSet = null;
 		try {
@@ -161,11 +707,82 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Copy all tables of this in-memory database to the database of the
+	 * same name on disk, replacing its contents. The copy can then be
+	 * reopened without loading the file again.
+	 * 
+	 * @return
+	 */
+	public synchronized boolean snapshot() {
+		if(!this.inMemory) {
+			System.out.println("Database is already on disk");
+			return false;
+		}
+		
+		File script = null;
+		Connection disk = null;
+		try {
+			script = File.createTempFile("fa-snapshot", ".sql");
+			String path = script.getAbsolutePath().replace("'", "''");
+			
+			Statement statement = this.connection.createStatement();
+			try {
+				statement.execute("SCRIPT TO '" + path + "' COMPRESSION DEFLATE");
+			} finally {
+				statement.close();
+			}
+			
+			disk = DriverManager.getConnection("jdbc:h2:" + this.databaseName);
+			statement = disk.createStatement();
+			try {
+				statement.execute("DROP ALL OBJECTS");
+				statement.execute("RUNSCRIPT FROM '" + path + "' COMPRESSION DEFLATE");
+			} finally {
+				statement.close();
+			}
+			
+			return true;
+		} catch (IOException e) {
+			System.out.println("Unable to write snapshot: " + e.getMessage());
+		} catch (SQLException e) {
+			System.out.println("Unable to write snapshot: " + e.getMessage());
+		} finally {
+			if(disk != null) {
+				try {
+					disk.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			
+			if(script != null) {
+				script.delete();
+			}
+		}
+		
+		return false;
+	}
+
 	/**
 	 * Close the database.
 	 * 
 	 */
-	public void closeDatabase() {
+	public synchronized void closeDatabase() {
+		this.queryExecutor.shutdownNow();
+		
+		synchronized(this.openReadConnections) {
+			for(Connection readConnection : this.openReadConnections) {
+				try {
+					readConnection.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			
+			this.openReadConnections.clear();
+		}
+		
 		if(this.connection != null) {
 			try {
 				connection.close();
@@ -175,31 +792,188 @@ public class Database {
 		}
 	}
 
-	public boolean insertRecord(DatabaseTable table, Object[] row) {
+	/**
+	 * Add a record to the insert batch of the given table. The batch is
+	 * sent to the database and committed once it reaches the configured
+	 * batch size. Callers must invoke {@link #flushBatches()} once done
+	 * inserting to write the remaining rows.
+	 * 
+	 * @param table
+	 * @param row
+	 * @return
+	 */
+	public synchronized boolean insertRecord(DatabaseTable table, Object[] row) {
 		PreparedStatement ps = null;
+		long start = System.nanoTime();
 		try {
+			if(this.connection.getAutoCommit()) {
+				// we commit ourselves once per batch
+				this.connection.setAutoCommit(false);
+			}
+			
 			ps = prepareStatement(table, row);
+			ps.addBatch();
+			this.ingestStats.addBind(System.nanoTime() - start);
 
 			table.updateMaxColSize(row);
+		} catch (SQLException e) {
+			this.ingestStats.addBind(System.nanoTime() - start);
+			this.ingestStats.addRejected(1, e.getMessage());
+			return false;
+		}
+		
+		Integer pending = this.pendingRows.get(table.getName());
+		int count = (pending == null ? 0 : pending) + 1;
+		if(count < this.batchSize) {
+			this.pendingRows.put(table.getName(), count);
+			return true;
+		}
+		
+		this.pendingRows.put(table.getName(), 0);
+		return executeBatch(ps, table.getName(), count);
+	}
+	
+	/**
+	 * Flush all pending batches to the database, commit them and move the
+	 * connection back to auto-commit mode.
+	 * 
+	 */
+	public synchronized boolean flushBatches() {
+		boolean success = true;
+		for(Map.Entry<String, Integer> entry : this.pendingRows.entrySet()) {
+			if(entry.getValue() == 0) {
+				continue;
+			}
+			
+			success = executeBatch(this.statements.get(entry.getKey()), entry.getKey(), entry.getValue()) && success;
+			entry.setValue(0);
+		}
+		
+		try {
+			if(!this.connection.getAutoCommit()) {
+				this.connection.setAutoCommit(true);
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 			return false;
 		}
 		
-		return execute(ps);
+		return success;
+	}
+	
+	/**
+	 * Record the event of a query that has completed. The number of rows of
+	 * a result is only counted while the event is being recorded, and only
+	 * for a scrollable result that can be rewound afterwards.
+	 * 
+	 * @param event
+	 * @param statement
+	 * @param scrollable
+	 * @throws SQLException
+	 */
+	private static void recordQuery(QueryEvent event, Statement statement, boolean scrollable) throws SQLException {
+		event.end();
+		if(!event.shouldCommit()) {
+			return;
+		}
+		
+		ResultSet resultSet = statement.getResultSet();
+		if(resultSet == null) {
+			event.setRows(statement.getUpdateCount());
+		} else if(scrollable) {
+			resultSet.last();
+			event.setRows(resultSet.getRow());
+			resultSet.beforeFirst();
+		}
+		
+		event.commit();
+	}
+	
+	/**
+	 * Execute the batch accumulated in the statement. A row that fails, such
+	 * as for a value too long for its column, is skipped and counted in the
+	 * {@link IngestStats}, while the other rows of the batch are kept: H2
+	 * goes on with the rest of the batch after a row fails, and reports the
+	 * failed rows in the update counts. Rows the driver did not get to are
+	 * counted as rejected as well.
+	 * 
+	 * @param ps
+	 * @param rows
+	 *            the number of rows in the batch
+	 * 
+	 * @return the number of rows rejected
+	 * @throws SQLException
+	 *             if the batch could not be run at all
+	 */
+	private int writeBatch(PreparedStatement ps, int rows) throws SQLException {
+		try {
+			ps.executeBatch();
+			return 0;
+		} catch (BatchUpdateException e) {
+			int[] counts = e.getUpdateCounts();
+			int rejected = counts == null ? rows : Math.max(0, rows - counts.length);
+			if(counts != null) {
+				for(int count : counts) {
+					if(count == Statement.EXECUTE_FAILED) {
+						rejected++;
+					}
+				}
+			}
+			
+			this.ingestStats.addRejected(rejected, e.getMessage());
+			return rejected;
+		}
 	}
 	
 	/**
+	 * Execute the batch accumulated in the statement and commit it. The
+	 * write and the commit are each recorded as an event for Java Flight
+	 * Recorder, when available.
 	 * 
 	 * @param ps
+	 * @param tableName
+	 * @param rows
+	 *            the number of rows in the batch
+	 * 
 	 * @return
 	 */
-	private boolean execute(PreparedStatement ps) {
+	private boolean executeBatch(PreparedStatement ps, String tableName, int rows) {
 		try {
-			ps.execute();
-			return true;
+			long start = System.nanoTime();
+			int rejected;
+			if(JfrEvents.AVAILABLE) {
+				InsertBatchEvent event = new InsertBatchEvent(tableName, rows);
+				rejected = writeBatch(ps, rows);
+				event.commit();
+			} else {
+				rejected = writeBatch(ps, rows);
+			}
+			
+			long written = System.nanoTime();
+			this.ingestStats.addWrite(written - start);
+			
+			if(JfrEvents.AVAILABLE) {
+				CommitEvent event = new CommitEvent(tableName, rows);
+				this.connection.commit();
+				event.commit();
+			} else {
+				this.connection.commit();
+			}
+			
+			this.ingestStats.addCommit(System.nanoTime() - written);
+			return rejected == 0;
 		} catch (SQLException e) {
-			e.printStackTrace();
+			// nothing of the batch is kept
+			this.ingestStats.addRejected(rows, e.getMessage());
+			
+			try {
+				this.connection.rollback();
+			} catch (SQLException ex) {
+				ex.printStackTrace();
+			}
+		} finally {
+			// changed once committed
+			this.version.incrementAndGet();
 		}
 		
 		return false;
@@ -220,7 +994,7 @@ public class Database {
 			statements.put(table.getName(), ps);
 		}
 		
-		DBHelper.populatePreparedStatement(ps, table.getColumns(), row);
+		this.ingestStats.addInvalid(DBHelper.populatePreparedStatement(ps, table.getColumns(), row, this.fieldParser));
 		return ps;
 	}
 
@@ -231,11 +1005,20 @@ public class Database {
 	public void dropTable(DatabaseTable table) {
 		execute(table.getDropTableQuery());
 	}
+	
+	/**
+	 * Remove all rows from the table.
+	 * 
+	 * @param table
+	 */
+	public void truncateTable(DatabaseTable table) {
+		execute(table.getTruncateTableQuery());
+	}
 
 	/**
 	 * 
 	 */
-	public void updateColSizes() {
+	public synchronized void updateColSizes() {
 		if(this.tables.size() == 0) {
 			return;
 		}
@@ -249,6 +1032,8 @@ public class Database {
 				maxColSizes.put(name, size);
 			}
 		}
+		
+		flushBatches();
 	}
 
 	/**
@@ -283,4 +1068,42 @@ public class Database {
 	private static String getColSizeKey(String tablename, String columnName) {
 		return "FA_" + tablename + "_" + columnName;
 	}
+	
+	// Usual accessors follow
+	
+	public String getDatabaseName() {
+		return databaseName;
+	}
+	
+	public boolean isInMemory() {
+		return inMemory;
+	}
+	
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+	
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+	
+	public QueryCache getQueryCache() {
+		return queryCache;
+	}
+	
+	public IngestStats getIngestStats() {
+		return ingestStats;
+	}
+	
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	public void setBatchSize(int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least one");
+		}
+		
+		this.batchSize = batchSize;
+	}
 }
\ No newline at end of file
@@ -24,6 +24,8 @@ package com.sangupta.fileanalysis.db;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.sangupta.fileanalysis.io.ByteSlice;
+
 /**
  * 
  * @author sangupta
@@ -35,6 +37,11 @@ public class DatabaseTable {
 	
 	private final List<DBColumn> columns = new ArrayList<DBColumn>();
 	
+	/**
+	 * Names of the columns to be indexed once the data has been loaded
+	 */
+	private final List<String> indexes = new ArrayList<String>();
+	
 	public DatabaseTable(String name) {
 		this.name = DBHelper.sanitizeName(name);
 	}
@@ -54,6 +61,44 @@ public class DatabaseTable {
 		this.columns.add(new DBColumn(name, type));
 	}
 	
+	/**
+	 * Check if the table has a column with the given name.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public boolean hasColumn(String name) {
+		String sanitized = DBHelper.sanitizeName(name);
+		for(DBColumn col : this.columns) {
+			if(col.name.equals(sanitized)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Declare an index on the given column. Indexes are not created along
+	 * with the table, but once all data has been loaded, so that they are
+	 * built in one go rather than updated on every insert.
+	 * 
+	 * @param column
+	 * @return <code>false</code> if the table has no such column
+	 */
+	public boolean addIndex(String column) {
+		if(!hasColumn(column)) {
+			return false;
+		}
+		
+		String sanitized = DBHelper.sanitizeName(column);
+		if(!this.indexes.contains(sanitized)) {
+			this.indexes.add(sanitized);
+		}
+		
+		return true;
+	}
+	
 	/**
 	 * Drop this table SQL query.
 	 * 
@@ -63,6 +108,15 @@ public class DatabaseTable {
 		return "DROP TABLE IF EXISTS " + this.name;
 	}
 	
+	/**
+	 * Remove all rows from this table SQL query.
+	 * 
+	 * @return
+	 */
+	public String getTruncateTableQuery() {
+		return "TRUNCATE TABLE " + this.name;
+	}
+	
 	/**
 	 * Create query to create this table.
 	 * 
@@ -73,12 +127,13 @@ public class DatabaseTable {
 		
 		builder.append("CREATE TABLE IF NOT EXISTS ");
 		builder.append(this.name);
-		builder.append(" ( LINENUM LONG AUTO_INCREMENT");
+		// the primary key is the row key itself, and costs nothing to maintain
+		builder.append(" ( LINENUM LONG AUTO_INCREMENT PRIMARY KEY");
 		
 		// find primary key columns
 		// run for all non key columns
 		for(DBColumn col : this.columns) {
-			builder.append(", " + col.name + " " + col.columnType.getDBType());
+			builder.append(", " + col.name + " " + col.getDBType());
 		}
 		
 		
@@ -87,6 +142,20 @@ public class DatabaseTable {
 		return builder.toString();
 	}
 
+	/**
+	 * Queries to create the declared indexes on this table.
+	 * 
+	 * @return
+	 */
+	public List<String> getCreateIndexQueries() {
+		List<String> queries = new ArrayList<String>();
+		for(String column : this.indexes) {
+			queries.add("CREATE INDEX IF NOT EXISTS IDX_" + this.name + "_" + column + " ON " + this.name + " (" + column + ");");
+		}
+		
+		return queries;
+	}
+
 	/**
 	 * Create query to insert data into this table
 	 * 
@@ -133,6 +202,25 @@ public class DatabaseTable {
 		return columns;
 	}
 
+	public List<String> getIndexes() {
+		return indexes;
+	}
+
+	/**
+	 * Length of the value without surrounding whitespace. Values read as
+	 * {@link ByteSlice} are measured in bytes to avoid decoding them.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private static int getTrimmedLength(Object value) {
+		if(value instanceof ByteSlice) {
+			return ((ByteSlice) value).trim().length();
+		}
+		
+		return value.toString().trim().length();
+	}
+
 	/**
 	 * Update maximum column size for each item in the row
 	 * 
@@ -143,7 +231,7 @@ public class DatabaseTable {
 		for(int index = 0; index < max; index++) {
 			if(row[index] != null) {
 				DBColumn col = this.columns.get(index);
-				col.maxSize = Math.max(col.maxSize, row[index].toString().trim().length());
+				col.maxSize = Math.max(col.maxSize, getTrimmedLength(row[index]));
 			}
 		}
 	}
@@ -0,0 +1,271 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sangupta.fileanalysis.io.FileFingerprint;
+
+/**
+ * Keeps track of the file that has been loaded into a database, so that
+ * the database can be reused when the same file is opened again.
+ * 
+ * Every file gets a database of its own, named after both the file name
+ * and its full path, so that files of the same name in different folders
+ * never overwrite each other. The {@link FileFingerprint} of the data
+ * loaded is stored within the database itself, once loading completes.
+ * 
+ * A set of files, such as those matched by a glob, is loaded into a single
+ * database named after the pattern, with a fingerprint for each file.
+ * 
+ * @author sangupta
+ *
+ */
+public class DatasetCatalog {
+	
+	/**
+	 * What has changed in the file since it was loaded.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	public static enum DatasetState {
+		
+		/**
+		 * Not loaded before, or changed - needs a full load
+		 */
+		NEW,
+		
+		/**
+		 * Loaded before and not changed since
+		 */
+		UNCHANGED,
+		
+		/**
+		 * Loaded before, and data has since been appended to the file
+		 */
+		APPENDED;
+		
+	}
+	
+	private final Database database;
+	
+	private final DatabaseTable table;
+	
+	public DatasetCatalog(Database database) {
+		this.database = database;
+		
+		this.table = new DatabaseTable("FA_DATASET");
+		this.table.addColumn(new DBColumn("PATH", DBColumnType.TEXT));
+		this.table.addColumn(new DBColumn("FILE_SIZE", DBColumnType.LONG));
+		this.table.addColumn(new DBColumn("MODIFIED", DBColumnType.LONG));
+		this.table.addColumn(new DBColumn("HASH", DBColumnType.STRNG));
+		
+		this.database.execute(this.table.getCreateQuery());
+	}
+	
+	/**
+	 * Name of the database to load the given file into.
+	 * 
+	 * @param file
+	 * @param format
+	 *            the format the file is read as
+	 * 
+	 * @return
+	 */
+	public static String getDatabaseName(File file, String format) {
+		String path;
+		try {
+			path = file.getCanonicalPath();
+		} catch (IOException e) {
+			path = file.getAbsolutePath();
+		}
+		
+		// wildcards of a glob do not make for a file name
+		String name = file.getName().replaceAll("[*?\\[\\]{}]", "_");
+		
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] bytes = digest.digest((path + ":" + format).getBytes("UTF-8"));
+			return name + "-" + String.format("%032x", new BigInteger(1, bytes)).substring(0, 12);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("MD5 not supported by JVM");
+		} catch (IOException e) {
+			throw new RuntimeException("UTF-8 not supported by JVM");
+		}
+	}
+	
+	/**
+	 * Find how the file differs from the data loaded into the database.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	public DatasetState getState(File file) {
+		FileFingerprint fingerprint = getFingerprint();
+		if(fingerprint == null) {
+			return DatasetState.NEW;
+		}
+		
+		try {
+			if(fingerprint.matches(file)) {
+				return DatasetState.UNCHANGED;
+			}
+			
+			if(fingerprint.isPrefixOf(file)) {
+				return DatasetState.APPENDED;
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to fingerprint file: " + e.getMessage());
+		}
+		
+		return DatasetState.NEW;
+	}
+	
+	/**
+	 * Find how the given set of files differs from the data loaded into the
+	 * database. Files added to or removed from the set, as well as any file
+	 * that has changed, need the set to be loaded again.
+	 * 
+	 * @param files
+	 * @return either {@link DatasetState#NEW} or
+	 *         {@link DatasetState#UNCHANGED}
+	 */
+	public DatasetState getState(List<File> files) {
+		List<FileFingerprint> fingerprints = getFingerprints();
+		if(fingerprints.size() != files.size()) {
+			return DatasetState.NEW;
+		}
+		
+		try {
+			for(int index = 0; index < files.size(); index++) {
+				if(!fingerprints.get(index).matches(files.get(index))) {
+					return DatasetState.NEW;
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to fingerprint file: " + e.getMessage());
+			return DatasetState.NEW;
+		}
+		
+		return DatasetState.UNCHANGED;
+	}
+	
+	/**
+	 * Read the fingerprint of the data loaded.
+	 * 
+	 * @return the fingerprint, or <code>null</code> if no data has been
+	 *         loaded completely
+	 */
+	public FileFingerprint getFingerprint() {
+		final FileFingerprint[] fingerprint = new FileFingerprint[1];
+		this.database.execute("SELECT PATH, FILE_SIZE, MODIFIED, HASH FROM FA_DATASET", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					if(resultSet.next()) {
+						fingerprint[0] = new FileFingerprint(resultSet.getString(1), resultSet.getLong(2), resultSet.getLong(3), resultSet.getString(4));
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			
+		});
+		
+		return fingerprint[0];
+	}
+	
+	/**
+	 * Read the fingerprints of all files loaded, in the order they were
+	 * recorded in.
+	 * 
+	 * @return
+	 */
+	public List<FileFingerprint> getFingerprints() {
+		final List<FileFingerprint> fingerprints = new ArrayList<FileFingerprint>();
+		this.database.execute("SELECT PATH, FILE_SIZE, MODIFIED, HASH FROM FA_DATASET ORDER BY LINENUM", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					while(resultSet.next()) {
+						fingerprints.add(new FileFingerprint(resultSet.getString(1), resultSet.getLong(2), resultSet.getLong(3), resultSet.getString(4)));
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			
+		});
+		
+		return fingerprints;
+	}
+	
+	/**
+	 * Record the fingerprint of the data that has been loaded.
+	 * 
+	 * @param fingerprint
+	 */
+	public void record(FileFingerprint fingerprint) {
+		clear();
+		
+		this.database.insertRecord(this.table, new Object[] { fingerprint.path, fingerprint.size, fingerprint.modified, fingerprint.hash });
+		this.database.flushBatches();
+	}
+	
+	/**
+	 * Record the fingerprints of a set of files that has been loaded.
+	 * 
+	 * @param fingerprints
+	 */
+	public void record(List<FileFingerprint> fingerprints) {
+		clear();
+		
+		for(FileFingerprint fingerprint : fingerprints) {
+			this.database.insertRecord(this.table, new Object[] { fingerprint.path, fingerprint.size, fingerprint.modified, fingerprint.hash });
+		}
+		
+		this.database.flushBatches();
+	}
+	
+	/**
+	 * Forget the data loaded, before it gets loaded again.
+	 * 
+	 */
+	public void clear() {
+		this.database.truncateTable(this.table);
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+/**
+ * The formats the results of a query can be exported in. Rows are written
+ * one at a time as they are read, so that the complete result is never held
+ * in memory.
+ * 
+ * @author sangupta
+ *
+ */
+public enum ExportFormat {
+	
+	CSV {
+		
+		@Override
+		public void writeStart(Writer writer, String[] headers) throws IOException {
+			writeValues(writer, headers);
+		}
+		
+		@Override
+		public void writeRow(Writer writer, String[] headers, String[] values, long rowNumber) throws IOException {
+			writeValues(writer, values);
+		}
+		
+		@Override
+		public void writeEnd(Writer writer) throws IOException {
+			// nothing to do
+		}
+		
+		private void writeValues(Writer writer, String[] values) throws IOException {
+			for(int index = 0; index < values.length; index++) {
+				if(index > 0) {
+					writer.write(',');
+				}
+				
+				if(values[index] != null) {
+					writer.write(StringEscapeUtils.escapeCsv(values[index]));
+				}
+			}
+			
+			writer.write('\n');
+		}
+		
+	},
+	
+	JSON {
+		
+		@Override
+		public void writeStart(Writer writer, String[] headers) throws IOException {
+			writer.write('[');
+		}
+		
+		@Override
+		public void writeRow(Writer writer, String[] headers, String[] values, long rowNumber) throws IOException {
+			writer.write(rowNumber == 1 ? "\n{ " : ",\n{ ");
+			for(int index = 0; index < values.length; index++) {
+				if(index > 0) {
+					writer.write(", ");
+				}
+				
+				writer.write('"');
+				writer.write(StringEscapeUtils.escapeJson(headers[index]));
+				writer.write("\": ");
+				
+				if(values[index] == null) {
+					writer.write("null");
+				} else {
+					writer.write('"');
+					writer.write(StringEscapeUtils.escapeJson(values[index]));
+					writer.write('"');
+				}
+			}
+			
+			writer.write(" }");
+		}
+		
+		@Override
+		public void writeEnd(Writer writer) throws IOException {
+			writer.write("\n]\n");
+		}
+		
+	},
+	
+	XML {
+		
+		@Override
+		public void writeStart(Writer writer, String[] headers) throws IOException {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<data>\n");
+		}
+		
+		@Override
+		public void writeRow(Writer writer, String[] headers, String[] values, long rowNumber) throws IOException {
+			writer.write("\t<row>\n");
+			for(int index = 0; index < values.length; index++) {
+				String element = toElementName(headers[index]);
+				
+				writer.write("\t\t<");
+				writer.write(element);
+				writer.write('>');
+				if(values[index] != null) {
+					writer.write(StringEscapeUtils.escapeXml10(values[index]));
+				}
+				writer.write("</");
+				writer.write(element);
+				writer.write(">\n");
+			}
+			
+			writer.write("\t</row>\n");
+		}
+		
+		@Override
+		public void writeEnd(Writer writer) throws IOException {
+			writer.write("</data>\n");
+		}
+		
+		/**
+		 * Convert a column label such as <code>COUNT(*)</code> into a valid
+		 * element name.
+		 * 
+		 * @param header
+		 * @return
+		 */
+		private String toElementName(String header) {
+			String name = header.replaceAll("[^A-Za-z0-9_.-]", "_");
+			if(name.isEmpty() || !Character.isLetter(name.charAt(0)) && name.charAt(0) != '_') {
+				name = "_" + name;
+			}
+			
+			return name;
+		}
+		
+	};
+	
+	/**
+	 * Write what comes before the first row, such as the header row.
+	 * 
+	 * @param writer
+	 * @param headers
+	 * @throws IOException
+	 */
+	public abstract void writeStart(Writer writer, String[] headers) throws IOException;
+	
+	/**
+	 * Write one row of values.
+	 * 
+	 * @param writer
+	 * @param headers
+	 * @param values
+	 *            the values, <code>null</code> for SQL NULL
+	 * 
+	 * @param rowNumber
+	 *            the number of the row, starting with 1
+	 * 
+	 * @throws IOException
+	 */
+	public abstract void writeRow(Writer writer, String[] headers, String[] values, long rowNumber) throws IOException;
+	
+	/**
+	 * Write what comes after the last row.
+	 * 
+	 * @param writer
+	 * @throws IOException
+	 */
+	public abstract void writeEnd(Writer writer) throws IOException;
+	
+	/**
+	 * Get the extension of files written in this format.
+	 * 
+	 * @return
+	 */
+	public String getExtension() {
+		return "." + name().toLowerCase();
+	}
+	
+	/**
+	 * Find the format with the given name, ignoring case.
+	 * 
+	 * @param name
+	 * @return the format, or <code>null</code> if there is none
+	 */
+	public static ExportFormat fromName(String name) {
+		for(ExportFormat format : values()) {
+			if(format.name().equalsIgnoreCase(name)) {
+				return format;
+			}
+		}
+		
+		return null;
+	}
+	
+}
\ No newline at end of file
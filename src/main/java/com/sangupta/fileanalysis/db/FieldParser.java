@@ -0,0 +1,453 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import com.sangupta.fileanalysis.io.ByteSlice;
+
+/**
+ * Parses numbers out of field values without throwing exceptions or creating
+ * objects. Each parse method returns a {@link Status} and keeps the value
+ * parsed, to be read back with {@link #getLong()}, {@link #getInt()} or
+ * {@link #getDouble()}.
+ * 
+ * Values may be any {@link CharSequence}, including a {@link ByteSlice} of
+ * the line read, so that a value need not be decoded to a {@link String}
+ * to be parsed. Leading and trailing whitespace is ignored, and an empty
+ * value or a single <code>-</code>, as used in log files for a missing
+ * value, is read as <code>null</code>.
+ * 
+ * Instances are not thread-safe, and each thread needs a parser of its own.
+ * 
+ * @author sangupta
+ *
+ */
+public class FieldParser {
+	
+	/**
+	 * Result of parsing a value.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	public static enum Status {
+		
+		/**
+		 * A number was parsed
+		 */
+		VALUE,
+		
+		/**
+		 * The value is blank or <code>-</code>
+		 */
+		NULL,
+		
+		/**
+		 * The value is not a number of the type asked for
+		 */
+		INVALID;
+		
+	}
+	
+	/**
+	 * Most significant digits that a long can hold without overflowing
+	 */
+	private static final int MAX_EXACT_DIGITS = 18;
+	
+	/**
+	 * Most significant digits that a double holds exactly
+	 */
+	private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+	
+	/**
+	 * Powers of ten that a double holds exactly
+	 */
+	private static final double[] POWERS_OF_TEN = new double[23];
+	
+	static {
+		POWERS_OF_TEN[0] = 1d;
+		for(int index = 1; index < POWERS_OF_TEN.length; index++) {
+			POWERS_OF_TEN[index] = POWERS_OF_TEN[index - 1] * 10d;
+		}
+	}
+	
+	private long longValue;
+	
+	private double doubleValue;
+	
+	/**
+	 * Parse a value read from a file, or one already converted to a
+	 * {@link Number}, as a long.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public Status parseLong(Object value) {
+		if(value instanceof CharSequence) {
+			CharSequence text = (CharSequence) value;
+			return parseLong(text, 0, text.length());
+		}
+		
+		if(value instanceof Integer || value instanceof Long) {
+			this.longValue = ((Number) value).longValue();
+			return Status.VALUE;
+		}
+		
+		return value == null ? Status.NULL : Status.INVALID;
+	}
+	
+	/**
+	 * Parse the given range of characters as a long.
+	 * 
+	 * @param text
+	 * @param from
+	 *            inclusive start index
+	 * 
+	 * @param to
+	 *            exclusive end index
+	 * 
+	 * @return
+	 */
+	public Status parseLong(CharSequence text, int from, int to) {
+		while(from < to && isSpace(text.charAt(from))) {
+			from++;
+		}
+		
+		while(to > from && isSpace(text.charAt(to - 1))) {
+			to--;
+		}
+		
+		if(isNull(text, from, to)) {
+			return Status.NULL;
+		}
+		
+		boolean negative = false;
+		char first = text.charAt(from);
+		if(first == '-' || first == '+') {
+			negative = first == '-';
+			from++;
+		}
+		
+		if(from == to) {
+			return Status.INVALID;
+		}
+		
+		// accumulate as a negative number, which has the larger range
+		long result = 0;
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long multiplyLimit = limit / 10;
+		for(int index = from; index < to; index++) {
+			int digit = text.charAt(index) - '0';
+			if(digit < 0 || digit > 9) {
+				return Status.INVALID;
+			}
+			
+			if(result < multiplyLimit) {
+				return Status.INVALID;
+			}
+			
+			result *= 10;
+			if(result < limit + digit) {
+				return Status.INVALID;
+			}
+			
+			result -= digit;
+		}
+		
+		this.longValue = negative ? result : -result;
+		return Status.VALUE;
+	}
+	
+	/**
+	 * Parse a value as an int.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public Status parseInt(Object value) {
+		Status status = parseLong(value);
+		if(status == Status.VALUE && (this.longValue < Integer.MIN_VALUE || this.longValue > Integer.MAX_VALUE)) {
+			return Status.INVALID;
+		}
+		
+		return status;
+	}
+	
+	/**
+	 * Parse the given range of characters as an int.
+	 * 
+	 * @param text
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public Status parseInt(CharSequence text, int from, int to) {
+		Status status = parseLong(text, from, to);
+		if(status == Status.VALUE && (this.longValue < Integer.MIN_VALUE || this.longValue > Integer.MAX_VALUE)) {
+			return Status.INVALID;
+		}
+		
+		return status;
+	}
+	
+	/**
+	 * Parse a value read from a file, or one already converted to a
+	 * {@link Number}, as a double.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public Status parseDouble(Object value) {
+		if(value instanceof CharSequence) {
+			CharSequence text = (CharSequence) value;
+			return parseDouble(text, 0, text.length());
+		}
+		
+		if(value instanceof Number) {
+			this.doubleValue = ((Number) value).doubleValue();
+			return Status.VALUE;
+		}
+		
+		return value == null ? Status.NULL : Status.INVALID;
+	}
+	
+	/**
+	 * Parse the given range of characters as a decimal number, with an
+	 * optional sign, fraction and exponent.
+	 * 
+	 * Numbers with at most 15 significant digits and a small exponent are
+	 * computed directly, as both the digits and the power of ten are held
+	 * exactly by a double and a single multiplication or division rounds
+	 * correctly. Any other number is handed over to
+	 * {@link Double#parseDouble(String)}, once it is known to be valid.
+	 * 
+	 * @param text
+	 * @param from
+	 *            inclusive start index
+	 * 
+	 * @param to
+	 *            exclusive end index
+	 * 
+	 * @return
+	 */
+	public Status parseDouble(CharSequence text, int from, int to) {
+		while(from < to && isSpace(text.charAt(from))) {
+			from++;
+		}
+		
+		while(to > from && isSpace(text.charAt(to - 1))) {
+			to--;
+		}
+		
+		if(isNull(text, from, to)) {
+			return Status.NULL;
+		}
+		
+		final int start = from;
+		
+		boolean negative = false;
+		char first = text.charAt(from);
+		if(first == '-' || first == '+') {
+			negative = first == '-';
+			from++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		int significant = 0;
+		int scale = 0;
+		boolean exact = true;
+		boolean fraction = false;
+		
+		int index = from;
+		for(; index < to; index++) {
+			char current = text.charAt(index);
+			if(current == '.') {
+				if(fraction) {
+					return Status.INVALID;
+				}
+				
+				fraction = true;
+				continue;
+			}
+			
+			int digit = current - '0';
+			if(digit < 0 || digit > 9) {
+				break;
+			}
+			
+			digits++;
+			if(significant == 0 && digit == 0) {
+				// leading zeroes do not count
+				if(fraction) {
+					scale--;
+				}
+				
+				continue;
+			}
+			
+			if(significant < MAX_EXACT_DIGITS) {
+				mantissa = mantissa * 10 + digit;
+				significant++;
+				if(fraction) {
+					scale--;
+				}
+			} else {
+				exact = false;
+				if(!fraction) {
+					scale++;
+				}
+			}
+		}
+		
+		if(digits == 0) {
+			return Status.INVALID;
+		}
+		
+		if(index < to) {
+			char current = text.charAt(index);
+			if(current != 'e' && current != 'E') {
+				return Status.INVALID;
+			}
+			
+			index++;
+			boolean negativeExponent = false;
+			if(index < to && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+				negativeExponent = text.charAt(index) == '-';
+				index++;
+			}
+			
+			if(index == to) {
+				return Status.INVALID;
+			}
+			
+			int exponent = 0;
+			for(; index < to; index++) {
+				int digit = text.charAt(index) - '0';
+				if(digit < 0 || digit > 9) {
+					return Status.INVALID;
+				}
+				
+				if(exponent < 100000) {
+					exponent = exponent * 10 + digit;
+				}
+			}
+			
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		
+		if(exact && significant <= MAX_EXACT_DOUBLE_DIGITS && scale >= -22 && scale <= 22) {
+			double value = mantissa;
+			if(scale < 0) {
+				value = value / POWERS_OF_TEN[-scale];
+			} else {
+				value = value * POWERS_OF_TEN[scale];
+			}
+			
+			this.doubleValue = negative ? -value : value;
+			return Status.VALUE;
+		}
+		
+		// the text is a valid number, so this does not throw
+		this.doubleValue = Double.parseDouble(text.subSequence(start, to).toString());
+		return Status.VALUE;
+	}
+	
+	/**
+	 * Check if a value read from a file is to be read as <code>null</code>,
+	 * ignoring leading and trailing whitespace.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static boolean isNull(Object value) {
+		if(value == null) {
+			return true;
+		}
+		
+		if(!(value instanceof CharSequence)) {
+			return false;
+		}
+		
+		CharSequence text = (CharSequence) value;
+		int from = 0;
+		int to = text.length();
+		while(from < to && isSpace(text.charAt(from))) {
+			from++;
+		}
+		
+		while(to > from && isSpace(text.charAt(to - 1))) {
+			to--;
+		}
+		
+		return isNull(text, from, to);
+	}
+	
+	/**
+	 * Check if the given range of characters stands for a missing value:
+	 * either empty or a single <code>-</code>. Whitespace is not ignored.
+	 * 
+	 * @param text
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public static boolean isNull(CharSequence text, int from, int to) {
+		return from == to || (to - from == 1 && text.charAt(from) == '-');
+	}
+	
+	private static boolean isSpace(char ch) {
+		return ch <= ' ';
+	}
+	
+	// Usual accessors follow
+	
+	/**
+	 * The value read by the last successful call to a
+	 * <code>parseLong</code> or <code>parseInt</code> method.
+	 * 
+	 * @return
+	 */
+	public long getLong() {
+		return this.longValue;
+	}
+	
+	/**
+	 * The value read by the last successful call to a
+	 * <code>parseInt</code> method.
+	 * 
+	 * @return
+	 */
+	public int getInt() {
+		return (int) this.longValue;
+	}
+	
+	/**
+	 * The value read by the last successful call to a
+	 * <code>parseDouble</code> method.
+	 * 
+	 * @return
+	 */
+	public double getDouble() {
+		return this.doubleValue;
+	}
+	
+}
\ No newline at end of file
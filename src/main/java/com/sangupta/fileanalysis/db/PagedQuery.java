@@ -0,0 +1,146 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A plain <code>SELECT</code> over one of the tables loaded from a file,
+ * read one page at a time using the <code>LINENUM</code> of the last row
+ * shown as the key to continue after. H2 builds the complete result of a
+ * query before returning its first row, whereas each page only reads its
+ * own rows from the primary key, so that the first page of a table of any
+ * size shows up at once.
+ * 
+ * Only queries whose result is in <code>LINENUM</code> order anyway qualify:
+ * those that select from a single table, optionally with a
+ * <code>WHERE</code> clause, without any ordering, grouping, aggregation,
+ * limit, join or sub-query, over a table whose primary key is
+ * <code>LINENUM</code>, such as the tables loaded from files.
+ * 
+ * @author sangupta
+ *
+ */
+public class PagedQuery {
+	
+	/**
+	 * Name of the column the pages are keyed on
+	 */
+	public static final String KEY_COLUMN = "LINENUM";
+	
+	private static final Pattern SIMPLE_SELECT = Pattern.compile("^\\s*select\\s+(.+?)\\s+from\\s+([A-Za-z_][A-Za-z0-9_]*)(?:\\s+where\\s+(.+?))?\\s*;?\\s*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	
+	/**
+	 * Words that change the order or the number of rows of a result
+	 */
+	private static final Pattern NOT_PAGEABLE = Pattern.compile("\\b(select|from|order|group|having|limit|offset|top|distinct|union|intersect|except|minus|join|for|count|sum|min|max|avg|group_concat|stddev_pop|stddev_samp|var_pop|var_samp|bool_and|bool_or|selectivity|histogram|rownum)\\b", Pattern.CASE_INSENSITIVE);
+	
+	private final String columns;
+	
+	private final String table;
+	
+	private final String condition;
+	
+	private PagedQuery(String columns, String table, String condition) {
+		this.columns = columns;
+		this.table = table;
+		this.condition = condition;
+	}
+	
+	/**
+	 * Check if the given query can be read in pages.
+	 * 
+	 * @param database
+	 *            the database the query is to be run against, to check that
+	 *            the key column is the primary key of its table
+	 * 
+	 * @param query
+	 * @return the query to read in pages, or <code>null</code> if the query
+	 *         is to be run as it is
+	 */
+	public static PagedQuery of(Database database, String query) {
+		Matcher matcher = SIMPLE_SELECT.matcher(query);
+		if(!matcher.matches()) {
+			return null;
+		}
+		
+		String columns = matcher.group(1);
+		String table = matcher.group(2);
+		String condition = matcher.group(3);
+		
+		// strings and quoted names may hold any of the words
+		String code = (columns + " " + (condition == null ? "" : condition)).replaceAll("'(?:[^']|'')*'|\"[^\"]*\"", "?");
+		if(code.indexOf('\'') != -1 || code.indexOf('"') != -1 || code.indexOf(';') != -1) {
+			return null;
+		}
+		
+		if(NOT_PAGEABLE.matcher(code).find()) {
+			return null;
+		}
+		
+		// a copied key column may repeat or be NULL, and pages would skip rows
+		if(!database.isPrimaryKey(table, KEY_COLUMN)) {
+			return null;
+		}
+		
+		return new PagedQuery(columns, table, condition);
+	}
+	
+	/**
+	 * Get the query for the page of rows that follows the given key. The
+	 * key is returned as the first column, ahead of the columns selected.
+	 * 
+	 * @param after
+	 *            the key of the last row of the previous page, or
+	 *            <code>null</code> for the first page
+	 * 
+	 * @param rows
+	 *            the number of rows in a page
+	 * 
+	 * @return
+	 */
+	public String getPageQuery(Long after, int rows) {
+		StringBuilder builder = new StringBuilder(128);
+		builder.append("SELECT ").append(KEY_COLUMN).append(", ").append(this.columns);
+		builder.append(" FROM ").append(this.table);
+		
+		if(this.condition != null || after != null) {
+			builder.append(" WHERE ");
+			if(this.condition != null) {
+				builder.append('(').append(this.condition).append(')');
+			}
+			
+			if(this.condition != null && after != null) {
+				builder.append(" AND ");
+			}
+			
+			if(after != null) {
+				builder.append(KEY_COLUMN).append(" > ").append(after.longValue());
+			}
+		}
+		
+		builder.append(" ORDER BY ").append(KEY_COLUMN).append(" LIMIT ").append(rows);
+		return builder.toString();
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,478 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.h2.tools.SimpleResultSet;
+import org.h2.tools.SimpleRowSource;
+
+/**
+ * Caches the results of <code>SELECT</code> queries, so that running the same
+ * query again over the same data is answered from memory without going to
+ * the database. Results are keyed by the query, normalized for case and
+ * white space, along with the version of the data it ran against, which the
+ * {@link Database} changes on every write. Entries are evicted in least
+ * recently used order once the cache grows beyond its size in bytes, and
+ * results too large for the cache are not kept at all.
+ * 
+ * The cache is shared by all the connections of the {@link Database}, and
+ * is thus thread-safe.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryCache {
+	
+	/**
+	 * Functions whose value differs from one run of a query to the next
+	 */
+	private static final Pattern VOLATILE = Pattern.compile("\\b(rand|random|random_uuid|uuid|secure_rand|now|sysdate|systime|systimestamp|today|curdate|curtime|current_date|current_time|current_timestamp|nextval|currval|identity|scope_identity|session_id|lock_mode|memory_free|memory_used|file_read|link_schema|csvread)\\b", Pattern.CASE_INSENSITIVE);
+	
+	/**
+	 * Estimated bytes used by a row, besides its values
+	 */
+	private static final int ROW_OVERHEAD = 32;
+	
+	/**
+	 * Estimated bytes used by a value that is not a string
+	 */
+	private static final int VALUE_SIZE = 24;
+	
+	private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<String, CachedResult>(16, 0.75f, true);
+	
+	/**
+	 * Most bytes held by all cached results together
+	 */
+	private final long maxBytes;
+	
+	/**
+	 * Most bytes held by a single cached result
+	 */
+	private final long maxResultBytes;
+	
+	private long bytes;
+	
+	private long hits;
+	
+	private long misses;
+	
+	/**
+	 * Create a cache that holds up to the given number of bytes of results.
+	 * 
+	 * @param maxBytes
+	 */
+	public QueryCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+		this.maxResultBytes = maxBytes / 4;
+	}
+	
+	/**
+	 * Normalize the query for use as a key: white space is collapsed, the
+	 * text outside quotes is lower-cased, and a trailing semi-colon dropped.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	public static String normalize(String query) {
+		StringBuilder builder = new StringBuilder(query.length());
+		char quote = 0;
+		boolean space = false;
+		
+		for(int index = 0; index < query.length(); index++) {
+			char current = query.charAt(index);
+			if(quote != 0) {
+				builder.append(current);
+				if(current == quote) {
+					quote = 0;
+				}
+				
+				continue;
+			}
+			
+			if(Character.isWhitespace(current)) {
+				space = builder.length() > 0;
+				continue;
+			}
+			
+			if(space) {
+				builder.append(' ');
+				space = false;
+			}
+			
+			if(current == '\'' || current == '"') {
+				quote = current;
+			}
+			
+			builder.append(Character.toLowerCase(current));
+		}
+		
+		// drop the trailing semi-colon
+		int length = builder.length();
+		while(length > 0 && (builder.charAt(length - 1) == ';' || builder.charAt(length - 1) == ' ')) {
+			length--;
+		}
+		builder.setLength(length);
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Check if the results of the normalized query can be cached: it is a
+	 * single <code>SELECT</code> that gives the same result every time it is
+	 * run over the same data.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	public static boolean isCacheable(String query) {
+		return query.startsWith("select ") && query.indexOf(';') == -1 && !VOLATILE.matcher(query).find();
+	}
+	
+	/**
+	 * Check if the normalized query only reads, and thus leaves the cached
+	 * results valid.
+	 * 
+	 * @param query
+	 * @return
+	 */
+	public static boolean isReadOnly(String query) {
+		return (query.startsWith("select ") || query.startsWith("show ") || query.startsWith("explain ")) && query.indexOf(';') == -1;
+	}
+	
+	/**
+	 * Get the cached result of the query.
+	 * 
+	 * @param query
+	 *            the normalized query
+	 * 
+	 * @param version
+	 *            the version of the data
+	 * 
+	 * @return a statement over the result, or <code>null</code> if it is not
+	 *         in the cache
+	 */
+	public synchronized Statement get(String query, long version) {
+		CachedResult result = this.results.get(version + ":" + query);
+		if(result == null) {
+			this.misses++;
+			return null;
+		}
+		
+		this.hits++;
+		return result.toStatement();
+	}
+	
+	/**
+	 * Read the result set into the cache, unless it is too large. The
+	 * result set is rewound before returning.
+	 * 
+	 * @param query
+	 *            the normalized query
+	 * 
+	 * @param version
+	 *            the version of the data the query ran against
+	 * 
+	 * @param resultSet
+	 *            a scrollable result set
+	 * 
+	 * @return whether the result was cached
+	 * @throws SQLException
+	 */
+	public synchronized boolean put(String query, long version, ResultSet resultSet) throws SQLException {
+		ResultSetMetaData meta = resultSet.getMetaData();
+		final int numColumns = meta.getColumnCount();
+		
+		CachedResult result = new CachedResult(meta);
+		long size = ROW_OVERHEAD * numColumns;
+		try {
+			while(resultSet.next()) {
+				Object[] row = new Object[numColumns];
+				size += ROW_OVERHEAD;
+				
+				for(int index = 1; index <= numColumns; index++) {
+					Object value = getValue(resultSet, result.types[index - 1], index);
+					row[index - 1] = value;
+					size += sizeOf(value);
+				}
+				
+				if(size > this.maxResultBytes) {
+					return false;
+				}
+				
+				result.rows.add(row);
+			}
+		} finally {
+			resultSet.beforeFirst();
+		}
+		
+		result.bytes = size;
+		
+		CachedResult previous = this.results.put(version + ":" + query, result);
+		if(previous != null) {
+			this.bytes -= previous.bytes;
+		}
+		this.bytes += size;
+		
+		evict(version);
+		return true;
+	}
+	
+	/**
+	 * Remove all cached results.
+	 * 
+	 */
+	public synchronized void clear() {
+		this.results.clear();
+		this.bytes = 0;
+	}
+	
+	/**
+	 * Drop the results of older versions of the data, which can no longer be
+	 * asked for, and then the least recently used results till the cache
+	 * fits in its size.
+	 * 
+	 * @param version
+	 */
+	private void evict(long version) {
+		String current = version + ":";
+		Iterator<Map.Entry<String, CachedResult>> iterator = this.results.entrySet().iterator();
+		while(iterator.hasNext()) {
+			Map.Entry<String, CachedResult> entry = iterator.next();
+			if(!entry.getKey().startsWith(current) || this.bytes > this.maxBytes) {
+				this.bytes -= entry.getValue().bytes;
+				iterator.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Read the value of a column in a form that does not depend on the
+	 * connection, such as the text of a CLOB.
+	 * 
+	 * @param resultSet
+	 * @param type
+	 * @param index
+	 * @return
+	 * @throws SQLException
+	 */
+	private static Object getValue(ResultSet resultSet, int type, int index) throws SQLException {
+		switch(type) {
+			case Types.CLOB:
+			case Types.NCLOB:
+				return resultSet.getString(index);
+			
+			case Types.BLOB:
+				return resultSet.getBytes(index);
+			
+			default:
+				return resultSet.getObject(index);
+		}
+	}
+	
+	/**
+	 * The type of a column as cached, which for large objects is that of
+	 * the value read by {@link #getValue(ResultSet, int, int)}.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	private static int getCachedType(int type) {
+		switch(type) {
+			case Types.CLOB:
+			case Types.NCLOB:
+				return Types.VARCHAR;
+			
+			case Types.BLOB:
+				return Types.VARBINARY;
+			
+			default:
+				return type;
+		}
+	}
+	
+	private static long sizeOf(Object value) {
+		if(value == null) {
+			return 8;
+		}
+		
+		if(value instanceof String) {
+			return 40 + 2 * ((String) value).length();
+		}
+		
+		if(value instanceof byte[]) {
+			return 16 + ((byte[]) value).length;
+		}
+		
+		return VALUE_SIZE;
+	}
+	
+	// Usual accessors follow
+	
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	public synchronized int getSize() {
+		return results.size();
+	}
+	
+	/**
+	 * The rows of a result along with its columns.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class CachedResult {
+		
+		final String[] labels;
+		
+		final int[] types;
+		
+		final int[] precisions;
+		
+		final int[] scales;
+		
+		final List<Object[]> rows = new ArrayList<Object[]>();
+		
+		long bytes;
+		
+		CachedResult(ResultSetMetaData meta) throws SQLException {
+			int numColumns = meta.getColumnCount();
+			
+			this.labels = new String[numColumns];
+			this.types = new int[numColumns];
+			this.precisions = new int[numColumns];
+			this.scales = new int[numColumns];
+			
+			for(int index = 1; index <= numColumns; index++) {
+				this.labels[index - 1] = meta.getColumnLabel(index);
+				this.types[index - 1] = meta.getColumnType(index);
+				this.precisions[index - 1] = meta.getPrecision(index);
+				this.scales[index - 1] = meta.getScale(index);
+			}
+		}
+		
+		/**
+		 * Create a statement whose result set reads the cached rows. Only
+		 * the methods used to read a result are supported.
+		 * 
+		 * @return
+		 */
+		Statement toStatement() {
+			final SimpleResultSet resultSet = new SimpleResultSet(new SimpleRowSource() {
+				
+				private int index;
+				
+				@Override
+				public Object[] readRow() {
+					return this.index < rows.size() ? rows.get(this.index++) : null;
+				}
+				
+				@Override
+				public void close() {
+					// nothing to do
+				}
+				
+				@Override
+				public void reset() {
+					this.index = 0;
+				}
+				
+			});
+			
+			for(int index = 0; index < this.labels.length; index++) {
+				resultSet.addColumn(this.labels[index], getCachedType(this.types[index]), this.precisions[index], this.scales[index]);
+			}
+			
+			return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class }, new InvocationHandler() {
+				
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					String name = method.getName();
+					if("getResultSet".equals(name)) {
+						return resultSet;
+					}
+					
+					if("getUpdateCount".equals(name)) {
+						return -1;
+					}
+					
+					if("getMoreResults".equals(name)) {
+						return false;
+					}
+					
+					if("close".equals(name)) {
+						resultSet.close();
+						return null;
+					}
+					
+					if("isClosed".equals(name)) {
+						return resultSet.isClosed();
+					}
+					
+					if("toString".equals(name)) {
+						return "CachedStatement";
+					}
+					
+					if("hashCode".equals(name)) {
+						return System.identityHashCode(proxy);
+					}
+					
+					if("equals".equals(name)) {
+						return proxy == args[0];
+					}
+					
+					throw new SQLException("Not supported for a cached result: " + name);
+				}
+				
+			});
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A query submitted to run on the query executor of the {@link Database}.
+ * Cancelling the task also cancels the statement being run, so that the
+ * database stops working on the query. Queries run in the background are
+ * left alone by {@link Database#cancelQueries()}, and can only be stopped by
+ * cancelling their task.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryTask extends FutureTask<Boolean> {
+	
+	private final String query;
+	
+	private final boolean background;
+	
+	/**
+	 * Time the query started running, or zero if it is waiting to run
+	 */
+	private volatile long startTime;
+	
+	/**
+	 * Time the task was done, or zero if it is not done yet
+	 */
+	private volatile long endTime;
+	
+	/**
+	 * The statement being run, if any
+	 */
+	private volatile Statement statement;
+	
+	/**
+	 * Whether the result of the query is being read
+	 */
+	private boolean reading;
+	
+	QueryTask(Database database, String query, SQLStatementConsumer consumer, boolean background) {
+		this(new Runner(database, query, consumer), query, background);
+	}
+	
+	private QueryTask(Runner runner, String query, boolean background) {
+		super(runner);
+		
+		runner.task = this;
+		this.query = query;
+		this.background = background;
+	}
+	
+	@Override
+	public void run() {
+		this.startTime = System.currentTimeMillis();
+		super.run();
+	}
+	
+	@Override
+	protected void done() {
+		this.endTime = System.currentTimeMillis();
+	}
+	
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if(cancelled) {
+			cancelStatement();
+		}
+		
+		return cancelled;
+	}
+	
+	/**
+	 * Cancel the task unless the query has completed and its result is
+	 * being read, such as when shown to the user.
+	 * 
+	 * @return whether the task was cancelled
+	 */
+	public synchronized boolean cancelExecution() {
+		if(this.reading) {
+			return false;
+		}
+		
+		return cancel(true);
+	}
+	
+	/**
+	 * Mark that the result of the query is about to be read, after which
+	 * {@link #cancelExecution()} leaves the task alone.
+	 * 
+	 * @return <code>false</code> if the task has been cancelled
+	 */
+	synchronized boolean startReading() {
+		if(isCancelled()) {
+			return false;
+		}
+		
+		this.reading = true;
+		return true;
+	}
+	
+	/**
+	 * Set the statement being run for the query, or <code>null</code> once
+	 * done. A statement set after the task has been cancelled is cancelled
+	 * right away.
+	 * 
+	 * @param statement
+	 */
+	void setStatement(Statement statement) {
+		this.statement = statement;
+		if(statement != null && isCancelled()) {
+			cancelStatement();
+		}
+	}
+	
+	/**
+	 * Get the time the query has been running for, or ran for if done.
+	 * 
+	 * @return the time in millis, or zero if the query never ran
+	 */
+	public long getElapsedTime() {
+		long start = this.startTime;
+		if(start == 0) {
+			return 0;
+		}
+		
+		long end = this.endTime;
+		return (end == 0 ? System.currentTimeMillis() : end) - start;
+	}
+	
+	private void cancelStatement() {
+		Statement statement = this.statement;
+		if(statement == null) {
+			return;
+		}
+		
+		try {
+			statement.cancel();
+		} catch (SQLException e) {
+			// the statement may have completed
+		}
+	}
+	
+	// Usual accessors follow
+	
+	public String getQuery() {
+		return query;
+	}
+	
+	public boolean isBackground() {
+		return background;
+	}
+	
+	/**
+	 * Runs the query of a task.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class Runner implements Callable<Boolean> {
+		
+		private final Database database;
+		
+		private final String query;
+		
+		private final SQLStatementConsumer consumer;
+		
+		private QueryTask task;
+		
+		Runner(Database database, String query, SQLStatementConsumer consumer) {
+			this.database = database;
+			this.query = query;
+			this.consumer = consumer;
+		}
+		
+		@Override
+		public Boolean call() {
+			return this.database.execute(this.query, this.consumer, this.task);
+		}
+		
+	}
+	
+}
\ No newline at end of file
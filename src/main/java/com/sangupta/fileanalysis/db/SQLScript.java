@@ -0,0 +1,115 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a script of SQL statements into the statements, each ending with a
+ * semi-colon. Semi-colons within quotes and comments do not end a statement,
+ * and comments are dropped.
+ * 
+ * @author sangupta
+ *
+ */
+public class SQLScript {
+	
+	/**
+	 * Split the script into its statements.
+	 * 
+	 * @param script
+	 * @return the statements, without the semi-colon that ends them
+	 */
+	public static List<String> split(String script) {
+		List<String> statements = new ArrayList<String>();
+		StringBuilder builder = new StringBuilder();
+		
+		int length = script.length();
+		int index = 0;
+		while(index < length) {
+			char current = script.charAt(index);
+			char next = index + 1 < length ? script.charAt(index + 1) : 0;
+			
+			// line comment
+			if(current == '-' && next == '-') {
+				while(index < length && script.charAt(index) != '\n') {
+					index++;
+				}
+				
+				continue;
+			}
+			
+			// block comment
+			if(current == '/' && next == '*') {
+				int end = script.indexOf("*/", index + 2);
+				index = end == -1 ? length : end + 2;
+				builder.append(' ');
+				continue;
+			}
+			
+			// quoted string or name, where a doubled quote is part of it
+			if(current == '\'' || current == '"') {
+				int end = index + 1;
+				while(end < length) {
+					if(script.charAt(end) == current) {
+						if(end + 1 < length && script.charAt(end + 1) == current) {
+							end += 2;
+							continue;
+						}
+						
+						break;
+					}
+					
+					end++;
+				}
+				
+				end = Math.min(end + 1, length);
+				builder.append(script, index, end);
+				index = end;
+				continue;
+			}
+			
+			if(current == ';') {
+				addStatement(statements, builder);
+				index++;
+				continue;
+			}
+			
+			builder.append(current);
+			index++;
+		}
+		
+		addStatement(statements, builder);
+		return statements;
+	}
+	
+	private static void addStatement(List<String> statements, StringBuilder builder) {
+		String statement = builder.toString().trim();
+		if(!statement.isEmpty()) {
+			statements.add(statement);
+		}
+		
+		builder.setLength(0);
+	}
+	
+}
@@ -0,0 +1,309 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sangupta.fileanalysis.FileAnalysisHelper;
+import com.sangupta.fileanalysis.TimestampParser;
+import com.sangupta.fileanalysis.db.FieldParser.Status;
+import com.sangupta.jerry.print.ConsoleTable;
+import com.sangupta.jerry.util.AssertUtils;
+
+/**
+ * Infers the type of each column from a sample of rows: the narrowest of
+ * <code>INT</code>, <code>BIGINT</code>, <code>DOUBLE</code>,
+ * <code>TIMESTAMP</code>, <code>VARCHAR</code> and <code>CLOB</code> that
+ * fits every non-blank value seen. Blank values, and <code>-</code>, fit any
+ * type.
+ * 
+ * Timestamps are recognized in a few common formats, such as ISO-8601 and
+ * <code>yyyy-MM-dd HH:mm:ss</code>, and the format all values of a column
+ * are in is kept with the column to read the rest of its values. Text
+ * columns are given no length, as values longer than those sampled may
+ * follow, unless a value seen is so long that the column is better stored
+ * as a <code>CLOB</code>.
+ * 
+ * Along with the type, a confidence is estimated for each column: the share
+ * of all values of the column, not just those sampled, that fit the type.
+ * When all of <code>n</code> sampled values fit, at 95% confidence no more
+ * than <code>3/n</code> of the values in the file do not (the rule of three),
+ * so the confidence is <code>1 - 3/n</code>.
+ * 
+ * @author sangupta
+ *
+ */
+public class SchemaInference {
+	
+	/**
+	 * Longest value seen for a column to be stored as <code>VARCHAR</code>
+	 * rather than <code>CLOB</code>
+	 */
+	static final int MAX_VARCHAR_LENGTH = 4096;
+	
+	/**
+	 * Formats of timestamps recognized, tried in order
+	 */
+	private static final TimestampParser[] TIMESTAMP_PARSERS = new TimestampParser[] {
+		new TimestampParser("yyyy-MM-dd HH:mm:ss"),
+		new TimestampParser("yyyy-MM-dd HH:mm:ss.SSS"),
+		new TimestampParser("yyyy-MM-dd HH:mm:ss,SSS"),
+		new TimestampParser("yyyy-MM-dd'T'HH:mm:ss"),
+		new TimestampParser("yyyy-MM-dd'T'HH:mm:ss.SSS"),
+		new TimestampParser("yyyy-MM-dd'T'HH:mm:ssXXX"),
+		FileAnalysisHelper.LOG_DATE_PARSER
+	};
+	
+	private final List<ColumnSample> samples = new ArrayList<ColumnSample>();
+	
+	private final FieldParser parser = new FieldParser();
+	
+	/**
+	 * Number of rows added to the sample
+	 */
+	private int rows;
+	
+	/**
+	 * Add a row of values to the sample.
+	 * 
+	 * @param values
+	 */
+	public void addRow(Object[] values) {
+		this.rows++;
+		
+		for(int index = 0; index < values.length; index++) {
+			if(index == this.samples.size()) {
+				this.samples.add(new ColumnSample());
+			}
+			
+			Object value = values[index];
+			if(value != null) {
+				CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+				this.samples.get(index).add(text, this.parser);
+			}
+		}
+	}
+	
+	/**
+	 * Number of columns seen in the widest row.
+	 * 
+	 * @return
+	 */
+	public int getColumnCount() {
+		return this.samples.size();
+	}
+	
+	/**
+	 * Number of rows sampled.
+	 * 
+	 * @return
+	 */
+	public int getRowCount() {
+		return this.rows;
+	}
+	
+	/**
+	 * Create the columns with the inferred types.
+	 * 
+	 * @param names
+	 *            names of the columns, if known
+	 * 
+	 * @return
+	 */
+	public List<DBColumn> getColumns(String[] names) {
+		List<DBColumn> columns = new ArrayList<DBColumn>();
+		
+		int count = Math.max(names.length, this.samples.size());
+		for(int index = 0; index < count; index++) {
+			String name = "col";
+			if(index < names.length && AssertUtils.isNotBlank(names[index])) {
+				name = names[index];
+			}
+			
+			if(index < this.samples.size()) {
+				columns.add(this.samples.get(index).getColumn(name));
+			} else {
+				columns.add(new DBColumn(name, DBColumnType.STRNG));
+			}
+		}
+		
+		return columns;
+	}
+	
+	/**
+	 * Print the inferred type of each column along with its confidence.
+	 * 
+	 * @param columns
+	 *            the columns as returned by {@link #getColumns(String[])}
+	 */
+	public void printReport(List<DBColumn> columns) {
+		System.out.println("Inferred column types from a sample of " + this.rows + " rows:");
+		
+		ConsoleTable table = new ConsoleTable();
+		table.addHeaderRow("Column", "Type", "Values", "Blank", "Confidence");
+		for(int index = 0; index < columns.size(); index++) {
+			DBColumn column = columns.get(index);
+			if(index >= this.samples.size()) {
+				table.addRow(column.name, column.getDBType(), "0", "0", "0%");
+				continue;
+			}
+			
+			ColumnSample sample = this.samples.get(index);
+			table.addRow(column.name, column.getDBType(), String.valueOf(sample.values), String.valueOf(sample.blanks), Math.round(sample.getConfidence() * 100) + "%");
+		}
+		
+		table.write(System.out);
+	}
+	
+	/**
+	 * The types that fit all values of one column seen so far.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class ColumnSample {
+		
+		int values;
+		
+		int blanks;
+		
+		int maxLength;
+		
+		boolean isInt = true;
+		
+		boolean isLong = true;
+		
+		boolean isDouble = true;
+		
+		boolean isTimestamp = true;
+		
+		/**
+		 * Which of the {@link #TIMESTAMP_PARSERS} read all values seen
+		 */
+		final boolean[] timestampFormats = new boolean[TIMESTAMP_PARSERS.length];
+		
+		ColumnSample() {
+			Arrays.fill(this.timestampFormats, true);
+		}
+		
+		void add(CharSequence value, FieldParser parser) {
+			int from = 0;
+			int to = value.length();
+			while(from < to && value.charAt(from) <= ' ') {
+				from++;
+			}
+			
+			while(to > from && value.charAt(to - 1) <= ' ') {
+				to--;
+			}
+			
+			if(FieldParser.isNull(value, from, to)) {
+				this.blanks++;
+				return;
+			}
+			
+			this.values++;
+			this.maxLength = Math.max(this.maxLength, to - from);
+			
+			if(this.isLong) {
+				if(parser.parseLong(value, from, to) == Status.VALUE) {
+					this.isInt = this.isInt && parser.getLong() >= Integer.MIN_VALUE && parser.getLong() <= Integer.MAX_VALUE;
+				} else {
+					this.isInt = false;
+					this.isLong = false;
+				}
+			}
+			
+			if(this.isDouble && !this.isLong) {
+				this.isDouble = parser.parseDouble(value, from, to) == Status.VALUE;
+			}
+			
+			if(this.isTimestamp) {
+				String text = value.subSequence(from, to).toString();
+				this.isTimestamp = false;
+				for(int index = 0; index < TIMESTAMP_PARSERS.length; index++) {
+					if(this.timestampFormats[index]) {
+						this.timestampFormats[index] = TIMESTAMP_PARSERS[index].parseMillis(text) != TimestampParser.INVALID;
+						this.isTimestamp = this.isTimestamp || this.timestampFormats[index];
+					}
+				}
+			}
+		}
+		
+		DBColumn getColumn(String name) {
+			if(this.values == 0) {
+				// nothing to go by
+				return new DBColumn(name, DBColumnType.STRNG);
+			}
+			
+			if(this.isInt) {
+				return new DBColumn(name, DBColumnType.INT);
+			}
+			
+			if(this.isLong) {
+				return new DBColumn(name, DBColumnType.LONG);
+			}
+			
+			if(this.isDouble) {
+				return new DBColumn(name, DBColumnType.DOUBLE);
+			}
+			
+			if(this.isTimestamp) {
+				return new DBColumn(name, getTimestampParser());
+			}
+			
+			if(this.maxLength > MAX_VARCHAR_LENGTH) {
+				return new DBColumn(name, DBColumnType.TEXT);
+			}
+			
+			// values in rows not sampled may be longer
+			return new DBColumn(name, DBColumnType.STRNG, DBColumn.UNBOUNDED);
+		}
+		
+		/**
+		 * The first format that reads all values seen.
+		 * 
+		 * @return
+		 */
+		TimestampParser getTimestampParser() {
+			for(int index = 0; index < TIMESTAMP_PARSERS.length; index++) {
+				if(this.timestampFormats[index]) {
+					return TIMESTAMP_PARSERS[index];
+				}
+			}
+			
+			return null;
+		}
+		
+		double getConfidence() {
+			if(this.values == 0) {
+				return 0;
+			}
+			
+			return Math.max(0, 1 - 3d / this.values);
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -26,27 +26,39 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.StringUtils;
 
 import com.sangupta.fileanalysis.FileAnalysisHelper;
+import com.sangupta.fileanalysis.FollowableFileFormatHandler;
 import com.sangupta.fileanalysis.db.DBColumn;
 import com.sangupta.fileanalysis.db.DBColumnType;
 import com.sangupta.fileanalysis.db.Database;
 import com.sangupta.fileanalysis.db.DatabaseTable;
 import com.sangupta.fileanalysis.formats.base.AbstractFileFormatHandler;
+import com.sangupta.fileanalysis.formats.base.LineChunkParser;
+import com.sangupta.fileanalysis.io.ByteSlice;
 
 /**
  * 
  * @author sangupta
  *
  */
-public class ApacheLogFileHandler extends AbstractFileFormatHandler {
+public class ApacheLogFileHandler extends AbstractFileFormatHandler implements FollowableFileFormatHandler {
 	
-	private static final String[] EMPTY_STRING_ARRAY = new String[] { };
-
-	private static final String[] HTTP_VERBS = { "GET", "PUT", "POST", "DELETE", "PATCH", "TRACE" };
+	/**
+	 * Lines are parsed on multiple threads, each needing a tokenizer of its
+	 * own
+	 */
+	private static final ThreadLocal<ApacheLogTokenizer> TOKENIZER = new ThreadLocal<ApacheLogTokenizer>() {
+		
+		@Override
+		protected ApacheLogTokenizer initialValue() {
+			return new ApacheLogTokenizer();
+		}
+		
+	};
+	
+	private static final String[] HTTP_VERBS = ApacheLogTokenizer.HTTP_VERBS;
 	
 	private static final String MAC_OS = "osx";
 	
@@ -68,25 +80,15 @@ public class ApacheLogFileHandler extends AbstractFileFormatHandler {
 
 	private DatabaseTable table;
 	
-	private String firstLine;
-	
-	private LineIterator iterator;
-	
 	@Override
 	public void initialize(Database database, File file) {
 		super.setDBAndFile(database, file);
-		try {
-			iterator = FileUtils.lineIterator(this.file);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
 	}
 	
 	@Override
 	public void createDBTables() {
-		this.firstLine = iterator.next();
-		if(this.firstLine == null) {
+		String firstLine = readFirstLine();
+		if(firstLine == null) {
 			return;
 		}
 
@@ -94,7 +96,7 @@ public class ApacheLogFileHandler extends AbstractFileFormatHandler {
 		table = new DatabaseTable("logs");
 		
 		// find column names
-		List<String> tokens = parseLogLine(this.firstLine);
+		List<String> tokens = parseLogLine(firstLine);
 		DBColumn column = null;
 		
 		for(int index = 0; index < tokens.size(); index++) {
@@ -102,7 +104,7 @@ public class ApacheLogFileHandler extends AbstractFileFormatHandler {
 			column = detectDBColumn(token, column);
 			if(column == null) {
 				// ask the user for column type
-				column = getDBColumnFromUser(token);
+				column = getDBColumnFromUser(index + 1, token);
 				
 				if(column == null) {
 					column = new DBColumn("col", DBColumnType.STRNG);
@@ -112,9 +114,10 @@ public class ApacheLogFileHandler extends AbstractFileFormatHandler {
 			table.addColumn(column);
 		}
 		
+		readIndexes(table, "ip", "verb", "path", "date");
+		
 		// create the table now
-		database.dropTable(table);
-		database.createTable(table);
+		createTable(table);
 	}
 
 	private DBColumn detectDBColumn(String token, DBColumn lastDetectedColumn) {
@@ -174,118 +177,51 @@ public class ApacheLogFileHandler extends AbstractFileFormatHandler {
 
 	@Override
 	public void loadFile() throws IOException {
-		String[] tokens = parseLogLine(this.firstLine).toArray(EMPTY_STRING_ARRAY);
-		insertRow(this.table, tokens);
-		
-		// start iterating over other rows
-		String line;
-		while(this.iterator.hasNext()) {
-			line = iterator.next();
-			tokens = parseLogLine(line).toArray(EMPTY_STRING_ARRAY);
-			insertRow(this.table, tokens);
-		}
+		// the first line was only peeked at for columns, load from the start
+		loadChunks(this.table, 0, getLineParser());
 	}
 	
-	private static List<String> parseLogLine(final String logLine) {
-		List<String> tokens = parseBaseTokens(logLine);
-		
-		// bifurcate the request method etc as well
-		int endIndex = tokens.size();
-		for(int index = 0; index < endIndex; index++) {
-			String token = tokens.get(index);
+	@Override
+	public void loadAppended() throws IOException {
+		loadAppended(this.table, getLineParser());
+	}
+	
+	@Override
+	public void clearData() {
+		clearData(this.table);
+	}
+	
+	private LineChunkParser getLineParser() {
+		return new LineChunkParser(this.file) {
 			
-			// check for http verb
-			if(FileAnalysisHelper.startsWithAny(token, HTTP_VERBS)) {
-				int space = token.indexOf(' ');
-				if(space != -1) {
-					String verb = token.substring(0, space);
-					if(FileAnalysisHelper.isAnyOf(verb, HTTP_VERBS)) {
-						// add a new token here - verb comes first
-						tokens.add(index, verb);
-						index++;
-						endIndex++;
-						
-						// extract protocol
-						int lastSpace = token.lastIndexOf(' ');
-						if(lastSpace != space) {
-							String protocol = token.substring(lastSpace + 1);
-							tokens.add(index + 1, protocol);
-							index++;
-							endIndex++;
-						}
-						
-						// trim the current path
-						if(space != lastSpace) {
-							token = token.substring(space + 1, lastSpace);
-							tokens.set(index - 1, token);
-						} else {
-							token = token.substring(space + 1);
-							tokens.set(index - 1, token);
-						}
-						
-						continue;
-					}
+			@Override
+			protected Object[] parseLine(ByteSlice line) {
+				ApacheLogTokenizer tokenizer = TOKENIZER.get();
+				
+				Object[] row = new Object[tokenizer.tokenize(line)];
+				for(int field = 0; field < row.length; field++) {
+					row[field] = line.slice(tokenizer.getStart(field), tokenizer.getEnd(field));
 				}
+				
+				return row;
 			}
 			
-			// check for OS
-			if(FileAnalysisHelper.containsAny(token, OS_DECIPHER_WORDS) && FileAnalysisHelper.containsAny(token, BROWSER_DECIPHER_WORDS)) {
-				String os = decipherOSFromUserAgent(token);
-				if(os != null) {
-					tokens.add(index, os);
-					index++;
-					endIndex++;
-					continue;
-				}
-			}
-		}
-		
-		return tokens;
-	}
-
-	/**
-	 * Find the user agent details from the string.
-	 * 
-	 * @param token
-	 * @return
-	 */
-	private static String decipherOSFromUserAgent(String token) {
-		return null;
+		};
 	}
-
+	
 	/**
+	 * Split the line into its fields.
 	 * 
-	 * @param logLine
+	 * @param line
 	 * @return
 	 */
-	private static List<String> parseBaseTokens(final String logLine) {
-		List<String> tokens = new ArrayList<String>();
-		
-		StringBuilder builder = new StringBuilder(100);
-		char[] charArray = logLine.toCharArray();
-		
-		boolean inQuotes = false;
-		boolean inBrackets = false;
+	private static List<String> parseLogLine(final String line) {
+		ApacheLogTokenizer tokenizer = TOKENIZER.get();
 		
-		for (int index = 0; index < charArray.length; index++) {
-			if (charArray[index] == '"') {
-				inQuotes = inQuotes ? false : true;
-			} else if (charArray[index] == '[') {
-				inBrackets = true;
-			} else if (charArray[index] == ']') {
-				if (inBrackets) {
-					inBrackets = false;
-				}
-			} else if (charArray[index] == ' ' && (!inQuotes) && (!inBrackets)) {
-				tokens.add(builder.toString());
-				builder.setLength(0);
-			} else {
-				builder.append(charArray[index]);
-			}
-		}
-		
-		if (builder.length() > 0) {
-			tokens.add(builder.toString());
+		List<String> tokens = new ArrayList<String>();
+		int fields = tokenizer.tokenize(line);
+		for(int field = 0; field < fields; field++) {
+			tokens.add(line.substring(tokenizer.getStart(field), tokenizer.getEnd(field)));
 		}
 		
 		return tokens;
@@ -0,0 +1,224 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats;
+
+import java.util.Arrays;
+
+/**
+ * Splits a line of an Apache access log into its fields in a single pass,
+ * without creating any objects. The start and end of each field are
+ * written into an array that is reused for every line, and can be read
+ * back using {@link #getStart(int)} and {@link #getEnd(int)}.
+ * 
+ * Fields are separated by spaces, except for spaces within double quotes
+ * or square brackets. The quotes and brackets around a field are not part
+ * of it. A request field such as <code>"GET /index.html HTTP/1.1"</code>
+ * is split into three fields: the verb, the path and the protocol.
+ * 
+ * Instances keep the fields of the last line tokenized, and thus each
+ * thread needs a tokenizer of its own.
+ * 
+ * @author sangupta
+ *
+ */
+public class ApacheLogTokenizer {
+	
+	static final String[] HTTP_VERBS = { "GET", "PUT", "POST", "DELETE", "PATCH", "TRACE" };
+	
+	/**
+	 * Start and end offset of each field, one after the other
+	 */
+	private int[] offsets = new int[32];
+	
+	private int fields;
+	
+	/**
+	 * Find the fields of the given line.
+	 * 
+	 * @param line
+	 * @return the number of fields found
+	 */
+	public int tokenize(CharSequence line) {
+		this.fields = 0;
+		
+		final int length = line.length();
+		boolean inQuotes = false;
+		boolean inBrackets = false;
+		
+		// spaces within the current field, to split a request
+		int start = 0;
+		int firstSpace = -1;
+		int lastSpace = -1;
+		for(int index = 0; index < length; index++) {
+			switch(line.charAt(index)) {
+				case '"':
+					inQuotes = !inQuotes;
+					break;
+				
+				case '[':
+					inBrackets = true;
+					break;
+				
+				case ']':
+					inBrackets = false;
+					break;
+				
+				case ' ':
+					if(!inQuotes && !inBrackets) {
+						addField(line, start, index, firstSpace, lastSpace);
+						start = index + 1;
+						firstSpace = -1;
+					} else {
+						if(firstSpace == -1) {
+							firstSpace = index;
+						}
+						
+						lastSpace = index;
+					}
+					break;
+			}
+		}
+		
+		// the last field, unless empty
+		int end = trimEnd(line, start, length);
+		start = trimStart(line, start, end);
+		if(start < end) {
+			addField(line, start, end, firstSpace, lastSpace);
+		}
+		
+		return this.fields;
+	}
+	
+	/**
+	 * Add the field between the given offsets, splitting it if it is a
+	 * request.
+	 * 
+	 * @param line
+	 * @param start
+	 * @param end
+	 * @param firstSpace
+	 *            the first space in the field, or <code>-1</code> if none
+	 * 
+	 * @param lastSpace
+	 *            the last space in the field
+	 */
+	private void addField(CharSequence line, int start, int end, int firstSpace, int lastSpace) {
+		end = trimEnd(line, start, end);
+		start = trimStart(line, start, end);
+		
+		if(firstSpace == -1 || !isVerb(line, start, firstSpace)) {
+			add(start, end);
+			return;
+		}
+		
+		// the verb, path and protocol of the request
+		add(start, firstSpace);
+		if(lastSpace == firstSpace) {
+			add(firstSpace + 1, end);
+			return;
+		}
+		
+		add(firstSpace + 1, lastSpace);
+		add(lastSpace + 1, end);
+	}
+	
+	private void add(int start, int end) {
+		if(this.offsets.length < 2 * this.fields + 2) {
+			this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+		}
+		
+		this.offsets[2 * this.fields] = start;
+		this.offsets[2 * this.fields + 1] = end;
+		this.fields++;
+	}
+	
+	private static boolean isVerb(CharSequence line, int start, int end) {
+		outer:
+		for(String verb : HTTP_VERBS) {
+			if(verb.length() != end - start) {
+				continue;
+			}
+			
+			for(int index = 0; index < verb.length(); index++) {
+				if(verb.charAt(index) != line.charAt(start + index)) {
+					continue outer;
+				}
+			}
+			
+			return true;
+		}
+		
+		return false;
+	}
+	
+	private static int trimStart(CharSequence line, int start, int end) {
+		while(start < end && isEnclosing(line.charAt(start))) {
+			start++;
+		}
+		
+		return start;
+	}
+	
+	private static int trimEnd(CharSequence line, int start, int end) {
+		while(end > start && isEnclosing(line.charAt(end - 1))) {
+			end--;
+		}
+		
+		return end;
+	}
+	
+	private static boolean isEnclosing(char ch) {
+		return ch == '"' || ch == '[' || ch == ']';
+	}
+	
+	// Usual accessors follow
+	
+	/**
+	 * Number of fields in the last line tokenized.
+	 * 
+	 * @return
+	 */
+	public int getFieldCount() {
+		return this.fields;
+	}
+	
+	/**
+	 * Offset in the line at which the given field starts.
+	 * 
+	 * @param field
+	 * @return
+	 */
+	public int getStart(int field) {
+		return this.offsets[2 * field];
+	}
+	
+	/**
+	 * Offset in the line at which the given field ends, exclusive.
+	 * 
+	 * @param field
+	 * @return
+	 */
+	public int getEnd(int field) {
+		return this.offsets[2 * field + 1];
+	}
+	
+}
\ No newline at end of file
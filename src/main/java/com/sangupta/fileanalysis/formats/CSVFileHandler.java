@@ -22,20 +22,16 @@
 package com.sangupta.fileanalysis.formats;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import au.com.bytecode.opencsv.CSVReader;
-
 import com.sangupta.fileanalysis.db.DBColumn;
-import com.sangupta.fileanalysis.db.DBColumnType;
-import com.sangupta.fileanalysis.db.DBHelper;
 import com.sangupta.fileanalysis.db.Database;
 import com.sangupta.fileanalysis.db.DatabaseTable;
+import com.sangupta.fileanalysis.db.SchemaInference;
 import com.sangupta.fileanalysis.formats.base.AbstractFileFormatHandler;
+import com.sangupta.fileanalysis.io.ParallelCSVReader;
 
 /**
  * 
@@ -44,15 +40,7 @@ import com.sangupta.fileanalysis.formats.base.AbstractFileFormatHandler;
  */
 public class CSVFileHandler extends AbstractFileFormatHandler {
 	
-	private CSVReader reader;
-	
 	private DatabaseTable table;
-	
-	/**
-	 * preserve the first row to be stored to be loaded when we
-	 * start loading
-	 */
-	private String[] firstRow;
 
 	/**
 	 * Initialize the handler
@@ -60,12 +48,6 @@ public class CSVFileHandler extends AbstractFileFormatHandler {
 	 */
 	public void initialize(Database database, File file) {
 		super.setDBAndFile(database, file);
-
-		try {
-			this.reader = new CSVReader(new FileReader(this.file));
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
 	}
 
 	/**
@@ -79,8 +61,9 @@ public class CSVFileHandler extends AbstractFileFormatHandler {
 			table.addColumn(column);
 		}
 		
-		database.dropTable(table);
-		database.createTable(table);
+		readIndexes(table);
+		
+		createTable(table);
 	}
 
 	/**
@@ -89,79 +72,88 @@ public class CSVFileHandler extends AbstractFileFormatHandler {
 	 * @return
 	 */
 	private List<DBColumn> extractColumns() {
-		String[] columnNames = readLine();
-		if(columnNames == null) {
+		final int headRows = this.ingestConfig.getSampleHeadRows();
+		
+		List<String[]> records = readRecords(1 + headRows);
+		if(records.isEmpty()) {
 			throw new RuntimeException("Header line not found in CSV");
 		}
 		
-		List<DBColumn> columns = new ArrayList<DBColumn>();
-
-		firstRow = readLine();
-		if(firstRow == null) {
-			// no data available
-			// create an empty table
-			for(String name : columnNames) {
-				columns.add(new DBColumn(name, DBColumnType.STRNG));
-			}
-			
-			return columns;
+		// infer types from the rows following the header
+		String[] columnNames = records.remove(0);
+		SchemaInference inference = new SchemaInference();
+		for(String[] record : records) {
+			inference.addRow(record);
 		}
 		
-		// the first row data is available
-		// analyze each item
-		int maxIndex = Math.max(columnNames.length, firstRow.length);
-		for(int index = 0; index < maxIndex; index++) {
-			String name;
-			if(index < columnNames.length) {
-				name = columnNames[index];
-			} else {
-				name = "col";
-			}
-			
-			if(index < firstRow.length) {
-				columns.add(new DBColumn(name, DBHelper.detectColumnType(firstRow[index])));
-			} else {
-				columns.add(new DBColumn(name, DBColumnType.STRNG));
+		// and from rows spread across the rest of the file
+		if(records.size() == headRows) {
+			for(String[] record : sampleRecords(1 + headRows, columnNames.length)) {
+				inference.addRow(record);
 			}
 		}
 		
+		List<DBColumn> columns = inference.getColumns(columnNames);
+		inference.printReport(columns);
 		return columns;
 	}
 	
 	/**
-	 * Read next CSV line quietly.
+	 * Read records at random positions after the given number of records
+	 * quietly.
 	 * 
+	 * @param skip
+	 * @param fields
 	 * @return
 	 */
-	private String[] readLine() {
+	private List<String[]> sampleRecords(int skip, int fields) {
 		try {
-			return this.reader.readNext();
+			ParallelCSVReader reader = new ParallelCSVReader(this.file, this.ingestConfig);
+			return reader.sampleRecords(reader.skipRecords(skip), this.ingestConfig.getSampleRandomRows(), fields);
 		} catch (IOException e) {
 			// eat up
 		}
 		
-		return null;
+		return new ArrayList<String[]>();
 	}
-
+	
 	/**
-	 * Load the remaining chunk of file.
+	 * Read the given number of records from the start of the file quietly.
 	 * 
+	 * @param count
+	 * @return
 	 */
-	public void loadFile() throws IOException {
-		// load the first row
-		insertRow(this.table, firstRow);
-		
-		// load rest of the rows
-		String[] lineItems;
-		while((lineItems = this.reader.readNext()) != null) {
-			insertRow(this.table, lineItems);
-		}
-		
+	private List<String[]> readRecords(int count) {
 		try {
-			this.reader.close();
+			return new ParallelCSVReader(this.file, this.ingestConfig).readRecords(count);
 		} catch (IOException e) {
 			// eat up
 		}
+		
+		return new ArrayList<String[]>();
+	}
+
+	/**
+	 * Load all rows after the header, parsing chunks of the file in
+	 * parallel.
+	 * 
+	 */
+	public void loadFile() throws IOException {
+		this.database.setBatchSize(this.ingestConfig.getWriteBatchSize());
+		
+		ParallelCSVReader csvReader = new ParallelCSVReader(this.file, this.ingestConfig);
+		
+		// skip the header row
+		long dataStart = csvReader.skipRecords(1);
+		
+		csvReader.read(dataStart, new ParallelCSVReader.RowHandler() {
+			
+			@Override
+			public void handleRows(List<Object[]> rows) {
+				insertRows(table, rows);
+			}
+			
+		});
 	}
 
 }
\ No newline at end of file
@@ -23,7 +23,6 @@ package com.sangupta.fileanalysis.formats;
 
 import com.sangupta.fileanalysis.formats.base.AbstractDelimitedFileFormatHandler;
 import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.jerry.util.ConsoleUtils;
 
 /**
  * A delimited file handler that allows for custom delimiter
@@ -38,7 +37,7 @@ public class DelimFileHandler extends AbstractDelimitedFileFormatHandler {
 	
 	@Override
 	public void readConfiguration() {
-		this.delim = ConsoleUtils.readLine("Enter the file delimiter (default comma): ", true);
+		this.delim = this.config.getString("delimiter", "Enter the file delimiter (default comma): ", null);
 		if(AssertUtils.isEmpty(delim)) {
 			this.delim = ",";
 		}
@@ -21,10 +21,7 @@
 
 package com.sangupta.fileanalysis.formats;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
+import com.sangupta.fileanalysis.TimestampParser;
 import com.sangupta.fileanalysis.formats.base.AbstractLogFileFormatHandler;
 import com.sangupta.jerry.util.AssertUtils;
 
@@ -36,11 +33,11 @@ import com.sangupta.jerry.util.AssertUtils;
  */
 public class Log4jFileHandler extends AbstractLogFileFormatHandler {
 	
-	public static final SimpleDateFormat LOG4J_DATE_FORMAT = new SimpleDateFormat("dd MMM yyyy hh:mm:ss,SSS");
+	public static final TimestampParser LOG4J_DATE_PARSER = new TimestampParser("dd MMM yyyy HH:mm:ss,SSS");
 	
 	@Override
-	protected SimpleDateFormat getDateFormat() {
-		return LOG4J_DATE_FORMAT;
+	protected TimestampParser getDateParser() {
+		return LOG4J_DATE_PARSER;
 	}
 
 	@Override
@@ -52,11 +49,7 @@ public class Log4jFileHandler extends AbstractLogFileFormatHandler {
 		int start = line.indexOf('[');
 		
 		String dateStr = line.substring(0, start).trim();
-		try {
-			record.date = LOG4J_DATE_FORMAT.parse(dateStr);
-		} catch(ParseException e) {
-			// eat up
-		}
+		record.date = getDateParser().parse(dateStr);
 		
 		int end = line.indexOf(']', start + 1);
 		record.thread = line.substring(start + 1, end);
@@ -71,18 +64,8 @@ public class Log4jFileHandler extends AbstractLogFileFormatHandler {
 		end = line.indexOf(" - ", end + 1);
 		record.clazz = line.substring(start + 1, end);
 		
-		start = end;
-		end = line.indexOf('\n', end + 1);
-		
-		start = line.indexOf('-', start) + 1;
-		if(end < 0) {
-			record.msg = line.substring(start);
-			record.error = null;
-			end = line.length();
-		} else {
-			record.msg = line.substring(start, end);
-			record.error = line.substring(end + 1);
-		}
+		start = line.indexOf('-', end) + 1;
+		record.msg = line.substring(start);
 	}
 
 	@Override
@@ -92,23 +75,17 @@ public class Log4jFileHandler extends AbstractLogFileFormatHandler {
 
 	@Override
 	protected boolean isNewLogLine(String segment) {
-		return extractDate(segment) == null ? false : true;
+		return extractDate(segment) != TimestampParser.INVALID;
 	}
 
-	private Date extractDate(String segment) {
+	private long extractDate(String segment) {
 		int start = segment.indexOf('[');
 		if(start == -1) {
-			return null;
+			return TimestampParser.INVALID;
 		}
 		
 		String dateStr = segment.substring(0, start).trim();
-		try {
-			return LOG4J_DATE_FORMAT.parse(dateStr);
-		} catch(ParseException e) {
-			// eat up
-		}
-		
-		return null;
+		return getDateParser().parseMillis(dateStr);
 	}
 
 }
\ No newline at end of file
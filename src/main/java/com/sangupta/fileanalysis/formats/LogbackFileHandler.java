@@ -21,11 +21,8 @@
 
 package com.sangupta.fileanalysis.formats;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
 import com.sangupta.fileanalysis.FileFormatHandler;
+import com.sangupta.fileanalysis.TimestampParser;
 import com.sangupta.fileanalysis.formats.base.AbstractLogFileFormatHandler;
 import com.sangupta.jerry.util.AssertUtils;
 
@@ -38,11 +35,11 @@ import com.sangupta.jerry.util.AssertUtils;
  */
 public class LogbackFileHandler extends AbstractLogFileFormatHandler {
 	
-	public static final SimpleDateFormat LOGBACK_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss,SSS");
+	public static final TimestampParser LOGBACK_DATE_PARSER = new TimestampParser("yyyy-MM-dd HH:mm:ss,SSS");
 	
 	@Override
-	protected SimpleDateFormat getDateFormat() {
-		return LOGBACK_DATE_FORMAT;
+	protected TimestampParser getDateParser() {
+		return LOGBACK_DATE_PARSER;
 	}
 
 	@Override
@@ -55,11 +52,7 @@ public class LogbackFileHandler extends AbstractLogFileFormatHandler {
 		start = line.indexOf(' ', start + 1);
 		
 		String dateStr = line.substring(0, start);
-		try {
-			record.date = LOGBACK_DATE_FORMAT.parse(dateStr);
-		} catch(ParseException e) {
-			// eat up
-		}
+		record.date = getDateParser().parse(dateStr);
 		
 		int end = line.indexOf(' ', start + 1);
 		record.level = line.substring(start + 1, end);
@@ -72,18 +65,8 @@ public class LogbackFileHandler extends AbstractLogFileFormatHandler {
 		end = line.indexOf(']', end + 1);
 		record.clazz = line.substring(line.indexOf('[', start) + 1, end);
 		
-		start = end;
-		end = line.indexOf('\n', end + 1);
-		
-		start = line.indexOf('-', start) + 1;
-		if(end < 0) {
-			record.msg = line.substring(start);
-			record.error = null;
-			end = line.length();
-		} else {
-			record.msg = line.substring(start, end);
-			record.error = line.substring(end + 1);
-		}
+		start = line.indexOf('-', end) + 1;
+		record.msg = line.substring(start);
 	}
 
 	/**
@@ -94,7 +77,7 @@ public class LogbackFileHandler extends AbstractLogFileFormatHandler {
 	 */
 	@Override
 	protected boolean isNewLogLine(String segment) {
-		return extractDate(segment) == null ? false : true;
+		return extractDate(segment) != TimestampParser.INVALID;
 	}
 	
 	/**
@@ -102,24 +85,19 @@ public class LogbackFileHandler extends AbstractLogFileFormatHandler {
 	 * @param segment
 	 * @return
 	 */
-	private Date extractDate(String segment) {
+	private long extractDate(String segment) {
 		int space = segment.indexOf(' ');
 		if(space == -1) {
-			return null;
+			return TimestampParser.INVALID;
 		}
 		
 		space = segment.indexOf(' ', space + 1);
 		if(space == -1) {
-			return null;
+			return TimestampParser.INVALID;
 		}
 		
 		String date = segment.substring(0, space);
-		try {
-			return getDateFormat().parse(date);
-		} catch(ParseException e) {
-		}
-		
-		return null;
+		return getDateParser().parseMillis(date);
 	}
 	
 	@Override
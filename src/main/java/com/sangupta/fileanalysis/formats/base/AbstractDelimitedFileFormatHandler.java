@@ -23,20 +23,18 @@ package com.sangupta.fileanalysis.formats.base;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.LineIterator;
-
 import com.sangupta.fileanalysis.db.DBColumn;
-import com.sangupta.fileanalysis.db.DBColumnType;
-import com.sangupta.fileanalysis.db.DBHelper;
 import com.sangupta.fileanalysis.db.Database;
 import com.sangupta.fileanalysis.db.DatabaseTable;
+import com.sangupta.fileanalysis.db.SchemaInference;
+import com.sangupta.fileanalysis.io.ByteSlice;
+import com.sangupta.fileanalysis.io.LineSampler;
+import com.sangupta.fileanalysis.io.MappedLineReader;
 import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.jerry.util.ConsoleUtils;
-import com.sangupta.jerry.util.StringUtils;
 
 /**
  * Base class for file format handlers where fields are terminated using a
@@ -47,11 +45,6 @@ import com.sangupta.jerry.util.StringUtils;
  */
 public abstract class AbstractDelimitedFileFormatHandler extends AbstractFileFormatHandler {
 	
-	/**
-	 * Read line by line from file
-	 */
-	private LineIterator iterator;
-	
 	/**
 	 * The database table
 	 */
@@ -61,11 +54,6 @@ public abstract class AbstractDelimitedFileFormatHandler extends AbstractFileFor
 	 * Has header row
 	 */
 	private boolean hasHeaderRow = true;
-	
-	/**
-	 * Stores the first line if needed
-	 */
-	private String firstLine;
 
 	/**
 	 * Get the delimiter string.
@@ -80,12 +68,6 @@ public abstract class AbstractDelimitedFileFormatHandler extends AbstractFileFor
 	@Override
 	public void initialize(Database database, File file) {
 		super.setDBAndFile(database, file);
-		
-		try {
-			iterator = FileUtils.lineIterator(this.file);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
 	}
 	
 	/**
@@ -93,7 +75,7 @@ public abstract class AbstractDelimitedFileFormatHandler extends AbstractFileFor
 	 */
 	@Override
 	public void readConfiguration() {
-		this.hasHeaderRow = StringUtils.getBoolean(ConsoleUtils.readLine("Data has header row (" + this.hasHeaderRow + "): ", true), this.hasHeaderRow);
+		this.hasHeaderRow = this.config.getBoolean("header", "Data has header row (" + this.hasHeaderRow + "): ", this.hasHeaderRow);
 	}
 	
 	/**
@@ -103,68 +85,173 @@ public abstract class AbstractDelimitedFileFormatHandler extends AbstractFileFor
 	public void createDBTables() {
 		this.table = new DatabaseTable("data");
 		List<DBColumn> columns = extractColumns();
+		if(columns == null) {
+			throw new RuntimeException("No data found in file");
+		}
+		
 		for(DBColumn column : columns) {
 			table.addColumn(column);
 		}
 		
-		database.dropTable(table);
-		database.createTable(table);
+		readIndexes(table);
+		
+		createTable(table);
 	}
 
 	/**
-	 * Find out the columns that are needed.
+	 * Find out the columns that are needed. Names are read from the header
+	 * row, if any, while types are inferred from a sample of the data rows.
 	 * 
 	 * @return
 	 */
 	protected List<DBColumn> extractColumns() {
-		String line = this.iterator.next();
-		if(line == null) {
+		final int headRows = this.ingestConfig.getSampleHeadRows() + (this.hasHeaderRow ? 1 : 0);
+		
+		List<String[]> rows = new ArrayList<String[]>();
+		long rest;
+		
+		MappedLineReader reader = null;
+		try {
+			reader = MappedLineReader.forHead(this.file, Charset.defaultCharset());
+			String line;
+			while(rows.size() < headRows && (line = reader.readLine()) != null) {
+				if(AssertUtils.isNotBlank(line)) {
+					rows.add(splitLine(line));
+				}
+			}
+			
+			rest = reader.getPosition();
+		} catch (IOException e) {
+			e.printStackTrace();
 			return null;
+		} finally {
+			closeQuietly(reader);
 		}
 		
-		// store first line for insertion if no header row
-		if(!this.hasHeaderRow) {
-			this.firstLine = line;
+		if(rows.isEmpty()) {
+			return null;
+		}
+		
+		String[] names = this.hasHeaderRow ? rows.remove(0) : new String[] { };
+		
+		SchemaInference inference = new SchemaInference();
+		for(String[] row : rows) {
+			inference.addRow(row);
 		}
 		
-		// parse the line
-		List<DBColumn> columns = new ArrayList<DBColumn>();
-		String[] tokens = org.apache.commons.lang3.StringUtils.splitByWholeSeparator(line, getDelimiterString());
-		for(String token : tokens) {
-			if(AssertUtils.isBlank(token)) {
-				columns.add(new DBColumn("col", DBColumnType.STRNG));
-				continue;
+		// rows spread across the rest of the file
+		if(rows.size() == this.ingestConfig.getSampleHeadRows()) {
+			int fields = Math.max(names.length, inference.getColumnCount());
+			for(String[] row : sampleRows(rest, fields)) {
+				inference.addRow(row);
 			}
-			
-			columns.add(new DBColumn(token, DBHelper.detectColumnType(token)));
 		}
 		
+		List<DBColumn> columns = inference.getColumns(names);
+		inference.printReport(columns);
 		return columns;
 	}
 	
+	/**
+	 * Read the lines at random positions after the given offset, keeping
+	 * those that have the expected number of fields.
+	 * 
+	 * @param from
+	 * @param fields
+	 * @return
+	 */
+	private List<String[]> sampleRows(long from, int fields) {
+		List<String[]> rows = new ArrayList<String[]>();
+		
+		try {
+			List<Long> starts = LineSampler.sampleLineStarts(this.file, from, this.ingestConfig.getSampleRandomRows(), this.file.length());
+			for(long start : starts) {
+				MappedLineReader reader = new MappedLineReader(this.file, start, Charset.defaultCharset());
+				try {
+					String line = reader.readLine();
+					if(AssertUtils.isNotBlank(line)) {
+						String[] row = splitLine(line);
+						if(row.length == fields) {
+							rows.add(row);
+						}
+					}
+				} finally {
+					reader.close();
+				}
+			}
+		} catch (IOException e) {
+			// go with the rows at the start of the file
+		}
+		
+		return rows;
+	}
+	
+	private String[] splitLine(String line) {
+		return org.apache.commons.lang3.StringUtils.splitByWholeSeparator(line, getDelimiterString());
+	}
+	
+	private static void closeQuietly(MappedLineReader reader) {
+		if(reader == null) {
+			return;
+		}
+		
+		try {
+			reader.close();
+		} catch (IOException e) {
+			// eat up
+		}
+	}
+	
+	/**
+	 * Find the offset in file where the data starts: the start of the file
+	 * when there is no header row, or else the line after the header, which
+	 * is the first line that is not blank as in {@link #extractColumns()}.
+	 * The offset is found for each file, as the files loaded into one table
+	 * may have a different number of blank lines ahead of their header.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private long findDataStart() throws IOException {
+		if(!this.hasHeaderRow) {
+			return 0;
+		}
+		
+		MappedLineReader reader = MappedLineReader.forHead(this.file, Charset.defaultCharset());
+		try {
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(AssertUtils.isNotBlank(line)) {
+					break;
+				}
+			}
+			
+			return reader.getPosition();
+		} finally {
+			reader.close();
+		}
+	}
+	
 	/**
 	 * Load the file
 	 */
 	@Override
 	public void loadFile() throws IOException {
-		String[] lineItems;
-		String line;
-		
-		if(firstLine != null) {
-			lineItems = org.apache.commons.lang3.StringUtils.splitByWholeSeparator(firstLine, getDelimiterString());
-			insertRow(this.table, lineItems);
-		}
+		long dataStart = findDataStart();
+		final byte[] delimiter = getDelimiterString().getBytes(Charset.defaultCharset());
 		
-		while(iterator.hasNext()) {
-			line = iterator.next();
+		loadChunks(this.table, dataStart, new LineChunkParser(this.file) {
 			
-			if(AssertUtils.isBlank(line)) {
-				continue;
+			@Override
+			protected Object[] parseLine(ByteSlice line) {
+				if(line.isBlank()) {
+					return null;
+				}
+				
+				return line.splitByWholeSeparator(delimiter);
 			}
 			
-			lineItems = org.apache.commons.lang3.StringUtils.splitByWholeSeparator(line, getDelimiterString());
-			insertRow(this.table, lineItems);
-		}
+		});
 	}
 	
 }
\ No newline at end of file
@@ -22,21 +22,37 @@
 package com.sangupta.fileanalysis.formats.base;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import com.sangupta.fileanalysis.AnalysisConfig;
 import com.sangupta.fileanalysis.FileFormatHandler;
 import com.sangupta.fileanalysis.db.DBColumn;
 import com.sangupta.fileanalysis.db.DBColumnType;
 import com.sangupta.fileanalysis.db.Database;
 import com.sangupta.fileanalysis.db.DatabaseTable;
+import com.sangupta.fileanalysis.ingest.IngestConfig;
+import com.sangupta.fileanalysis.ingest.IngestPipeline;
+import com.sangupta.fileanalysis.io.ByteSlice;
+import com.sangupta.fileanalysis.io.FileChunk;
+import com.sangupta.fileanalysis.io.MappedLineReader;
 import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.jerry.util.ConsoleUtils;
 
 /**
  * 
  * @author sangupta
  *
  */
-public abstract class AbstractFileFormatHandler implements FileFormatHandler {
+public abstract class AbstractFileFormatHandler implements FileFormatHandler, Cloneable {
+	
+	/**
+	 * Name of the column that holds the file a row was loaded from
+	 */
+	public static final String SOURCE_COLUMN = "source_file";
 	
 	/**
 	 * The database we are connected to
@@ -48,6 +64,26 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 	 */
 	protected File file;
 	
+	/**
+	 * Configuration of the read, parse and write stages used during load
+	 */
+	protected IngestConfig ingestConfig = new IngestConfig();
+	
+	/**
+	 * Offset in file up to which the data has been loaded
+	 */
+	protected long loadedOffset;
+	
+	/**
+	 * Whether the tables have a column for the file each row came from
+	 */
+	protected boolean sourceColumn;
+	
+	/**
+	 * The choices made by the user, asked for when interactive
+	 */
+	protected AnalysisConfig config = AnalysisConfig.interactive();
+	
 	/**
 	 * Initialize 
 	 * 
@@ -57,6 +93,48 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 	public void setDBAndFile(Database database, File file) {
 		this.database = database;
 		this.file = file;
+		
+		// time of all stages is counted together with that of the writes
+		this.ingestConfig.setStats(database.getIngestStats());
+	}
+	
+	/**
+	 * Create the table, replacing any existing table of the same name,
+	 * unless loading resumes from an offset past the start of the file
+	 * in which case the existing rows are kept.
+	 * 
+	 * @param table
+	 */
+	protected void createTable(DatabaseTable table) {
+		if(this.sourceColumn && !table.hasColumn(SOURCE_COLUMN)) {
+			table.addColumn(SOURCE_COLUMN, DBColumnType.STRNG);
+			table.addIndex(SOURCE_COLUMN);
+		}
+		
+		applyColumnTypes(table);
+		
+		if(this.loadedOffset == 0) {
+			this.database.dropTable(table);
+		}
+		
+		this.database.createTable(table);
+	}
+	
+	/**
+	 * Replace the types of the columns by those chosen by the user, if any,
+	 * such as for the columns whose type was inferred wrongly.
+	 * 
+	 * @param table
+	 */
+	private void applyColumnTypes(DatabaseTable table) {
+		List<DBColumn> columns = table.getColumns();
+		for(int index = 0; index < columns.size(); index++) {
+			DBColumn column = columns.get(index);
+			DBColumnType type = this.config.getColumnType(column.name);
+			if(type != null && type != column.columnType) {
+				columns.set(index, new DBColumn(column.name, type));
+			}
+		}
 	}
 	
 	/**
@@ -68,6 +146,31 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 		// do nothing
 	}
 	
+	/**
+	 * Read the first line of the file.
+	 * 
+	 * @return the line, or <code>null</code> if the file is empty or cannot
+	 *         be read
+	 */
+	protected String readFirstLine() {
+		MappedLineReader reader = null;
+		try {
+			reader = MappedLineReader.forHead(this.file, Charset.defaultCharset());
+			return reader.readLine();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if(reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// eat up
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Insert data as a row into the database for the given table.
 	 * 
@@ -87,6 +190,11 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 					allBlank = false;
 					break;
 				}
+			} else if(item instanceof ByteSlice) {
+				if(!((ByteSlice) item).isBlank()) {
+					allBlank = false;
+					break;
+				}
 			} else {
 				if(item != null) {
 					allBlank = false;
@@ -99,19 +207,239 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 			return;
 		}
 		
+		if(this.sourceColumn) {
+			// the source is the last column: short rows are padded with
+			// nulls, while rows with more values than the data columns are
+			// kept whole, and rejected when inserted
+			int source = table.getColumns().size() - 1;
+			row = Arrays.copyOf(row, Math.max(row.length, source) + 1);
+			row[row.length - 1] = this.file.getPath();
+		}
+		
 		// insert the row
 		this.database.insertRecord(table, row);
 	}
 	
 	/**
-	 * Read {@link DBColumn} details from the command line.
+	 * Insert all given rows into the database for the given table.
+	 * 
+	 * @param table
+	 * @param rows
+	 */
+	protected void insertRows(DatabaseTable table, List<Object[]> rows) {
+		for(Object[] row : rows) {
+			insertRow(table, row);
+		}
+	}
+	
+	/**
+	 * Load the file starting at the given offset through the
+	 * {@link IngestPipeline}: line-aligned chunks are read ahead and parsed
+	 * in parallel, while rows are inserted into the table on the calling
+	 * thread, chunk after chunk, so that the order of rows in the table is
+	 * the same as that in the file.
+	 * 
+	 * @param table
+	 *            the table to insert the rows in
+	 * 
+	 * @param dataStart
+	 *            the offset in file where the data starts
+	 * 
+	 * @param parser
+	 *            the parser to convert a chunk into rows
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadChunks(DatabaseTable table, long dataStart, ChunkParser parser) throws IOException {
+		loadChunks(table, dataStart, this.file.length(), parser);
+	}
+	
+	/**
+	 * Load the given range of the file in the same way as
+	 * {@link #loadChunks(DatabaseTable, long, ChunkParser)}.
+	 * 
+	 * @param table
+	 *            the table to insert the rows in
+	 * 
+	 * @param from
+	 *            the offset in file to start at
+	 * 
+	 * @param to
+	 *            the offset in file to stop at, which must be the start of a
+	 *            line or the end of the file
+	 * 
+	 * @param parser
+	 *            the parser to convert a chunk into rows
+	 * 
+	 * @throws IOException
+	 */
+	protected void loadChunks(final DatabaseTable table, long from, long to, final ChunkParser parser) throws IOException {
+		this.database.setBatchSize(this.ingestConfig.getWriteBatchSize());
+		
+		new IngestPipeline<List<Object[]>>(this.ingestConfig) {
+			
+			@Override
+			protected List<Object[]> process(FileChunk chunk) throws IOException {
+				List<Object[]> rows = new ArrayList<Object[]>();
+				parser.parseChunk(chunk, rows);
+				return rows;
+			}
+			
+			@Override
+			protected void consume(FileChunk chunk, List<Object[]> rows) {
+				insertRows(table, rows);
+			}
+			
+		}.execute(this.file, from, to);
+		
+		this.loadedOffset = to;
+	}
+	
+	/**
+	 * Load the complete lines appended to the file since the last load. A
+	 * line still being written, without its terminator, is left for the
+	 * next call. Log writers write a record in one go, so a load that stops
+	 * at a complete line also stops at the end of a record.
+	 * 
+	 * @param table
+	 * @param parser
+	 * @throws IOException
+	 */
+	protected void loadAppended(DatabaseTable table, ChunkParser parser) throws IOException {
+		long to = findLastLineEnd(this.loadedOffset);
+		if(to <= this.loadedOffset) {
+			return;
+		}
+		
+		loadChunks(table, this.loadedOffset, to, parser);
+	}
+	
+	/**
+	 * Remove all rows from the table and start loading from the beginning
+	 * of the file again.
+	 * 
+	 * @param table
+	 */
+	protected void clearData(DatabaseTable table) {
+		this.database.truncateTable(table);
+		this.loadedOffset = 0;
+	}
+	
+	/**
+	 * Find the offset just after the last line terminator in the file, by
+	 * scanning backwards from its end.
+	 * 
+	 * @param from
+	 *            the offset to stop scanning at
+	 * 
+	 * @return the offset, or <code>from</code> if no complete line follows it
+	 * @throws IOException
+	 */
+	protected long findLastLineEnd(long from) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "r");
+		try {
+			final long length = randomAccessFile.length();
+			byte[] buffer = new byte[8 * 1024];
+			
+			long end = length;
+			while(end > from) {
+				int read = (int) Math.min(buffer.length, end - from);
+				long start = end - read;
+				randomAccessFile.seek(start);
+				randomAccessFile.readFully(buffer, 0, read);
+				
+				for(int index = read - 1; index >= 0; index--) {
+					long offset = start + index + 1;
+					if(buffer[index] == '\n') {
+						return offset;
+					}
+					
+					// a trailing \r may yet be followed by \n
+					if(buffer[index] == '\r' && offset < length) {
+						return offset;
+					}
+				}
+				
+				end = start;
+			}
+			
+			return from;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+	
+	/**
+	 * Create a copy of this handler for the given file. The copy shares the
+	 * configuration read and the tables created by this handler, and a share
+	 * of its threads.
+	 */
+	@Override
+	public FileFormatHandler forFile(File file, int ways) {
+		AbstractFileFormatHandler handler;
+		try {
+			handler = (AbstractFileFormatHandler) clone();
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException("Unable to copy file format handler", e);
+		}
+		
+		handler.file = file;
+		handler.loadedOffset = 0;
+		handler.ingestConfig = this.ingestConfig.share(ways);
+		return handler;
+	}
+	
+	/**
+	 * Declare the indexes to be built on the table after the data has been
+	 * loaded. The user may accept the given defaults, or list the columns to
+	 * index instead.
+	 * 
+	 * @param table
+	 * @param defaults
+	 *            the columns indexed by default
+	 */
+	protected void readIndexes(DatabaseTable table, String... defaults) {
+		List<String> columns = new ArrayList<String>();
+		for(String column : defaults) {
+			if(table.hasColumn(column)) {
+				columns.add(column);
+			}
+		}
+		
+		String current = columns.isEmpty() ? "none" : org.apache.commons.lang3.StringUtils.join(columns, ",");
+		String input = this.config.getString("indexes", "Columns to index, comma separated or none (" + current + "): ", null);
+		if(AssertUtils.isNotBlank(input)) {
+			columns.clear();
+			if(!"none".equalsIgnoreCase(input.trim())) {
+				for(String column : input.split(",")) {
+					columns.add(column.trim());
+				}
+			}
+		}
+		
+		for(String column : columns) {
+			if(!table.addIndex(column)) {
+				System.out.println("No column named " + column + " - skipping index");
+			}
+		}
+	}
+	
+	/**
+	 * Read {@link DBColumn} details from the command line, or from the
+	 * <code>column.&lt;position&gt;</code> choice when not interactive.
+	 * 
+	 * @param position
+	 *            the position of the field, starting with 1
 	 * 
 	 * @param token
 	 * @return
 	 */
-	protected DBColumn getDBColumnFromUser(String token) {
-		System.out.println("Valid column types: int, long, date, str, text");
-		String colNameType = ConsoleUtils.readLine("Column name and type for (" + token + "): ", true);
+	protected DBColumn getDBColumnFromUser(int position, String token) {
+		if(this.config.isInteractive()) {
+			System.out.println("Valid column types: int, long, date, str, text");
+		}
+		
+		String colNameType = this.config.getString("column." + position, "Column name and type for (" + token + "): ", null);
 		
 		if(AssertUtils.isNotEmpty(colNameType)) {
 			String[] split = colNameType.split(",");
@@ -125,4 +453,41 @@ public abstract class AbstractFileFormatHandler implements FileFormatHandler {
 		
 		return null;
 	}
+	
+	// Usual accessors follow
+	
+	public long getLoadedOffset() {
+		return loadedOffset;
+	}
+	
+	public void setLoadedOffset(long loadedOffset) {
+		this.loadedOffset = loadedOffset;
+	}
+	
+	public boolean isSourceColumn() {
+		return sourceColumn;
+	}
+	
+	@Override
+	public void setSourceColumn(boolean sourceColumn) {
+		this.sourceColumn = sourceColumn;
+	}
+	
+	public AnalysisConfig getConfig() {
+		return config;
+	}
+	
+	@Override
+	public void setConfig(AnalysisConfig config) {
+		this.config = config;
+	}
+	
+	public IngestConfig getIngestConfig() {
+		return ingestConfig;
+	}
+
+	public void setIngestConfig(IngestConfig ingestConfig) {
+		this.ingestConfig = ingestConfig;
+	}
+	
 }
\ No newline at end of file
@@ -23,17 +23,22 @@ package com.sangupta.fileanalysis.formats.base;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.LineIterator;
-
+import com.sangupta.fileanalysis.FollowableFileFormatHandler;
+import com.sangupta.fileanalysis.MergeableFileFormatHandler;
+import com.sangupta.fileanalysis.TimestampParser;
 import com.sangupta.fileanalysis.db.DBColumnType;
 import com.sangupta.fileanalysis.db.Database;
 import com.sangupta.fileanalysis.db.DatabaseTable;
-import com.sangupta.jerry.util.ConsoleUtils;
-import com.sangupta.jerry.util.StringUtils;
+import com.sangupta.fileanalysis.ingest.IngestConfig;
+import com.sangupta.fileanalysis.ingest.IngestPipeline;
+import com.sangupta.fileanalysis.ingest.TimeOrderedMerge;
+import com.sangupta.fileanalysis.io.MappedLineReader;
+import com.sangupta.fileanalysis.io.FileChunk;
 
 /**
  * Abstract handler for all application log files. Provides generic contract
@@ -42,13 +47,8 @@ import com.sangupta.jerry.util.StringUtils;
  * @author sangupta
  *
  */
-public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHandler {
+public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHandler implements FollowableFileFormatHandler, MergeableFileFormatHandler {
 
-	/**
-	 * Read line by line from file
-	 */
-	private LineIterator iterator;
-	
 	/**
 	 * The database table
 	 */
@@ -65,16 +65,22 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 	private boolean skipDebugLevel = false;
 	
 	/**
-	 * Get the date format for the line.
+	 * Get the parser for the date of the line. As lines are parsed on
+	 * multiple threads, the parser returned must be thread-safe.
 	 * 
 	 * @return
 	 */
-	protected abstract SimpleDateFormat getDateFormat();
+	protected abstract TimestampParser getDateParser();
 	
 	/**
-	 * Parse the record line and fill the {@link LogRecord} object.
+	 * Parse the first line of the record and fill the {@link LogRecord}
+	 * object. The lines that follow are set as the error of the record
+	 * by the caller. May be called concurrently from multiple threads with
+	 * different records.
 	 * 
 	 * @param line
+	 *            the first line, or <code>null</code> if none
+	 * 
 	 * @param record
 	 */
 	protected abstract void parseRecord(String line, LogRecord record);
@@ -93,12 +99,6 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 	@Override
 	public void initialize(Database database, File file) {
 		super.setDBAndFile(database, file);
-		
-		try {
-			iterator = FileUtils.lineIterator(this.file);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
 	}
 	
 	/**
@@ -106,8 +106,8 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 	 */
 	@Override
 	public void readConfiguration() {
-		this.storeLongMessages = StringUtils.getBoolean(ConsoleUtils.readLine("Store long error messages (" + this.storeLongMessages + "): ", true), this.storeLongMessages);
-		this.skipDebugLevel = StringUtils.getBoolean(ConsoleUtils.readLine("Skip debug level messages (" + this.skipDebugLevel + "): ", true), this.skipDebugLevel);
+		this.storeLongMessages = this.config.getBoolean("long.messages", "Store long error messages (" + this.storeLongMessages + "): ", this.storeLongMessages);
+		this.skipDebugLevel = this.config.getBoolean("skip.debug", "Skip debug level messages (" + this.skipDebugLevel + "): ", this.skipDebugLevel);
 	}
 
 	/**
@@ -126,8 +126,9 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 		table.addColumn("message", DBColumnType.TEXT);
 		table.addColumn("error", DBColumnType.TEXT);
 		
-		this.database.dropTable(table);
-		this.database.createTable(table);
+		readIndexes(table, "date", "level", "class");
+		
+		createTable(table);
 	}
 
 	/**
@@ -135,32 +136,165 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 	 */
 	@Override
 	public void loadFile() throws IOException {
-		String line = null;
+		loadChunks(this.table, 0, getRecordParser());
+	}
+	
+	/**
+	 * Load the log records of all given files merged in the order of their
+	 * dates. Each file is streamed through a pipeline of its own, sharing
+	 * the threads of this handler's configuration, while the records are
+	 * merged through a heap and written one at a time.
+	 */
+	@Override
+	public void loadMerged(List<File> files) throws IOException {
+		final List<AbstractLogFileFormatHandler> handlers = new ArrayList<AbstractLogFileFormatHandler>();
+		for(File file : files) {
+			handlers.add(file.equals(this.file) ? this : (AbstractLogFileFormatHandler) forFile(file, files.size()));
+		}
 		
-		LogRecord record = new LogRecord();
+		final IngestConfig config = this.ingestConfig.share(files.size());
+		this.database.setBatchSize(config.getWriteBatchSize());
 		
-		while(iterator.hasNext()) {
-			String segment = iterator.next();
+		new TimeOrderedMerge(files.size()) {
 			
-			if(isSkipLine(segment)) {
-				parseRecord(line, record);
-				insertRecord(record);
-				line = null;
-				continue;
+			@Override
+			protected void read(final int source) throws IOException {
+				final AbstractLogFileFormatHandler handler = handlers.get(source);
+				final ChunkParser parser = handler.getRecordParser();
+				
+				new IngestPipeline<List<Object[]>>(config) {
+					
+					@Override
+					protected List<Object[]> process(FileChunk chunk) throws IOException {
+						List<Object[]> rows = new ArrayList<Object[]>();
+						parser.parseChunk(chunk, rows);
+						return rows;
+					}
+					
+					@Override
+					protected void consume(FileChunk chunk, List<Object[]> rows) throws IOException {
+						emit(source, rows);
+					}
+					
+				}.execute(handler.file, 0);
 			}
 			
-			if(isNewLogLine(segment)) {
-				parseRecord(line, record);
-				insertRecord(record);
-				line = segment;
-				continue;
+			@Override
+			protected long getTime(Object[] row) {
+				Date date = (Date) row[0];
+				return date == null ? NO_TIME : date.getTime();
 			}
 			
-			if(line == null) {
-				line = segment;
-			} else {
-				line = line + "\n" + segment;
+			@Override
+			protected void consume(int source, Object[] row) {
+				AbstractLogFileFormatHandler handler = handlers.get(source);
+				handler.insertRow(handler.table, row);
 			}
+			
+		}.execute();
+		
+		for(AbstractLogFileFormatHandler handler : handlers) {
+			handler.loadedOffset = handler.file.length();
+		}
+	}
+	
+	/**
+	 * Load the log records appended since the last load
+	 */
+	@Override
+	public void loadAppended() throws IOException {
+		loadAppended(this.table, getRecordParser());
+	}
+	
+	/**
+	 * Remove all loaded log records
+	 */
+	@Override
+	public void clearData() {
+		clearData(this.table);
+	}
+	
+	/**
+	 * Get the parser for the log records in a chunk of this handler's file.
+	 * 
+	 * @return
+	 */
+	private ChunkParser getRecordParser() {
+		return new ChunkParser() {
+			
+			@Override
+			public void parseChunk(FileChunk chunk, List<Object[]> rows) throws IOException {
+				parseRecords(chunk, rows);
+			}
+			
+		};
+	}
+	
+	/**
+	 * Parse all log records that start in the given chunk. Lines at the
+	 * beginning of the chunk that continue a record from the previous chunk
+	 * are skipped, and the last record is read past the end of the chunk
+	 * till it completes, or till the limit of the chunk, where it is counted
+	 * as cut short when the chunk is {@link FileChunk#truncated}.
+	 * 
+	 * @param chunk
+	 * @param rows
+	 * @throws IOException
+	 */
+	private void parseRecords(FileChunk chunk, List<Object[]> rows) throws IOException {
+		MappedLineReader reader = MappedLineReader.forChunk(this.file, chunk, chunk.start, Charset.defaultCharset());
+		try {
+			RecordBuffer lines = new RecordBuffer();
+			LogRecord record = new LogRecord();
+			boolean skipping = !chunk.isFirst();
+			
+			String segment;
+			while((segment = reader.readLine()) != null) {
+				boolean pastChunk = reader.getLineStart() >= chunk.end;
+				
+				if(isSkipLine(segment)) {
+					addRecord(lines, record, rows);
+					skipping = false;
+					
+					if(pastChunk) {
+						break;
+					}
+					
+					continue;
+				}
+				
+				if(isNewLogLine(segment)) {
+					if(pastChunk) {
+						// belongs to the next chunk
+						break;
+					}
+					
+					addRecord(lines, record, rows);
+					lines.append(segment);
+					skipping = false;
+					continue;
+				}
+				
+				if(skipping) {
+					// continuation of a record from previous chunk
+					continue;
+				}
+				
+				if(lines.isEmpty() && pastChunk) {
+					break;
+				}
+				
+				lines.append(segment);
+			}
+			
+			if(segment == null && !lines.isEmpty() && chunk.truncated) {
+				// the record may go on past the look ahead
+				this.ingestConfig.getStats().addTruncated(1);
+			}
+			
+			addRecord(lines, record, rows);
+		} finally {
+			reader.close();
 		}
 	}
 	
@@ -173,18 +307,48 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 	protected abstract boolean isNewLogLine(String segment);
 
 	/**
-	 * Insert record in DB
+	 * Parse the record collected and add the resulting row to the list. The
+	 * first line is parsed by {@link #parseRecord(String, LogRecord)}, and
+	 * the lines that follow, such as a stack trace, make the error.
 	 * 
-	 * @param line
+	 * @param lines
+	 * @param record
+	 * @param rows
+	 */
+	private void addRecord(RecordBuffer lines, LogRecord record, List<Object[]> rows) {
+		if(lines.isEmpty()) {
+			parseRecord(null, record);
+		} else {
+			parseRecord(lines.getSegments(0, 1), record);
+			if(this.storeLongMessages) {
+				record.error = lines.getSegments(1, lines.getSegmentCount());
+			}
+			
+			lines.clear();
+		}
+		
+		Object[] row = toRow(record);
+		record.reset();
+		
+		if(row != null) {
+			rows.add(row);
+		}
+	}
+
+	/**
+	 * Convert the record into a DB row
+	 * 
+	 * @param record
+	 * @return the row, or <code>null</code> if the record is to be skipped
 	 */
-	private void insertRecord(LogRecord record) {
+	private Object[] toRow(LogRecord record) {
 		if(record.msg == null && record.thread == null && record.date == null) {
-			return;
+			return null;
 		}
 		
 		if(skipDebugLevel) {
 			if("DEBUG".equals(record.level)) {
-				return;
+				return null;
 			}
 		}
 		
@@ -206,9 +370,7 @@ public abstract class AbstractLogFileFormatHandler extends AbstractFileFormatHan
 			record.level = record.level.trim();
 		}
 		
-		this.insertRow(table, new Object[] { record.date, record.level, record.thread, record.clazz, record.lineNumber, record.msg, record.message, record.error });
-		
-		record.reset();
+		return new Object[] { record.date, record.level, record.thread, record.clazz, record.lineNumber, record.msg, record.message, record.error };
 	}
 	
 	/**
@@ -0,0 +1,52 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats.base;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.sangupta.fileanalysis.io.FileChunk;
+
+/**
+ * Parses the records that start within a {@link FileChunk} into database
+ * rows. Implementations are invoked concurrently from multiple threads, one
+ * chunk per thread, and thus must not share mutable state between calls.
+ * 
+ * @author sangupta
+ *
+ */
+public interface ChunkParser {
+	
+	/**
+	 * Parse all records that start in the given chunk.
+	 * 
+	 * @param chunk
+	 *            the chunk to parse
+	 * 
+	 * @param rows
+	 *            the list to which the parsed rows are added in file order
+	 * 
+	 * @throws IOException
+	 */
+	public void parseChunk(FileChunk chunk, List<Object[]> rows) throws IOException;
+	
+}
\ No newline at end of file
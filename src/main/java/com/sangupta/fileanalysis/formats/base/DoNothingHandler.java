@@ -23,6 +23,7 @@ package com.sangupta.fileanalysis.formats.base;
 
 import java.io.File;
 
+import com.sangupta.fileanalysis.AnalysisConfig;
 import com.sangupta.fileanalysis.FileFormatHandler;
 import com.sangupta.fileanalysis.db.Database;
 
@@ -55,4 +56,19 @@ public class DoNothingHandler implements FileFormatHandler {
 		// do nothing
 	}
 
+	@Override
+	public void setSourceColumn(boolean sourceColumn) {
+		// do nothing
+	}
+
+	@Override
+	public void setConfig(AnalysisConfig config) {
+		// do nothing
+	}
+
+	@Override
+	public FileFormatHandler forFile(File file, int ways) {
+		return this;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.sangupta.fileanalysis.io.ByteSlice;
+import com.sangupta.fileanalysis.io.FileChunk;
+import com.sangupta.fileanalysis.io.MappedLineReader;
+
+/**
+ * A {@link ChunkParser} for formats where every line of the file makes
+ * one row in the database.
+ * 
+ * @author sangupta
+ *
+ */
+public abstract class LineChunkParser implements ChunkParser {
+	
+	protected final File file;
+	
+	public LineChunkParser(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Convert one line of the file into a database row. Values in the row
+	 * may be {@link ByteSlice}s of the line, which are decoded only when
+	 * bound to the database.
+	 * 
+	 * @param line
+	 * @return the row, or <code>null</code> if the line needs to be skipped
+	 */
+	protected abstract Object[] parseLine(ByteSlice line);
+	
+	@Override
+	public void parseChunk(FileChunk chunk, List<Object[]> rows) throws IOException {
+		MappedLineReader reader = MappedLineReader.forChunk(this.file, chunk, chunk.start, Charset.defaultCharset());
+		try {
+			ByteSlice line;
+			while(reader.getPosition() < chunk.end && (line = reader.nextLine()) != null) {
+				Object[] row = parseLine(line);
+				if(row != null) {
+					rows.add(row);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats.base;
+
+import java.util.Arrays;
+
+/**
+ * Collects the lines, or segments, of a multi-line record such as a log
+ * message followed by a stack trace. Segments are appended to a buffer that
+ * is reused across records, and the start and end of each is recorded, so
+ * that building a record takes time linear in its length, and parts of it
+ * are copied out only once the record is complete.
+ * 
+ * @author sangupta
+ *
+ */
+class RecordBuffer {
+	
+	/**
+	 * Capacity beyond which the buffer is released after a record, so that
+	 * one huge record does not hold on to memory
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+	
+	private final StringBuilder builder = new StringBuilder(1024);
+	
+	/**
+	 * End offset of each segment in the buffer
+	 */
+	private int[] ends = new int[16];
+	
+	private int segments;
+	
+	/**
+	 * Append a segment to the record, separated from the previous one by a
+	 * new line.
+	 * 
+	 * @param segment
+	 */
+	public void append(String segment) {
+		if(this.segments > 0) {
+			this.builder.append('\n');
+		}
+		
+		this.builder.append(segment);
+		
+		if(this.segments == this.ends.length) {
+			this.ends = Arrays.copyOf(this.ends, this.ends.length * 2);
+		}
+		
+		this.ends[this.segments++] = this.builder.length();
+	}
+	
+	/**
+	 * Copy the given segments out of the buffer, joined by new lines.
+	 * 
+	 * @param from
+	 *            the first segment, inclusive
+	 * 
+	 * @param to
+	 *            the last segment, exclusive
+	 * 
+	 * @return
+	 */
+	public String getSegments(int from, int to) {
+		if(from >= to) {
+			return null;
+		}
+		
+		return this.builder.substring(getSegmentStart(from), getSegmentEnd(to - 1));
+	}
+	
+	public int getSegmentStart(int segment) {
+		return segment == 0 ? 0 : this.ends[segment - 1] + 1;
+	}
+	
+	public int getSegmentEnd(int segment) {
+		return this.ends[segment];
+	}
+	
+	/**
+	 * Start a new record.
+	 * 
+	 */
+	public void clear() {
+		this.builder.setLength(0);
+		this.segments = 0;
+		
+		if(this.builder.capacity() > MAX_RETAINED_CAPACITY) {
+			this.builder.trimToSize();
+		}
+	}
+	
+	public boolean isEmpty() {
+		return this.segments == 0;
+	}
+	
+	// Usual accessors follow
+	
+	public int getSegmentCount() {
+		return this.segments;
+	}
+	
+}
@@ -0,0 +1,222 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.ingest;
+
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.io.FileChunker;
+
+/**
+ * Configuration of the stages of the {@link IngestPipeline}.
+ * 
+ * @author sangupta
+ *
+ */
+public class IngestConfig {
+	
+	/**
+	 * Smallest chunk size of a pipeline that shares the configuration
+	 */
+	private static final long MIN_SHARED_CHUNK_SIZE = 1024l * 1024l;
+	
+	/**
+	 * Approximate size of the chunk of file read and parsed as one unit
+	 */
+	private long chunkSize = FileChunker.DEFAULT_CHUNK_SIZE;
+	
+	/**
+	 * Whether the read stage reads a chunk ahead into the page cache before
+	 * it is handed to the parsers
+	 */
+	private boolean prefetch = true;
+	
+	/**
+	 * Number of threads that parse chunks
+	 */
+	private int parseThreads = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Number of threads that decompress the members of a gzip file made of
+	 * several members
+	 */
+	private int decompressThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	
+	/**
+	 * Maximum number of chunks read or parsed ahead of the one being written
+	 */
+	private int queueCapacity = 2 * Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Number of rows sent to the database in one batch and commit
+	 */
+	private int writeBatchSize = Database.DEFAULT_BATCH_SIZE;
+	
+	/**
+	 * Number of rows from the start of the file sampled to infer the types
+	 * of columns
+	 */
+	private int sampleHeadRows = 1000;
+	
+	/**
+	 * Number of rows from random positions in the rest of the file sampled
+	 * to infer the types of columns
+	 */
+	private int sampleRandomRows = 1000;
+	
+	/**
+	 * Counters the pipelines add the bytes read and the time of each stage
+	 * to
+	 */
+	private IngestStats stats = new IngestStats();
+	
+	/**
+	 * Create a configuration for one of the given number of pipelines that
+	 * run at the same time, such as one per file being merged. The threads
+	 * and the chunks held in memory are divided between the pipelines.
+	 * 
+	 * @param ways
+	 *            the number of pipelines
+	 * 
+	 * @return
+	 */
+	public IngestConfig share(int ways) {
+		IngestConfig config = new IngestConfig();
+		
+		config.chunkSize = Math.min(this.chunkSize, Math.max(MIN_SHARED_CHUNK_SIZE, this.chunkSize / ways));
+		config.prefetch = this.prefetch;
+		config.parseThreads = Math.max(1, this.parseThreads / ways);
+		config.decompressThreads = Math.max(1, this.decompressThreads / ways);
+		config.queueCapacity = Math.max(1, this.queueCapacity / ways);
+		config.writeBatchSize = this.writeBatchSize;
+		config.sampleHeadRows = this.sampleHeadRows;
+		config.sampleRandomRows = this.sampleRandomRows;
+		config.stats = this.stats;
+		
+		return config;
+	}
+	
+	// Usual accessors follow
+	
+	public long getChunkSize() {
+		return chunkSize;
+	}
+	
+	public void setChunkSize(long chunkSize) {
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least one byte");
+		}
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	public boolean isPrefetch() {
+		return prefetch;
+	}
+	
+	public void setPrefetch(boolean prefetch) {
+		this.prefetch = prefetch;
+	}
+	
+	public int getParseThreads() {
+		return parseThreads;
+	}
+	
+	public void setParseThreads(int parseThreads) {
+		if(parseThreads < 1) {
+			throw new IllegalArgumentException("At least one parse thread is needed");
+		}
+		
+		this.parseThreads = parseThreads;
+	}
+	
+	public int getDecompressThreads() {
+		return decompressThreads;
+	}
+	
+	public void setDecompressThreads(int decompressThreads) {
+		if(decompressThreads < 1) {
+			throw new IllegalArgumentException("At least one decompress thread is needed");
+		}
+		
+		this.decompressThreads = decompressThreads;
+	}
+	
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	public void setQueueCapacity(int queueCapacity) {
+		if(queueCapacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be at least one");
+		}
+		
+		this.queueCapacity = queueCapacity;
+	}
+	
+	public int getWriteBatchSize() {
+		return writeBatchSize;
+	}
+	
+	public void setWriteBatchSize(int writeBatchSize) {
+		if(writeBatchSize < 1) {
+			throw new IllegalArgumentException("Write batch size must be at least one");
+		}
+		
+		this.writeBatchSize = writeBatchSize;
+	}
+	
+	public int getSampleHeadRows() {
+		return sampleHeadRows;
+	}
+	
+	public void setSampleHeadRows(int sampleHeadRows) {
+		if(sampleHeadRows < 0) {
+			throw new IllegalArgumentException("Sample rows cannot be negative");
+		}
+		
+		this.sampleHeadRows = sampleHeadRows;
+	}
+	
+	public int getSampleRandomRows() {
+		return sampleRandomRows;
+	}
+	
+	public void setSampleRandomRows(int sampleRandomRows) {
+		if(sampleRandomRows < 0) {
+			throw new IllegalArgumentException("Sample rows cannot be negative");
+		}
+		
+		this.sampleRandomRows = sampleRandomRows;
+	}
+	
+	public IngestStats getStats() {
+		return stats;
+	}
+	
+	public void setStats(IngestStats stats) {
+		if(stats == null) {
+			throw new IllegalArgumentException("Stats cannot be null");
+		}
+		
+		this.stats = stats;
+	}
+	
+}
\ No newline at end of file
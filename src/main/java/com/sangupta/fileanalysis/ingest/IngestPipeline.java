@@ -0,0 +1,447 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sangupta.fileanalysis.io.ChunkSource;
+import com.sangupta.fileanalysis.io.Compression;
+import com.sangupta.fileanalysis.io.FileChunk;
+import com.sangupta.fileanalysis.io.FileChunker;
+import com.sangupta.fileanalysis.io.StreamChunker;
+import com.sangupta.fileanalysis.jfr.JfrEvents;
+import com.sangupta.fileanalysis.jfr.ParseEvent;
+
+/**
+ * Loads a file through three pipelined stages, so that reading, parsing and
+ * writing to the database overlap instead of adding up:
+ * 
+ * <ul>
+ * <li><b>read</b> - a reader thread splits the file into line aligned
+ * chunks, reads them ahead into the page cache of the operating system and
+ * hands them to the parsers. A compressed file is decompressed as a stream
+ * by the reader thread, and its chunks carry their decompressed bytes.</li>
+ * <li><b>parse</b> - a pool of threads converts each chunk into a batch of
+ * rows</li>
+ * <li><b>write</b> - the calling thread binds and writes the batches to the
+ * database in file order</li>
+ * </ul>
+ * 
+ * The stages are connected by a bounded queue of batches: when the writer
+ * falls behind, the queue fills up and the reader waits, which keeps the
+ * memory used in check.
+ * 
+ * The bytes read and the time spent in each stage are added to the
+ * {@link IngestStats} of the configuration, and the parsing of each chunk
+ * is recorded as a {@link ParseEvent} for Java Flight Recorder.
+ * 
+ * @author sangupta
+ *
+ * @param <T>
+ *            the batch produced by parsing one chunk
+ */
+public abstract class IngestPipeline<T> {
+	
+	/**
+	 * Bytes read at a time when prefetching a chunk
+	 */
+	private static final int PREFETCH_BUFFER_SIZE = 256 * 1024;
+	
+	/**
+	 * Marks the end of chunks in the queue
+	 */
+	private final ParsedChunk<T> endOfFile = new ParsedChunk<T>(null, null);
+	
+	protected final IngestConfig config;
+	
+	/**
+	 * Error raised in the read stage, if any
+	 */
+	private volatile Throwable readError;
+	
+	public IngestPipeline(IngestConfig config) {
+		this.config = config;
+	}
+	
+	/**
+	 * Parse the chunk into a batch. Invoked on a parse thread.
+	 * 
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 */
+	protected abstract T process(FileChunk chunk) throws IOException;
+	
+	/**
+	 * Write the batch parsed from the chunk. Invoked on the calling thread,
+	 * one chunk after the other in file order.
+	 * 
+	 * @param chunk
+	 * @param batch
+	 * @throws IOException
+	 */
+	protected abstract void consume(FileChunk chunk, T batch) throws IOException;
+	
+	/**
+	 * Run the file through the pipeline starting at the given offset.
+	 * 
+	 * @param file
+	 * @param from
+	 * @throws IOException
+	 */
+	public void execute(File file, long from) throws IOException {
+		execute(file, from, file.length());
+	}
+	
+	/**
+	 * Run the given range of the file through the pipeline.
+	 * 
+	 * @param file
+	 * @param from
+	 *            the offset to start at, which must be the start of a line
+	 * 
+	 * @param to
+	 *            the offset to stop at, which must be the start of a line or
+	 *            the end of the file. A compressed file is always read up to
+	 *            the end of its data.
+	 * 
+	 * @throws IOException
+	 */
+	public void execute(final File file, final long from, final long to) throws IOException {
+		if(this.config.getParseThreads() <= 1) {
+			executeSequentially(file, from, to);
+			return;
+		}
+		
+		final BlockingQueue<ParsedChunk<T>> queue = new ArrayBlockingQueue<ParsedChunk<T>>(this.config.getQueueCapacity());
+		final ExecutorService parsers = Executors.newFixedThreadPool(this.config.getParseThreads(), new StageThreadFactory("fa-parser"));
+		
+		Thread reader = new StageThreadFactory("fa-reader").newThread(new Runnable() {
+			
+			@Override
+			public void run() {
+				read(file, from, to, queue, parsers);
+			}
+			
+		});
+		reader.start();
+		
+		IngestStats stats = this.config.getStats();
+		try {
+			while(true) {
+				long start = System.nanoTime();
+				ParsedChunk<T> parsed = queue.take();
+				if(parsed == this.endOfFile) {
+					break;
+				}
+				
+				T batch = getBatch(parsed.batch);
+				stats.addWait(System.nanoTime() - start);
+				stats.addBytes(parsed.chunk.length());
+				
+				consume(parsed.chunk, batch);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading the file");
+		} finally {
+			reader.interrupt();
+			parsers.shutdownNow();
+		}
+		
+		if(this.readError instanceof IOException) {
+			throw (IOException) this.readError;
+		}
+		
+		if(this.readError != null) {
+			throw new RuntimeException("Unable to read file", this.readError);
+		}
+	}
+	
+	/**
+	 * Run all stages one after the other on the calling thread.
+	 * 
+	 * @param file
+	 * @param from
+	 * @param to
+	 * @throws IOException
+	 */
+	private void executeSequentially(File file, long from, long to) throws IOException {
+		IngestStats stats = this.config.getStats();
+		ChunkSource chunker = openChunks(file, from, to);
+		try {
+			while(true) {
+				long start = System.nanoTime();
+				FileChunk chunk = chunker.next();
+				if(chunk == null) {
+					break;
+				}
+				
+				long read = System.nanoTime();
+				stats.addRead(read - start);
+				
+				T batch = parse(file, chunk);
+				stats.addParse(System.nanoTime() - read);
+				stats.addBytes(chunk.length());
+				
+				consume(chunk, batch);
+			}
+		} finally {
+			chunker.close();
+		}
+	}
+	
+	/**
+	 * The read stage: find chunks, prefetch them and submit them for parsing.
+	 * Blocks when the queue is full.
+	 * 
+	 * @param file
+	 * @param from
+	 * @param to
+	 * @param queue
+	 * @param parsers
+	 */
+	private void read(final File file, long from, long to, BlockingQueue<ParsedChunk<T>> queue, ExecutorService parsers) {
+		final IngestStats stats = this.config.getStats();
+		ChunkSource chunker = null;
+		RandomAccessFile prefetchFile = null;
+		ByteBuffer prefetchBuffer = null;
+		try {
+			chunker = openChunks(file, from, to);
+			if(this.config.isPrefetch() && chunker instanceof FileChunker) {
+				prefetchFile = new RandomAccessFile(file, "r");
+				prefetchBuffer = ByteBuffer.allocateDirect(PREFETCH_BUFFER_SIZE);
+			}
+			
+			while(true) {
+				long start = System.nanoTime();
+				FileChunk chunk = chunker.next();
+				if(chunk == null) {
+					break;
+				}
+				
+				if(prefetchFile != null) {
+					prefetch(prefetchFile.getChannel(), chunk, prefetchBuffer);
+				}
+				
+				stats.addRead(System.nanoTime() - start);
+				
+				final FileChunk toParse = chunk;
+				Future<T> batch = parsers.submit(new Callable<T>() {
+					
+					@Override
+					public T call() throws Exception {
+						long start = System.nanoTime();
+						try {
+							return parse(file, toParse);
+						} finally {
+							stats.addParse(System.nanoTime() - start);
+						}
+					}
+					
+				});
+				
+				queue.put(new ParsedChunk<T>(chunk, batch));
+			}
+		} catch (InterruptedException e) {
+			// writer has stopped
+			return;
+		} catch (Throwable t) {
+			this.readError = t;
+		} finally {
+			closeQuietly(chunker);
+			closeQuietly(prefetchFile);
+		}
+		
+		try {
+			queue.put(this.endOfFile);
+		} catch (InterruptedException e) {
+			// writer has stopped
+		}
+	}
+	
+	/**
+	 * Parse the chunk of the given file, recording the time taken as an
+	 * event when Java Flight Recorder is available.
+	 * 
+	 * @param file
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 */
+	private T parse(File file, FileChunk chunk) throws IOException {
+		if(!JfrEvents.AVAILABLE) {
+			return process(chunk);
+		}
+		
+		ParseEvent event = new ParseEvent(file.getPath(), chunk.index, chunk.length());
+		try {
+			return process(chunk);
+		} finally {
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Open the chunks of the given range of the file, decompressing it as a
+	 * stream if it is compressed.
+	 * 
+	 * @param file
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws IOException
+	 */
+	private ChunkSource openChunks(File file, long from, long to) throws IOException {
+		Compression compression = Compression.detect(file);
+		if(compression == Compression.NONE) {
+			return new FileChunker(file, from, to, this.config.getChunkSize());
+		}
+		
+		return new StreamChunker(compression.open(file, this.config.getDecompressThreads()), from, this.config.getChunkSize());
+	}
+	
+	/**
+	 * Wait for the parsing of a chunk to complete and return its batch.
+	 * 
+	 * @param future
+	 * @return
+	 * @throws IOException
+	 */
+	private T getBatch(Future<T> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			
+			throw new RuntimeException("Unable to parse file chunk", cause);
+		}
+	}
+	
+	/**
+	 * Read the bytes of the chunk through the given buffer and discard them,
+	 * so that the operating system has them cached by the time the parser
+	 * maps the chunk. A plain read, unlike a mapping, leaves nothing behind
+	 * once done - mappings are only released when garbage collected, and
+	 * until then hold the file open and, on Windows, keep it from being
+	 * truncated.
+	 * 
+	 * @param channel
+	 * @param chunk
+	 * @param buffer
+	 * @throws IOException
+	 */
+	private static void prefetch(FileChannel channel, FileChunk chunk, ByteBuffer buffer) throws IOException {
+		long position = chunk.start;
+		long end = chunk.start + chunk.length();
+		while(position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			
+			int read = channel.read(buffer, position);
+			if(read <= 0) {
+				// file was truncated
+				break;
+			}
+			
+			position += read;
+		}
+	}
+	
+	private static void closeQuietly(java.io.Closeable closeable) {
+		if(closeable == null) {
+			return;
+		}
+		
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// eat up
+		}
+	}
+	
+	/**
+	 * A chunk along with the batch being parsed from it.
+	 * 
+	 * @author sangupta
+	 *
+	 * @param <T>
+	 */
+	private static class ParsedChunk<T> {
+		
+		final FileChunk chunk;
+		
+		final Future<T> batch;
+		
+		ParsedChunk(FileChunk chunk, Future<T> batch) {
+			this.chunk = chunk;
+			this.batch = batch;
+		}
+		
+	}
+	
+	/**
+	 * Creates named daemon threads for a stage.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class StageThreadFactory implements ThreadFactory {
+		
+		private final String name;
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		StageThreadFactory(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, this.name + "-" + this.count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
+}
\ No newline at end of file
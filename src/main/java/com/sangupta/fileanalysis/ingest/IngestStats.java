@@ -0,0 +1,311 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.ingest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes and rows loaded, and the time spent in each stage of
+ * loading them, so that the progress of a load can be shown as it runs and
+ * the stage that holds it up can be found once it is done. The counters are
+ * updated from the threads of all stages, and are thus thread-safe.
+ * 
+ * Stage times are summed over all threads working in the stage, so that the
+ * time of the parse stage may add up to more than the time taken by the
+ * load, when several threads parse at once.
+ * 
+ * @author sangupta
+ *
+ */
+public class IngestStats {
+	
+	/**
+	 * Total bytes when not known, such as for compressed files
+	 */
+	public static final long UNKNOWN = -1;
+	
+	/**
+	 * Bytes to load, or {@link #UNKNOWN}
+	 */
+	private volatile long totalBytes = UNKNOWN;
+	
+	private volatile long startTime;
+	
+	/**
+	 * Collections and their time till the load started
+	 */
+	private volatile long startGcCount;
+	
+	private volatile long startGcMillis;
+	
+	/**
+	 * Bytes of the chunks handed over to be written
+	 */
+	private final AtomicLong bytesRead = new AtomicLong();
+	
+	private final AtomicLong rows = new AtomicLong();
+	
+	/**
+	 * Rows that could not be inserted, and thus are missing from the table
+	 */
+	private final AtomicLong rejectedRows = new AtomicLong();
+	
+	/**
+	 * Reason the first row was rejected for
+	 */
+	private volatile String rejectReason;
+	
+	/**
+	 * Values set to <code>NULL</code> as they could not be read as the type
+	 * of their column
+	 */
+	private final AtomicLong invalidValues = new AtomicLong();
+	
+	/**
+	 * Records cut short at the end of the look ahead of a chunk read from a
+	 * stream, and thus loaded in part
+	 */
+	private final AtomicLong truncatedRecords = new AtomicLong();
+	
+	/**
+	 * Nanos spent finding chunks and prefetching, or decompressing, their bytes
+	 */
+	private final AtomicLong readNanos = new AtomicLong();
+	
+	/**
+	 * Nanos spent converting chunks into rows
+	 */
+	private final AtomicLong parseNanos = new AtomicLong();
+	
+	/**
+	 * Nanos the writer spent waiting for rows to be parsed
+	 */
+	private final AtomicLong waitNanos = new AtomicLong();
+	
+	/**
+	 * Nanos spent converting values and setting them on insert statements
+	 */
+	private final AtomicLong bindNanos = new AtomicLong();
+	
+	/**
+	 * Nanos spent executing batches of inserts
+	 */
+	private final AtomicLong writeNanos = new AtomicLong();
+	
+	/**
+	 * Nanos spent committing batches
+	 */
+	private final AtomicLong commitNanos = new AtomicLong();
+	
+	/**
+	 * Clear all counters and start timing a load of the given size.
+	 * 
+	 * @param totalBytes
+	 *            the bytes to load, or {@link #UNKNOWN}
+	 */
+	public void start(long totalBytes) {
+		this.bytesRead.set(0);
+		this.rows.set(0);
+		this.rejectedRows.set(0);
+		this.rejectReason = null;
+		this.invalidValues.set(0);
+		this.truncatedRecords.set(0);
+		this.readNanos.set(0);
+		this.parseNanos.set(0);
+		this.waitNanos.set(0);
+		this.bindNanos.set(0);
+		this.writeNanos.set(0);
+		this.commitNanos.set(0);
+		
+		this.totalBytes = totalBytes;
+		this.startGcCount = getGcCount();
+		this.startGcMillis = getGcMillis();
+		this.startTime = System.currentTimeMillis();
+	}
+	
+	public void addRead(long nanos) {
+		this.readNanos.addAndGet(nanos);
+	}
+	
+	/**
+	 * Add the bytes of a chunk whose rows are being written. Bytes are
+	 * counted here rather than when read, as the read stage runs ahead of
+	 * the writer.
+	 * 
+	 * @param bytes
+	 */
+	public void addBytes(long bytes) {
+		this.bytesRead.addAndGet(bytes);
+	}
+	
+	public void addParse(long nanos) {
+		this.parseNanos.addAndGet(nanos);
+	}
+	
+	public void addWait(long nanos) {
+		this.waitNanos.addAndGet(nanos);
+	}
+	
+	public void addBind(long nanos) {
+		this.rows.incrementAndGet();
+		this.bindNanos.addAndGet(nanos);
+	}
+	
+	/**
+	 * Count rows that could not be inserted.
+	 * 
+	 * @param rows
+	 * @param reason
+	 *            the error the rows were rejected for
+	 */
+	public void addRejected(long rows, String reason) {
+		if(rows <= 0) {
+			return;
+		}
+		
+		if(this.rejectedRows.getAndAdd(rows) == 0) {
+			this.rejectReason = reason;
+		}
+	}
+	
+	public void addInvalid(long values) {
+		if(values > 0) {
+			this.invalidValues.addAndGet(values);
+		}
+	}
+	
+	public void addTruncated(long records) {
+		if(records > 0) {
+			this.truncatedRecords.addAndGet(records);
+		}
+	}
+	
+	public void addWrite(long nanos) {
+		this.writeNanos.addAndGet(nanos);
+	}
+	
+	public void addCommit(long nanos) {
+		this.commitNanos.addAndGet(nanos);
+	}
+	
+	/**
+	 * Get the millis since the load started.
+	 * 
+	 * @return
+	 */
+	public long getElapsedMillis() {
+		return this.startTime == 0 ? 0 : System.currentTimeMillis() - this.startTime;
+	}
+	
+	/**
+	 * Get the number of garbage collections since the load started.
+	 * 
+	 * @return
+	 */
+	public long getGcCountSinceStart() {
+		return getGcCount() - this.startGcCount;
+	}
+	
+	/**
+	 * Get the millis spent collecting garbage since the load started.
+	 * 
+	 * @return
+	 */
+	public long getGcMillisSinceStart() {
+		return getGcMillis() - this.startGcMillis;
+	}
+	
+	private static long getGcCount() {
+		long count = 0;
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, bean.getCollectionCount());
+		}
+		
+		return count;
+	}
+	
+	private static long getGcMillis() {
+		long millis = 0;
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, bean.getCollectionTime());
+		}
+		
+		return millis;
+	}
+	
+	// Usual accessors follow
+	
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+	
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+	
+	public long getRows() {
+		return rows.get();
+	}
+	
+	public long getRejectedRows() {
+		return rejectedRows.get();
+	}
+	
+	public String getRejectReason() {
+		return rejectReason;
+	}
+	
+	public long getInvalidValues() {
+		return invalidValues.get();
+	}
+	
+	public long getTruncatedRecords() {
+		return truncatedRecords.get();
+	}
+	
+	public long getReadNanos() {
+		return readNanos.get();
+	}
+	
+	public long getParseNanos() {
+		return parseNanos.get();
+	}
+	
+	public long getWaitNanos() {
+		return waitNanos.get();
+	}
+	
+	public long getBindNanos() {
+		return bindNanos.get();
+	}
+	
+	public long getWriteNanos() {
+		return writeNanos.get();
+	}
+	
+	public long getCommitNanos() {
+		return commitNanos.get();
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,287 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.ingest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Merges the rows read from several sources, such as the log files of many
+ * nodes, into a single stream ordered by time. Each source is read on a
+ * thread of its own into a small bounded queue of batches, while the calling
+ * thread keeps the next row of every source in a heap and repeatedly writes
+ * the earliest one. Only a few batches per source are held in memory, and
+ * nothing is sorted as a whole.
+ * 
+ * The rows of a source are expected to be in time order and always keep
+ * their order: a row without a time sorts with the time of the row before
+ * it. Rows with the same time are written in the order of their sources.
+ * 
+ * @author sangupta
+ *
+ */
+public abstract class TimeOrderedMerge {
+	
+	/**
+	 * Time of a row that has none
+	 */
+	public static final long NO_TIME = Long.MIN_VALUE;
+	
+	/**
+	 * Number of batches of a source read ahead of the one being merged
+	 */
+	private static final int QUEUE_CAPACITY = 2;
+	
+	/**
+	 * Marks the end of a source in its queue
+	 */
+	private final List<Object[]> endOfSource = new ArrayList<Object[]>(0);
+	
+	private final List<Cursor> cursors = new ArrayList<Cursor>();
+	
+	/**
+	 * Create a merge of the given number of sources.
+	 * 
+	 * @param sources
+	 */
+	public TimeOrderedMerge(int sources) {
+		for(int source = 0; source < sources; source++) {
+			this.cursors.add(new Cursor(source));
+		}
+	}
+	
+	/**
+	 * Read all rows of the source, in time order, handing them over with
+	 * {@link #emit(int, List)}. Invoked on a thread of the source's own.
+	 * 
+	 * @param source
+	 * @throws IOException
+	 */
+	protected abstract void read(int source) throws IOException;
+	
+	/**
+	 * Get the time of the row.
+	 * 
+	 * @param row
+	 * @return the time in millis, or {@link #NO_TIME} if the row has none
+	 */
+	protected abstract long getTime(Object[] row);
+	
+	/**
+	 * Write the next row in time order. Invoked on the calling thread.
+	 * 
+	 * @param source
+	 * @param row
+	 * @throws IOException
+	 */
+	protected abstract void consume(int source, Object[] row) throws IOException;
+	
+	/**
+	 * Hand over the next batch of rows of the source to be merged. Blocks
+	 * while the source is too far ahead of the merge.
+	 * 
+	 * @param source
+	 * @param rows
+	 * @throws IOException
+	 *             if interrupted as the merge has stopped
+	 */
+	protected void emit(int source, List<Object[]> rows) throws IOException {
+		if(rows.isEmpty()) {
+			return;
+		}
+		
+		try {
+			this.cursors.get(source).queue.put(rows);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging the files");
+		}
+	}
+	
+	/**
+	 * Read all sources and write their rows in time order.
+	 * 
+	 * @throws IOException
+	 */
+	public void execute() throws IOException {
+		List<Thread> readers = new ArrayList<Thread>();
+		for(final Cursor cursor : this.cursors) {
+			Thread reader = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					readSource(cursor);
+				}
+				
+			}, "fa-merge-reader-" + (cursor.source + 1));
+			reader.setDaemon(true);
+			reader.start();
+			
+			readers.add(reader);
+		}
+		
+		try {
+			PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>(Math.max(1, this.cursors.size()));
+			for(Cursor cursor : this.cursors) {
+				if(cursor.advance()) {
+					heap.add(cursor);
+				}
+			}
+			
+			while(!heap.isEmpty()) {
+				Cursor cursor = heap.poll();
+				consume(cursor.source, cursor.row);
+				
+				if(cursor.advance()) {
+					heap.add(cursor);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging the files");
+		} finally {
+			for(Thread reader : readers) {
+				reader.interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Read the source on its own thread, and mark its end once done.
+	 * 
+	 * @param cursor
+	 */
+	private void readSource(Cursor cursor) {
+		try {
+			read(cursor.source);
+		} catch (Throwable t) {
+			cursor.error = t;
+		}
+		
+		try {
+			cursor.queue.put(this.endOfSource);
+		} catch (InterruptedException e) {
+			// merge has stopped
+		}
+	}
+	
+	/**
+	 * The position of the merge within one source.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private class Cursor implements Comparable<Cursor> {
+		
+		final int source;
+		
+		final BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<List<Object[]>>(QUEUE_CAPACITY);
+		
+		/**
+		 * Error raised while reading the source, if any
+		 */
+		volatile Throwable error;
+		
+		List<Object[]> batch;
+		
+		int index;
+		
+		/**
+		 * The next row to be written
+		 */
+		Object[] row;
+		
+		/**
+		 * Time the next row sorts with
+		 */
+		long time = NO_TIME;
+		
+		Cursor(int source) {
+			this.source = source;
+		}
+		
+		/**
+		 * Move to the next row of the source, waiting for it to be read.
+		 * 
+		 * @return <code>false</code> if the source has no more rows
+		 * @throws IOException
+		 *             if the source could not be read
+		 * 
+		 * @throws InterruptedException
+		 */
+		boolean advance() throws IOException, InterruptedException {
+			while(this.batch == null || this.index == this.batch.size()) {
+				this.batch = this.queue.take();
+				this.index = 0;
+				
+				if(this.batch == endOfSource) {
+					this.row = null;
+					rethrow(this.error);
+					return false;
+				}
+			}
+			
+			this.row = this.batch.get(this.index);
+			
+			// let go of rows written
+			this.batch.set(this.index++, null);
+			
+			long rowTime = getTime(this.row);
+			if(rowTime != NO_TIME) {
+				this.time = rowTime;
+			}
+			
+			return true;
+		}
+		
+		@Override
+		public int compareTo(Cursor other) {
+			if(this.time != other.time) {
+				return this.time < other.time ? -1 : 1;
+			}
+			
+			return this.source - other.source;
+		}
+		
+		private void rethrow(Throwable error) throws IOException {
+			if(error == null) {
+				return;
+			}
+			
+			if(error instanceof IOException) {
+				throw (IOException) error;
+			}
+			
+			if(error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+			
+			throw new RuntimeException("Unable to read file", error);
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only view over a range of bytes of a {@link ByteBuffer}, usually a
+ * line or a field of a memory mapped file. The bytes are decoded into a
+ * {@link String} only when {@link #toString()} is called, which is deferred
+ * till the value is bound to a database column.
+ * 
+ * Methods that look at individual bytes assume a charset where ASCII
+ * characters are encoded as single bytes, such as UTF-8 or ISO-8859-1. The
+ * same goes for the {@link CharSequence} view, which has one character per
+ * byte, and is meant to let numbers and other ASCII values be parsed without
+ * decoding the slice.
+ * 
+ * @author sangupta
+ *
+ */
+public class ByteSlice implements CharSequence {
+	
+	private static final ByteSlice[] EMPTY_SLICE_ARRAY = new ByteSlice[] { };
+	
+	private final ByteBuffer buffer;
+	
+	private final int offset;
+	
+	private final int length;
+	
+	private final Charset charset;
+	
+	public ByteSlice(ByteBuffer buffer, int offset, int length, Charset charset) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+		this.charset = charset;
+	}
+	
+	/**
+	 * Number of bytes in this slice.
+	 * 
+	 * @return
+	 */
+	@Override
+	public int length() {
+		return this.length;
+	}
+	
+	public byte byteAt(int index) {
+		return this.buffer.get(this.offset + index);
+	}
+	
+	/**
+	 * The byte at the given index as a character, which is only the actual
+	 * character for ASCII text.
+	 * 
+	 */
+	@Override
+	public char charAt(int index) {
+		return (char) (byteAt(index) & 0xFF);
+	}
+	
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return slice(start, end);
+	}
+	
+	/**
+	 * Return a slice over a part of this slice.
+	 * 
+	 * @param from
+	 *            inclusive start index
+	 * 
+	 * @param to
+	 *            exclusive end index
+	 * 
+	 * @return
+	 */
+	public ByteSlice slice(int from, int to) {
+		return new ByteSlice(this.buffer, this.offset + from, to - from, this.charset);
+	}
+	
+	/**
+	 * Check if the slice contains only whitespace or control characters.
+	 * 
+	 * @return
+	 */
+	public boolean isBlank() {
+		for(int index = 0; index < this.length; index++) {
+			if(byteAt(index) > ' ' || byteAt(index) < 0) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Remove leading and trailing whitespace and control characters.
+	 * 
+	 * @return
+	 */
+	public ByteSlice trim() {
+		int from = 0;
+		int to = this.length;
+		while(from < to && isSpace(byteAt(from))) {
+			from++;
+		}
+		
+		while(to > from && isSpace(byteAt(to - 1))) {
+			to--;
+		}
+		
+		if(from == 0 && to == this.length) {
+			return this;
+		}
+		
+		return slice(from, to);
+	}
+	
+	/**
+	 * Find the index of the given sequence of bytes in this slice.
+	 * 
+	 * @param sequence
+	 * @param from
+	 * @return the index, or <code>-1</code> if not found
+	 */
+	public int indexOf(byte[] sequence, int from) {
+		final int last = this.length - sequence.length;
+		
+		outer:
+		for(int index = from; index <= last; index++) {
+			for(int match = 0; match < sequence.length; match++) {
+				if(byteAt(index + match) != sequence[match]) {
+					continue outer;
+				}
+			}
+			
+			return index;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Split this slice around the given separator. Adjacent separators are
+	 * treated as one, the same as
+	 * <code>StringUtils.splitByWholeSeparator()</code> of commons-lang.
+	 * 
+	 * @param separator
+	 * @return
+	 */
+	public ByteSlice[] splitByWholeSeparator(byte[] separator) {
+		if(this.length == 0) {
+			return EMPTY_SLICE_ARRAY;
+		}
+		
+		List<ByteSlice> tokens = new ArrayList<ByteSlice>();
+		int start = 0;
+		while(true) {
+			int end = indexOf(separator, start);
+			if(end == -1) {
+				// the last token is kept even if empty
+				tokens.add(slice(start, this.length));
+				break;
+			}
+			
+			if(end > start) {
+				tokens.add(slice(start, end));
+			}
+			
+			start = end + separator.length;
+		}
+		
+		return tokens.toArray(EMPTY_SLICE_ARRAY);
+	}
+	
+	/**
+	 * Decode the bytes in this slice as a {@link String}.
+	 * 
+	 */
+	@Override
+	public String toString() {
+		if(this.buffer.hasArray()) {
+			return new String(this.buffer.array(), this.buffer.arrayOffset() + this.offset, this.length, this.charset);
+		}
+		
+		byte[] bytes = new byte[this.length];
+		ByteBuffer view = this.buffer.duplicate();
+		view.position(this.offset);
+		view.get(bytes);
+		
+		return new String(bytes, this.charset);
+	}
+	
+	private static boolean isSpace(byte b) {
+		return b >= 0 && b <= ' ';
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Hands out the {@link FileChunk}s of a file one after the other, in file
+ * order.
+ * 
+ * @author sangupta
+ *
+ */
+public interface ChunkSource extends Closeable {
+	
+	/**
+	 * Find the next chunk of the file.
+	 * 
+	 * @return the chunk, or <code>null</code> if the end of file has been
+	 *         reached
+	 * 
+	 * @throws IOException
+	 */
+	public FileChunk next() throws IOException;
+	
+}
\ No newline at end of file
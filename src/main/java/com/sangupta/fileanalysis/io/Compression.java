@@ -0,0 +1,273 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+/**
+ * The compression formats of input files, detected by the magic bytes at the
+ * start of the file rather than by its extension. A compressed file is read
+ * by decompressing it as a stream, without writing the decompressed data to
+ * disk.
+ * 
+ * Offsets within a compressed file, such as those of {@link FileChunk}s, are
+ * offsets in the decompressed data.
+ * 
+ * @author sangupta
+ *
+ */
+public enum Compression {
+	
+	NONE(null),
+	
+	GZIP(".gz", 0x1f, 0x8b),
+	
+	BZIP2(".bz2", 'B', 'Z', 'h') {
+		
+		/**
+		 * Plain text may well start with <code>BZh</code>, so the block
+		 * size digit that follows is checked too, along with the magic of
+		 * the first block, or of the end of an empty stream.
+		 */
+		@Override
+		boolean matches(byte[] head, int length) {
+			if(!super.matches(head, length) || length < 10) {
+				return false;
+			}
+			
+			if(head[3] < '1' || head[3] > '9') {
+				return false;
+			}
+			
+			return startsWith(head, 4, BZIP2_BLOCK_MAGIC) || startsWith(head, 4, BZIP2_END_MAGIC);
+		}
+		
+	},
+	
+	XZ(".xz", 0xfd, '7', 'z', 'X', 'Z', 0x00),
+	
+	ZSTD(".zst", 0x28, 0xb5, 0x2f, 0xfd);
+	
+	/**
+	 * Size of the buffer used when reading a compressed file
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * Bytes read from the start of a file to detect its compression
+	 */
+	private static final int HEAD_SIZE = 10;
+	
+	/**
+	 * Magic of a compressed block of bzip2, the digits of pi
+	 */
+	private static final byte[] BZIP2_BLOCK_MAGIC = { 0x31, 0x41, 0x59, 0x26, 0x53, 0x59 };
+	
+	/**
+	 * Magic of the end of a bzip2 stream, the square root of pi
+	 */
+	private static final byte[] BZIP2_END_MAGIC = { 0x17, 0x72, 0x45, 0x38, 0x50, (byte) 0x90 };
+	
+	/**
+	 * Most bytes decompressed to read the lines at the start of a file
+	 */
+	private static final int MAX_HEAD_SIZE = 4 * 1024 * 1024;
+	
+	private final String extension;
+	
+	private final byte[] magic;
+	
+	private Compression(String extension, int... magic) {
+		this.extension = extension;
+		this.magic = new byte[magic.length];
+		for(int index = 0; index < magic.length; index++) {
+			this.magic[index] = (byte) magic[index];
+		}
+	}
+	
+	/**
+	 * Detect the compression of the given file from its first bytes.
+	 * 
+	 * @param file
+	 * @return the compression, or {@link #NONE} if the file is not
+	 *         compressed in any of the known formats
+	 * 
+	 * @throws IOException
+	 */
+	public static Compression detect(File file) throws IOException {
+		byte[] head = new byte[HEAD_SIZE];
+		int read = 0;
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			int count;
+			while(read < head.length && (count = randomAccessFile.read(head, read, head.length - read)) > 0) {
+				read += count;
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		for(Compression compression : values()) {
+			if(compression.matches(head, read)) {
+				return compression;
+			}
+		}
+		
+		return NONE;
+	}
+	
+	/**
+	 * Check if the given file is compressed in any of the known formats.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		return detect(file) != NONE;
+	}
+	
+	/**
+	 * Remove the extension of a compression format, if any, from the given
+	 * file name: <code>access.log.gz</code> becomes <code>access.log</code>.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public static String stripExtension(String name) {
+		for(Compression compression : values()) {
+			if(compression.extension != null && name.toLowerCase().endsWith(compression.extension)) {
+				return name.substring(0, name.length() - compression.extension.length());
+			}
+		}
+		
+		return name;
+	}
+	
+	/**
+	 * Open a stream over the decompressed data of the given file.
+	 * Concatenated streams, as produced by appending compressed files to one
+	 * another, are read one after the other.
+	 * 
+	 * @param file
+	 * @param threads
+	 *            the number of threads to decompress the members of a gzip
+	 *            file with, ignored for the other formats
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream open(File file, int threads) throws IOException {
+		if(this == GZIP && threads > 1) {
+			return new ParallelGzipInputStream(file, threads);
+		}
+		
+		InputStream stream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			switch(this) {
+				case NONE:
+					return stream;
+				
+				case GZIP:
+					return new GZIPInputStream(stream, BUFFER_SIZE);
+				
+				case BZIP2:
+					return new BZip2CompressorInputStream(stream, true);
+				
+				case XZ:
+					return new XZCompressorInputStream(stream, true);
+				
+				case ZSTD:
+					return new ZstdCompressorInputStream(stream);
+				
+				default:
+					throw new IllegalStateException("Unknown compression: " + this);
+			}
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Decompress the lines at the start of the given file, enough to read the
+	 * header and sample the first rows.
+	 * 
+	 * @param file
+	 * @return the bytes, ending with the last complete line read
+	 * @throws IOException
+	 */
+	public ByteBuffer readHead(File file) throws IOException {
+		byte[] bytes = new byte[MAX_HEAD_SIZE];
+		int read = 0;
+		
+		InputStream stream = open(file, 1);
+		try {
+			int count;
+			while(read < bytes.length && (count = stream.read(bytes, read, bytes.length - read)) > 0) {
+				read += count;
+			}
+		} finally {
+			stream.close();
+		}
+		
+		if(read == bytes.length) {
+			// drop the line that has been cut short
+			while(read > 0 && bytes[read - 1] != '\n' && bytes[read - 1] != '\r') {
+				read--;
+			}
+		}
+		
+		return ByteBuffer.wrap(bytes, 0, read).slice();
+	}
+	
+	boolean matches(byte[] head, int length) {
+		if(this.magic.length == 0 || this.magic.length > length) {
+			return false;
+		}
+		
+		return startsWith(head, 0, this.magic);
+	}
+	
+	private static boolean startsWith(byte[] head, int offset, byte[] magic) {
+		for(int index = 0; index < magic.length; index++) {
+			if(magic[index] != head[offset + index]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A byte range of a file that can be parsed independently of the other
+ * ranges. The start of every chunk is aligned to the beginning of a line.
+ * 
+ * The chunks of a compressed file carry their decompressed bytes, from the
+ * start of the chunk up to its limit, as these cannot be read from the file
+ * at an offset.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileChunk {
+	
+	/**
+	 * Position of this chunk in the file, starting with zero
+	 */
+	public final int index;
+	
+	/**
+	 * Offset of the first byte of this chunk
+	 */
+	public final long start;
+	
+	/**
+	 * Offset just after the last byte of this chunk
+	 */
+	public final long end;
+	
+	/**
+	 * Offset beyond which no data may be read for this chunk, being the end
+	 * of the range of the file that is being loaded. A record that starts
+	 * within the chunk may extend past its end, but never past the limit.
+	 */
+	public final long limit;
+	
+	/**
+	 * The bytes of the chunk from its start up to its limit, or
+	 * <code>null</code> if these are to be read from the file
+	 */
+	public final ByteBuffer data;
+	
+	/**
+	 * Whether the data goes on past the limit, as the chunks of a stream
+	 * only carry so many bytes beyond their end. A record still open at the
+	 * limit is then cut short.
+	 */
+	public final boolean truncated;
+	
+	public FileChunk(int index, long start, long end, long limit) {
+		this(index, start, end, limit, null, false);
+	}
+	
+	public FileChunk(int index, long start, long end, long limit, ByteBuffer data) {
+		this(index, start, end, limit, data, false);
+	}
+	
+	public FileChunk(int index, long start, long end, long limit, ByteBuffer data, boolean truncated) {
+		this.index = index;
+		this.start = start;
+		this.end = end;
+		this.limit = limit;
+		this.data = data;
+		this.truncated = truncated;
+	}
+	
+	public boolean isFirst() {
+		return this.index == 0;
+	}
+	
+	public long length() {
+		return this.end - this.start;
+	}
+	
+	@Override
+	public String toString() {
+		return "chunk" + this.index + "[" + this.start + ", " + this.end + ")";
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+/**
+ * Splits a file into {@link FileChunk}s whose boundaries fall on the start
+ * of a line, so that each chunk can be parsed on its own thread. Chunks are
+ * found one after the other as they are asked for.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileChunker implements ChunkSource {
+	
+	/**
+	 * Default size of each chunk - the actual chunk is a little larger as
+	 * it is extended to the end of the line
+	 */
+	public static final long DEFAULT_CHUNK_SIZE = 8l * 1024l * 1024l;
+	
+	private final RandomAccessFile randomAccessFile;
+	
+	private final long length;
+	
+	private final long chunkSize;
+	
+	/**
+	 * Offset where the next chunk starts
+	 */
+	private long start;
+	
+	/**
+	 * Index of the next chunk
+	 */
+	private int index;
+	
+	/**
+	 * Create a chunker for the file.
+	 * 
+	 * @param file
+	 *            the file to split
+	 * 
+	 * @param from
+	 *            the offset where the first chunk starts
+	 * 
+	 * @param chunkSize
+	 *            the approximate size of each chunk
+	 * 
+	 * @throws IOException
+	 */
+	public FileChunker(File file, long from, long chunkSize) throws IOException {
+		this(file, from, file.length(), chunkSize);
+	}
+	
+	/**
+	 * Create a chunker for a range of the file.
+	 * 
+	 * @param file
+	 *            the file to split
+	 * 
+	 * @param from
+	 *            the offset where the first chunk starts
+	 * 
+	 * @param to
+	 *            the offset where the last chunk ends, which must be the
+	 *            start of a line or the end of the file
+	 * 
+	 * @param chunkSize
+	 *            the approximate size of each chunk
+	 * 
+	 * @throws IOException
+	 */
+	public FileChunker(File file, long from, long to, long chunkSize) throws IOException {
+		this.randomAccessFile = new RandomAccessFile(file, "r");
+		this.length = Math.min(to, this.randomAccessFile.length());
+		this.chunkSize = chunkSize;
+		this.start = from;
+	}
+	
+	@Override
+	public FileChunk next() throws IOException {
+		if(this.start >= this.length) {
+			return null;
+		}
+		
+		long end = alignToLine(this.randomAccessFile, this.start + this.chunkSize, this.length);
+		FileChunk chunk = new FileChunk(this.index++, this.start, end, this.length);
+		this.start = end;
+		
+		return chunk;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.randomAccessFile.close();
+	}
+	
+	/**
+	 * Find the offset at which the data starts after skipping the given number
+	 * of lines from the beginning of the file.
+	 * 
+	 * @param file
+	 * @param lines
+	 * @return
+	 * @throws IOException
+	 */
+	public static long skipLines(File file, int lines) throws IOException {
+		if(lines <= 0) {
+			return 0;
+		}
+		
+		MappedLineReader reader = MappedLineReader.forHead(file, Charset.defaultCharset());
+		try {
+			for(int index = 0; index < lines; index++) {
+				if(reader.readLine() == null) {
+					break;
+				}
+			}
+			
+			return reader.getPosition();
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Move the given offset forward to the start of the next line.
+	 * 
+	 * @param raf
+	 * @param offset
+	 * @param length
+	 * @return
+	 * @throws IOException
+	 */
+	private static long alignToLine(RandomAccessFile raf, long offset, long length) throws IOException {
+		if(offset >= length) {
+			return length;
+		}
+		
+		// the line starts at offset if the previous byte ends a line
+		long position = offset - 1;
+		raf.seek(position);
+		
+		byte[] buffer = new byte[8192];
+		while(position < length) {
+			int read = raf.read(buffer);
+			if(read <= 0) {
+				break;
+			}
+			
+			for(int index = 0; index < read; index++) {
+				if(buffer[index] == '\n') {
+					return position + index + 1;
+				}
+				
+				if(buffer[index] == '\r') {
+					// a following \n is part of the same terminator
+					long next = position + index + 1;
+					if(next < length) {
+						raf.seek(next);
+						if(raf.read() == '\n') {
+							next++;
+						}
+					}
+					
+					return next;
+				}
+			}
+			
+			position += read;
+		}
+		
+		return length;
+	}
+	
+}
\ No newline at end of file
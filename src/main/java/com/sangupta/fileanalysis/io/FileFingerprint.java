@@ -0,0 +1,144 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies the contents of a file without reading all of it: its path,
+ * size and modification time, along with a hash of a few blocks sampled
+ * evenly across the file.
+ * 
+ * As the samples are placed based on the size, the hash of a file that
+ * has since grown can be computed again over its original size to check
+ * that the data loaded earlier is still the same.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileFingerprint {
+	
+	/**
+	 * Number of blocks hashed, besides the first and last block
+	 */
+	private static final int SAMPLES = 16;
+	
+	/**
+	 * Size of each block hashed
+	 */
+	private static final int SAMPLE_SIZE = 4 * 1024;
+	
+	public final String path;
+	
+	public final long size;
+	
+	public final long modified;
+	
+	public final String hash;
+	
+	public FileFingerprint(String path, long size, long modified, String hash) {
+		this.path = path;
+		this.size = size;
+		this.modified = modified;
+		this.hash = hash;
+	}
+	
+	/**
+	 * Fingerprint the first given bytes of the file.
+	 * 
+	 * @param file
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	public static FileFingerprint of(File file, long size) throws IOException {
+		return new FileFingerprint(file.getCanonicalPath(), size, file.lastModified(), sampleHash(file, size));
+	}
+	
+	/**
+	 * Check if the file still starts with the same bytes that this
+	 * fingerprint was taken of.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isPrefixOf(File file) throws IOException {
+		if(!this.path.equals(file.getCanonicalPath()) || file.length() < this.size) {
+			return false;
+		}
+		
+		return this.hash.equals(sampleHash(file, this.size));
+	}
+	
+	/**
+	 * Check if the file is the same as the one this fingerprint was taken of.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean matches(File file) throws IOException {
+		return file.length() == this.size && file.lastModified() == this.modified && isPrefixOf(file);
+	}
+	
+	/**
+	 * Hash the blocks sampled from the first given bytes of the file.
+	 * 
+	 * @param file
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	public static String sampleHash(File file, long size) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("MD5 not supported by JVM");
+		}
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			byte[] buffer = new byte[SAMPLE_SIZE];
+			long last = Math.max(0, size - SAMPLE_SIZE);
+			for(int sample = 0; sample <= SAMPLES + 1; sample++) {
+				long offset = last * sample / (SAMPLES + 1);
+				int length = (int) Math.min(SAMPLE_SIZE, size - offset);
+				
+				randomAccessFile.seek(offset);
+				randomAccessFile.readFully(buffer, 0, length);
+				digest.update(buffer, 0, length);
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		return String.format("%032x", new BigInteger(1, digest.digest()));
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Finds the files to be loaded for a path given by the user, which may be a
+ * single file, a directory or a glob such as
+ * <code>/var/log/app/*.log*</code>.
+ * 
+ * @author sangupta
+ *
+ */
+public class InputFiles {
+	
+	/**
+	 * Characters that make a path a glob
+	 */
+	private static final String WILDCARDS = "*?[{";
+	
+	/**
+	 * Find the files for the given path: the file itself, the files directly
+	 * within a directory, or the files that match a glob. Hidden files are
+	 * left out of a directory or glob.
+	 * 
+	 * @param path
+	 * @return the files sorted by path, empty if none exist
+	 * @throws IOException
+	 */
+	public static List<File> resolve(String path) throws IOException {
+		final List<File> files = new ArrayList<File>();
+		
+		if(!isGlob(path)) {
+			File file = new File(path);
+			if(file.isFile()) {
+				files.add(file);
+			} else if(file.isDirectory()) {
+				File[] children = file.listFiles();
+				if(children != null) {
+					for(File child : children) {
+						if(child.isFile() && !child.isHidden()) {
+							files.add(child);
+						}
+					}
+				}
+			}
+			
+			Collections.sort(files);
+			return files;
+		}
+		
+		// walk the directory before the first wildcard
+		String pattern = new File(path).getAbsolutePath();
+		int wildcard = firstWildcard(pattern);
+		int separator = pattern.lastIndexOf(File.separatorChar, wildcard);
+		File base = new File(pattern.substring(0, separator + 1));
+		if(!base.isDirectory()) {
+			return files;
+		}
+		
+		// a single star stays within a directory, a double star does not
+		String rest = pattern.substring(separator + 1);
+		int depth = Integer.MAX_VALUE;
+		if(!rest.contains("**")) {
+			depth = 1;
+			for(int index = 0; index < rest.length(); index++) {
+				if(rest.charAt(index) == File.separatorChar) {
+					depth++;
+				}
+			}
+		}
+		
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		Files.walkFileTree(base.toPath(), EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<Path>() {
+			
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				if(attributes.isRegularFile() && matcher.matches(file) && !file.toFile().isHidden()) {
+					files.add(file.toFile());
+				}
+				
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				// skip what cannot be read
+				return FileVisitResult.CONTINUE;
+			}
+			
+		});
+		
+		Collections.sort(files);
+		return files;
+	}
+	
+	/**
+	 * Check if the given path is a glob rather than the path of a file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public static boolean isGlob(String path) {
+		return firstWildcard(path) < path.length();
+	}
+	
+	private static int firstWildcard(String path) {
+		for(int index = 0; index < path.length(); index++) {
+			if(WILDCARDS.indexOf(path.charAt(index)) != -1) {
+				return index;
+			}
+		}
+		
+		return path.length();
+	}
+	
+}
\ No newline at end of file
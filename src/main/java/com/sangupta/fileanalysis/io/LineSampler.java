@@ -0,0 +1,134 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Picks lines at random positions of a file, to sample data spread across
+ * the whole file without reading all of it.
+ * 
+ * @author sangupta
+ *
+ */
+public class LineSampler {
+	
+	/**
+	 * Find the starts of lines at random positions in the given range of the
+	 * file. A random offset is moved forward to the start of the next line,
+	 * and thus the same line may be picked more than once, in which case it
+	 * is returned only once.
+	 * 
+	 * @param file
+	 *            the file to sample
+	 * 
+	 * @param from
+	 *            the offset to pick lines after
+	 * 
+	 * @param count
+	 *            the number of random offsets to pick
+	 * 
+	 * @param seed
+	 *            the seed for the random offsets, so that the same lines are
+	 *            picked every time for the same file
+	 * 
+	 * @return the offsets of the lines, in file order, which is empty for a
+	 *         compressed file as it cannot be read at an offset
+	 * 
+	 * @throws IOException
+	 */
+	public static List<Long> sampleLineStarts(File file, long from, int count, long seed) throws IOException {
+		TreeSet<Long> starts = new TreeSet<Long>();
+		if(Compression.isCompressed(file)) {
+			return new ArrayList<Long>();
+		}
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			final long length = randomAccessFile.length();
+			if(from >= length || count <= 0) {
+				return new ArrayList<Long>();
+			}
+			
+			Random random = new Random(seed);
+			byte[] buffer = new byte[4 * 1024];
+			for(int index = 0; index < count; index++) {
+				long offset = from + (long) (random.nextDouble() * (length - from));
+				long start = nextLineStart(randomAccessFile, offset, length, buffer);
+				if(start < length) {
+					starts.add(start);
+				}
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		return new ArrayList<Long>(starts);
+	}
+	
+	/**
+	 * Find the start of the line that follows the given offset.
+	 * 
+	 * @param randomAccessFile
+	 * @param offset
+	 * @param length
+	 * @param buffer
+	 * @return the offset, or the length of the file if no line follows
+	 * @throws IOException
+	 */
+	private static long nextLineStart(RandomAccessFile randomAccessFile, long offset, long length, byte[] buffer) throws IOException {
+		long position = offset;
+		boolean seenCR = false;
+		while(position < length) {
+			int read = (int) Math.min(buffer.length, length - position);
+			randomAccessFile.seek(position);
+			randomAccessFile.readFully(buffer, 0, read);
+			
+			for(int index = 0; index < read; index++) {
+				byte current = buffer[index];
+				if(seenCR) {
+					// a \r\n counts as one terminator
+					return current == '\n' ? position + index + 1 : position + index;
+				}
+				
+				if(current == '\n') {
+					return position + index + 1;
+				}
+				
+				if(current == '\r') {
+					seenCR = true;
+				}
+			}
+			
+			position += read;
+		}
+		
+		return length;
+	}
+	
+}
\ No newline at end of file
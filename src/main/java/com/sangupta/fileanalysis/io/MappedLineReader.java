@@ -0,0 +1,329 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads lines from a file, starting at any byte offset, by scanning for line
+ * terminators directly in the memory mapped bytes of the file. Each line is
+ * returned as a {@link ByteSlice} over the mapping, without copying or
+ * decoding. As a single mapping cannot exceed 2 GB, the file is mapped in
+ * windows that roll forward as the lines are read.
+ * 
+ * Lines are terminated by <code>\n</code>, <code>\r</code> or
+ * <code>\r\n</code>, in the same way as {@link java.io.BufferedReader}.
+ * 
+ * The slices stay valid after the reader has been closed.
+ * 
+ * A reader may also read lines from bytes already in memory, such as the
+ * decompressed bytes of a chunk of a compressed file.
+ * 
+ * @author sangupta
+ *
+ */
+public class MappedLineReader implements Closeable {
+	
+	/**
+	 * Default size of the window of the file that is mapped at a time
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 32 * 1024 * 1024;
+	
+	private final RandomAccessFile randomAccessFile;
+	
+	private final FileChannel channel;
+	
+	private final Charset charset;
+	
+	private final long fileLength;
+	
+	private int windowSize;
+	
+	/**
+	 * The currently mapped window
+	 */
+	private ByteBuffer window;
+	
+	/**
+	 * Offset in file of the first byte of the window
+	 */
+	private long windowStart;
+	
+	/**
+	 * Offset of the first byte of the last line returned
+	 */
+	private long lineStart = -1;
+	
+	/**
+	 * Offset of the first byte of the next line to be returned
+	 */
+	private long position;
+	
+	public MappedLineReader(File file, long position, Charset charset) throws IOException {
+		this(file, position, Long.MAX_VALUE, charset, DEFAULT_WINDOW_SIZE);
+	}
+	
+	public MappedLineReader(File file, long position, Charset charset, int windowSize) throws IOException {
+		this(file, position, Long.MAX_VALUE, charset, windowSize);
+	}
+	
+	/**
+	 * Create a reader that treats the given limit as the end of the file.
+	 * 
+	 * @param file
+	 * @param position
+	 * @param limit
+	 * @param charset
+	 * @throws IOException
+	 */
+	public MappedLineReader(File file, long position, long limit, Charset charset) throws IOException {
+		this(file, position, limit, charset, DEFAULT_WINDOW_SIZE);
+	}
+	
+	public MappedLineReader(File file, long position, long limit, Charset charset, int windowSize) throws IOException {
+		if(windowSize < 1) {
+			throw new IllegalArgumentException("Window size must be at least one byte");
+		}
+		
+		this.windowSize = windowSize;
+		this.randomAccessFile = new RandomAccessFile(file, "r");
+		this.channel = this.randomAccessFile.getChannel();
+		this.fileLength = Math.min(limit, this.channel.size());
+		this.charset = charset;
+		this.position = position;
+	}
+	
+	/**
+	 * Create a reader over bytes in memory.
+	 * 
+	 * @param data
+	 *            the bytes to read
+	 * 
+	 * @param base
+	 *            the offset of the first of the bytes, which is what offsets
+	 *            such as the position are relative to
+	 * 
+	 * @param position
+	 *            the offset of the first line to read
+	 * 
+	 * @param charset
+	 */
+	public MappedLineReader(ByteBuffer data, long base, long position, Charset charset) {
+		this.windowSize = Math.max(1, data.limit());
+		this.randomAccessFile = null;
+		this.channel = null;
+		this.window = data;
+		this.windowStart = base;
+		this.fileLength = base + data.limit();
+		this.charset = charset;
+		this.position = position;
+	}
+	
+	/**
+	 * Create a reader for the lines of a chunk, starting at the given offset
+	 * within the chunk. The reader treats the limit of the chunk as the end
+	 * of the file.
+	 * 
+	 * @param file
+	 * @param chunk
+	 * @param position
+	 * @param charset
+	 * @return
+	 * @throws IOException
+	 */
+	public static MappedLineReader forChunk(File file, FileChunk chunk, long position, Charset charset) throws IOException {
+		if(chunk.data != null) {
+			return new MappedLineReader(chunk.data, chunk.start, position, charset);
+		}
+		
+		return new MappedLineReader(file, position, chunk.limit, charset);
+	}
+	
+	/**
+	 * Create a reader for the lines at the start of a file. Of a compressed
+	 * file, only the first few megabytes are decompressed and read, which is
+	 * enough for the header and the first rows.
+	 * 
+	 * @param file
+	 * @param charset
+	 * @return
+	 * @throws IOException
+	 */
+	public static MappedLineReader forHead(File file, Charset charset) throws IOException {
+		Compression compression = Compression.detect(file);
+		if(compression == Compression.NONE) {
+			return new MappedLineReader(file, 0, charset);
+		}
+		
+		return new MappedLineReader(compression.readHead(file), 0, 0, charset);
+	}
+	
+	/**
+	 * Read the next line from the file.
+	 * 
+	 * @return the line without the terminator, or <code>null</code> if end of
+	 *         file has been reached
+	 * 
+	 * @throws IOException
+	 */
+	public ByteSlice nextLine() throws IOException {
+		if(this.position >= this.fileLength) {
+			return null;
+		}
+		
+		while(true) {
+			if(this.window == null || this.position < this.windowStart || this.position >= this.windowStart + this.window.limit()) {
+				map(this.position);
+			}
+			
+			final ByteBuffer buffer = this.window;
+			final int from = (int) (this.position - this.windowStart);
+			final int limit = buffer.limit();
+			final long windowEnd = this.windowStart + limit;
+			
+			int index = from;
+			byte current = 0;
+			while(index < limit) {
+				current = buffer.get(index);
+				if(current == '\n' || current == '\r') {
+					break;
+				}
+				
+				index++;
+			}
+			
+			if(index == limit) {
+				if(windowEnd >= this.fileLength) {
+					// last line of file without a terminator
+					return newLine(from, index, windowEnd);
+				}
+				
+				// line continues beyond the window
+				map(this.position);
+				continue;
+			}
+			
+			int next = index + 1;
+			if(current == '\r') {
+				if(next == limit && windowEnd < this.fileLength) {
+					// need to see if a \n follows
+					map(this.position);
+					continue;
+				}
+				
+				if(next < limit && buffer.get(next) == '\n') {
+					next++;
+				}
+			}
+			
+			return newLine(from, index, this.windowStart + next);
+		}
+	}
+	
+	/**
+	 * Read the next line from the file and decode it.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public String readLine() throws IOException {
+		ByteSlice line = nextLine();
+		if(line == null) {
+			return null;
+		}
+		
+		return line.toString();
+	}
+	
+	/**
+	 * Create the slice for the line and move to the next one.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param next
+	 * @return
+	 */
+	private ByteSlice newLine(int from, int to, long next) {
+		this.lineStart = this.position;
+		this.position = next;
+		
+		return new ByteSlice(this.window, from, to - from, this.charset);
+	}
+	
+	/**
+	 * Map the window starting at the given offset. If the current window
+	 * already starts there, the line is longer than the window and a
+	 * window twice as large is mapped.
+	 * 
+	 * @param start
+	 * @throws IOException
+	 */
+	private void map(long start) throws IOException {
+		if(this.channel == null) {
+			throw new IOException("Offset " + start + " is outside the bytes in memory");
+		}
+		
+		if(this.window != null && this.windowStart == start) {
+			if(this.windowSize == Integer.MAX_VALUE) {
+				throw new IOException("Line at offset " + start + " is longer than " + Integer.MAX_VALUE + " bytes");
+			}
+			
+			this.windowSize = (int) Math.min(Integer.MAX_VALUE, this.windowSize * 2l);
+		}
+		
+		long size = Math.min(this.windowSize, this.fileLength - start);
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		this.windowStart = start;
+	}
+	
+	/**
+	 * Offset of the first byte of the line last returned.
+	 * 
+	 * @return
+	 */
+	public long getLineStart() {
+		return this.lineStart;
+	}
+	
+	/**
+	 * Offset of the first byte of the line that will be returned next.
+	 * 
+	 * @return
+	 */
+	public long getPosition() {
+		return this.position;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(this.randomAccessFile != null) {
+			this.randomAccessFile.close();
+		}
+	}
+	
+}
\ No newline at end of file
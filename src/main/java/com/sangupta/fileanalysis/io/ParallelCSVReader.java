@@ -0,0 +1,399 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import au.com.bytecode.opencsv.CSVParser;
+
+import com.sangupta.fileanalysis.ingest.IngestConfig;
+import com.sangupta.fileanalysis.ingest.IngestPipeline;
+
+/**
+ * Reads a CSV file by parsing line-aligned chunks of it in parallel. As a
+ * quoted field may span multiple lines, a chunk may begin in the middle of
+ * a record. Each chunk thus guesses whether it begins inside a quoted field
+ * and parses speculatively. The guesses are then verified one chunk after
+ * the other against where the previous chunk's last record actually ended,
+ * and only the chunks with a wrong guess are parsed again.
+ * 
+ * Records are parsed using the opencsv {@link CSVParser} so that values are
+ * the same as those read via the <code>CSVReader</code>.
+ * 
+ * @author sangupta
+ *
+ */
+public class ParallelCSVReader {
+	
+	/**
+	 * Receives the parsed rows, in file order.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	public static interface RowHandler {
+		
+		public void handleRows(List<Object[]> rows) throws IOException;
+		
+	}
+	
+	/**
+	 * Maximum number of lines a sampled record may span
+	 */
+	private static final int MAX_SAMPLE_LINES = 100;
+	
+	private final File file;
+	
+	private final Charset charset = Charset.defaultCharset();
+	
+	private final IngestConfig config;
+	
+	/**
+	 * Number of chunks that needed to be parsed again
+	 */
+	private int reparsedChunks;
+	
+	public ParallelCSVReader(File file, IngestConfig config) {
+		this.file = file;
+		this.config = config;
+	}
+	
+	/**
+	 * Find the offset of the record that follows the given number of records
+	 * from the start of the file.
+	 * 
+	 * @param records
+	 * @return
+	 * @throws IOException
+	 */
+	public long skipRecords(int records) throws IOException {
+		MappedLineReader reader = MappedLineReader.forHead(this.file, this.charset);
+		try {
+			CSVParser parser = new CSVParser();
+			for(int index = 0; index < records; index++) {
+				if(readRecord(reader, parser) == null) {
+					break;
+				}
+			}
+			
+			return reader.getPosition();
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Read the given number of records from the start of the file.
+	 * 
+	 * @param count
+	 * @return
+	 * @throws IOException
+	 */
+	public List<String[]> readRecords(int count) throws IOException {
+		List<String[]> records = new ArrayList<String[]>();
+		
+		MappedLineReader reader = MappedLineReader.forHead(this.file, this.charset);
+		try {
+			CSVParser parser = new CSVParser();
+			while(records.size() < count) {
+				String[] record = readRecord(reader, parser);
+				if(record == null) {
+					break;
+				}
+				
+				records.add(record);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return records;
+	}
+	
+	/**
+	 * Read records starting at random lines after the given offset. As a
+	 * line may lie within a quoted field, records whose number of fields
+	 * differs from the expected count are dropped.
+	 * 
+	 * @param from
+	 *            the offset to pick lines after
+	 * 
+	 * @param count
+	 *            the number of lines to pick
+	 * 
+	 * @param fields
+	 *            the expected number of fields in a record
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public List<String[]> sampleRecords(long from, int count, int fields) throws IOException {
+		List<String[]> records = new ArrayList<String[]>();
+		
+		for(long start : LineSampler.sampleLineStarts(this.file, from, count, this.file.length())) {
+			MappedLineReader reader = new MappedLineReader(this.file, start, this.charset);
+			try {
+				// a record that goes on and on started inside a quoted field
+				String[] record = readRecord(reader, new CSVParser(), MAX_SAMPLE_LINES);
+				if(record != null && record.length == fields) {
+					records.add(record);
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		
+		return records;
+	}
+	
+	/**
+	 * Read all records starting at the given offset, which must be the start
+	 * of a record.
+	 * 
+	 * @param dataStart
+	 * @param handler
+	 * @throws IOException
+	 */
+	public void read(final long dataStart, final RowHandler handler) throws IOException {
+		new IngestPipeline<ParsedChunk>(this.config) {
+			
+			/**
+			 * Offset where the record following the last consumed one starts
+			 */
+			private long nextRecord = dataStart;
+			
+			@Override
+			protected ParsedChunk process(FileChunk chunk) throws IOException {
+				return parse(chunk, chunk.start, guessInQuotes(chunk));
+			}
+			
+			@Override
+			protected void consume(FileChunk chunk, ParsedChunk parsed) throws IOException {
+				if(this.nextRecord >= chunk.end) {
+					// the whole chunk is within a record of an earlier chunk
+					return;
+				}
+				
+				if(parsed.recordStart != this.nextRecord) {
+					// speculation failed, we know the exact start now
+					reparsedChunks++;
+					parsed = parse(chunk, this.nextRecord, false);
+				}
+				
+				if(parsed.truncated) {
+					config.getStats().addTruncated(1);
+				}
+				
+				handler.handleRows(parsed.rows);
+				this.nextRecord = parsed.recordEnd;
+			}
+			
+		}.execute(this.file, dataStart);
+	}
+	
+	/**
+	 * Guess if the chunk begins inside a quoted field by looking at the first
+	 * quote on its first line: a quote that ends a field is most likely the
+	 * closing quote of a field that started in an earlier line.
+	 * 
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean guessInQuotes(FileChunk chunk) throws IOException {
+		if(chunk.isFirst()) {
+			return false;
+		}
+		
+		String line;
+		MappedLineReader reader = MappedLineReader.forChunk(this.file, chunk, chunk.start, this.charset);
+		try {
+			line = reader.readLine();
+		} finally {
+			reader.close();
+		}
+		
+		if(line == null) {
+			return false;
+		}
+		
+		int index = line.indexOf(CSVParser.DEFAULT_QUOTE_CHARACTER);
+		if(index == -1) {
+			return false;
+		}
+		
+		if(index == 0 || line.charAt(index - 1) == CSVParser.DEFAULT_SEPARATOR) {
+			// opens a field
+			return false;
+		}
+		
+		return index + 1 == line.length() || line.charAt(index + 1) == CSVParser.DEFAULT_SEPARATOR;
+	}
+	
+	/**
+	 * Parse all records that start in the chunk at or after the given offset.
+	 * 
+	 * @param chunk
+	 *            the chunk to parse
+	 * 
+	 * @param from
+	 *            the offset to start reading from
+	 * 
+	 * @param inQuotes
+	 *            whether <code>from</code> is inside a quoted field, in which
+	 *            case the rest of that record is skipped
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private ParsedChunk parse(FileChunk chunk, long from, boolean inQuotes) throws IOException {
+		ParsedChunk parsed = new ParsedChunk();
+		
+		MappedLineReader reader = MappedLineReader.forChunk(this.file, chunk, from, this.charset);
+		try {
+			CSVParser parser = new CSVParser();
+			if(inQuotes) {
+				// re-open the quote to skip to the end of the record
+				String line = reader.readLine();
+				if(line != null) {
+					parser.parseLineMulti(CSVParser.DEFAULT_QUOTE_CHARACTER + line);
+					while(parser.isPending() && (line = reader.readLine()) != null) {
+						parser.parseLineMulti(line);
+					}
+				}
+				
+				parser = new CSVParser();
+			}
+			
+			parsed.recordStart = reader.getPosition();
+			while(reader.getPosition() < chunk.end) {
+				String[] record = readRecord(reader, parser);
+				if(record == null) {
+					break;
+				}
+				
+				parsed.rows.add(record);
+			}
+			
+			if(parser.isPending() && chunk.truncated && reader.getPosition() >= chunk.limit) {
+				// a quoted field goes on past the look ahead
+				parsed.truncated = true;
+			}
+			
+			parsed.recordEnd = reader.getPosition();
+		} finally {
+			reader.close();
+		}
+		
+		return parsed;
+	}
+	
+	/**
+	 * Read the next record, which may span multiple lines. Mirrors the
+	 * working of <code>CSVReader.readNext()</code>.
+	 * 
+	 * @param reader
+	 * @param parser
+	 * @return
+	 * @throws IOException
+	 */
+	private static String[] readRecord(MappedLineReader reader, CSVParser parser) throws IOException {
+		return readRecord(reader, parser, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Read the next record, giving up if it spans more than the given number
+	 * of lines.
+	 * 
+	 * @param reader
+	 * @param parser
+	 * @param maxLines
+	 * @return the record, or <code>null</code> if no complete record could
+	 *         be read
+	 * 
+	 * @throws IOException
+	 */
+	private static String[] readRecord(MappedLineReader reader, CSVParser parser, int maxLines) throws IOException {
+		String[] result = null;
+		int lines = 0;
+		do {
+			if(lines++ == maxLines) {
+				return null;
+			}
+			
+			String line = reader.readLine();
+			if(line == null) {
+				return result;
+			}
+			
+			String[] tokens = parser.parseLineMulti(line);
+			if(tokens.length > 0) {
+				if(result == null) {
+					result = tokens;
+				} else {
+					String[] joined = new String[result.length + tokens.length];
+					System.arraycopy(result, 0, joined, 0, result.length);
+					System.arraycopy(tokens, 0, joined, result.length, tokens.length);
+					result = joined;
+				}
+			}
+		} while(parser.isPending());
+		
+		return result;
+	}
+	
+	public int getReparsedChunks() {
+		return reparsedChunks;
+	}
+	
+	/**
+	 * Records parsed from one chunk.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class ParsedChunk {
+		
+		/**
+		 * Offset where the first record parsed starts
+		 */
+		long recordStart;
+		
+		/**
+		 * Offset just after the last record parsed
+		 */
+		long recordEnd;
+		
+		/**
+		 * Whether the last record was cut short at the limit of the chunk
+		 */
+		boolean truncated;
+		
+		final List<Object[]> rows = new ArrayList<Object[]>();
+		
+	}
+	
+}
\ No newline at end of file
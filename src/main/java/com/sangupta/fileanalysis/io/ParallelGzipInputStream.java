@@ -0,0 +1,496 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a gzip file made of several members, such as one written by
+ * <code>pigz</code> or by concatenating gzip files, decompressing the members
+ * in parallel. The data read is the same as that of
+ * {@link java.util.zip.GZIPInputStream}.
+ * 
+ * As the members are not indexed, the file is first scanned for the bytes
+ * that may start a member header. A pool of threads inflates the members
+ * at these offsets ahead of the reader, each into a bounded queue of its
+ * own. The reader takes the data of one member after the other: the next
+ * member starts where the previous one actually ended, and the work done
+ * for offsets that turned out to lie within a member is thrown away.
+ * 
+ * A file with a single member is inflated on a single thread, though still
+ * ahead of the reader.
+ * 
+ * @author sangupta
+ *
+ */
+public class ParallelGzipInputStream extends InputStream {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * Number of inflated blocks queued for each member
+	 */
+	private static final int QUEUE_CAPACITY = 16;
+	
+	private static final int FHCRC = 2;
+	
+	private static final int FEXTRA = 4;
+	
+	private static final int FNAME = 8;
+	
+	private static final int FCOMMENT = 16;
+	
+	/**
+	 * Marks the end of a member in its queue
+	 */
+	private static final byte[] END_OF_MEMBER = new byte[0];
+	
+	private final File file;
+	
+	private final ExecutorService inflaters;
+	
+	/**
+	 * Offsets that may start a member, in file order
+	 */
+	private final long[] candidates;
+	
+	/**
+	 * Number of members inflated ahead of the one being read
+	 */
+	private final int readAhead;
+	
+	/**
+	 * Members submitted for inflating, in file order
+	 */
+	private final Deque<Member> pending = new ArrayDeque<Member>();
+	
+	/**
+	 * Index of the next candidate to submit
+	 */
+	private int nextCandidate;
+	
+	/**
+	 * The member being read, <code>null</code> at the end of the file
+	 */
+	private Member current;
+	
+	/**
+	 * The block of the current member being read
+	 */
+	private byte[] block = END_OF_MEMBER;
+	
+	private int blockPosition;
+	
+	public ParallelGzipInputStream(File file, int threads) throws IOException {
+		this.file = file;
+		this.candidates = findCandidates(file);
+		this.readAhead = threads + 1;
+		this.inflaters = Executors.newFixedThreadPool(threads, new InflaterThreadFactory());
+		
+		if(this.candidates.length == 0 || this.candidates[0] != 0) {
+			close();
+			throw new IOException("Not in gzip format: " + file.getAbsolutePath());
+		}
+		
+		this.current = advanceTo(0);
+	}
+	
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		if(read(single, 0, 1) == -1) {
+			return -1;
+		}
+		
+		return single[0] & 0xff;
+	}
+	
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if(length == 0) {
+			return 0;
+		}
+		
+		while(this.blockPosition == this.block.length) {
+			if(this.current == null) {
+				return -1;
+			}
+			
+			nextBlock();
+		}
+		
+		int read = Math.min(length, this.block.length - this.blockPosition);
+		System.arraycopy(this.block, this.blockPosition, bytes, offset, read);
+		this.blockPosition += read;
+		
+		return read;
+	}
+	
+	/**
+	 * Take the next block of the current member, moving on to the next
+	 * member once it has been read completely.
+	 * 
+	 * @throws IOException
+	 */
+	private void nextBlock() throws IOException {
+		byte[] next;
+		try {
+			next = this.current.blocks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decompressing the file");
+		}
+		
+		if(next != END_OF_MEMBER) {
+			this.block = next;
+			this.blockPosition = 0;
+			return;
+		}
+		
+		if(this.current.error != null) {
+			throw this.current.error;
+		}
+		
+		this.current = advanceTo(this.current.end);
+	}
+	
+	/**
+	 * Find the member starting at the given offset, discarding any member
+	 * that was being inflated from an offset before it. Also submits the
+	 * members that follow it, up to the read ahead.
+	 * 
+	 * @param offset
+	 * @return the member, or <code>null</code> if no member starts at the
+	 *         offset, which is the end of the file or data following the
+	 *         last member that is ignored
+	 */
+	private Member advanceTo(long offset) {
+		while(!this.pending.isEmpty() && this.pending.peekFirst().offset < offset) {
+			this.pending.pollFirst().cancel();
+		}
+		
+		while(this.nextCandidate < this.candidates.length && this.candidates[this.nextCandidate] < offset) {
+			this.nextCandidate++;
+		}
+		
+		while(this.pending.size() < this.readAhead && this.nextCandidate < this.candidates.length) {
+			Member member = new Member(this.candidates[this.nextCandidate++]);
+			member.future = this.inflaters.submit(member);
+			this.pending.addLast(member);
+		}
+		
+		if(this.pending.isEmpty() || this.pending.peekFirst().offset != offset) {
+			return null;
+		}
+		
+		return this.pending.pollFirst();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(this.current != null) {
+			this.current.cancel();
+			this.current = null;
+		}
+		
+		for(Member member : this.pending) {
+			member.cancel();
+		}
+		
+		this.pending.clear();
+		this.inflaters.shutdownNow();
+	}
+	
+	/**
+	 * Scan the file for the bytes that may start a member header: the magic
+	 * bytes, the deflate method and flags without the reserved bits.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	private static long[] findCandidates(File file) throws IOException {
+		long[] offsets = new long[16];
+		int count = 0;
+		
+		byte[] bytes = new byte[BUFFER_SIZE];
+		long position = 0;
+		int last = 0;
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			int read;
+			while((read = randomAccessFile.read(bytes)) > 0) {
+				for(int index = 0; index < read; index++) {
+					last = (last << 8) | (bytes[index] & 0xff);
+					if((last & 0xffffff00) == 0x1f8b0800 && (last & 0xe0) == 0) {
+						if(count == offsets.length) {
+							offsets = Arrays.copyOf(offsets, count * 2);
+						}
+						
+						offsets[count++] = position + index - 3;
+					}
+				}
+				
+				position += read;
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		
+		return Arrays.copyOf(offsets, count);
+	}
+	
+	/**
+	 * Reads the compressed bytes of a member, starting at an offset of the
+	 * file. A file of its own is opened for each member, as reading a
+	 * shared channel on a thread that is interrupted, when the member is no
+	 * longer needed, would close the channel for all.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private class Input implements Closeable {
+		
+		final byte[] bytes = new byte[BUFFER_SIZE];
+		
+		final RandomAccessFile randomAccessFile;
+		
+		long position;
+		
+		Input(long position) throws IOException {
+			this.randomAccessFile = new RandomAccessFile(file, "r");
+			this.position = position;
+		}
+		
+		/**
+		 * Read the next bytes into the buffer.
+		 * 
+		 * @return the number of bytes read, or <code>-1</code> at the end of
+		 *         the file
+		 * 
+		 * @throws IOException
+		 */
+		int fill() throws IOException {
+			this.randomAccessFile.seek(this.position);
+			int read = this.randomAccessFile.read(this.bytes);
+			if(read > 0) {
+				this.position += read;
+			}
+			
+			return read;
+		}
+		
+		int readByte() throws IOException {
+			this.randomAccessFile.seek(this.position);
+			int read = this.randomAccessFile.read();
+			if(read == -1) {
+				throw new EOFException("Unexpected end of gzip member");
+			}
+			
+			this.position++;
+			return read;
+		}
+		
+		int readShort() throws IOException {
+			return readByte() | (readByte() << 8);
+		}
+		
+		long readInt() throws IOException {
+			return (readShort() | ((long) readShort() << 16)) & 0xffffffffl;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			this.randomAccessFile.close();
+		}
+		
+	}
+	
+	/**
+	 * A member being inflated from an offset of the file.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private class Member implements Runnable {
+		
+		final long offset;
+		
+		final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<byte[]>(QUEUE_CAPACITY);
+		
+		Future<?> future;
+		
+		/**
+		 * Offset just after the end of the member, once inflated
+		 */
+		volatile long end;
+		
+		volatile IOException error;
+		
+		Member(long offset) {
+			this.offset = offset;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				inflate();
+			} catch (InterruptedException e) {
+				// no longer needed
+				return;
+			} catch (IOException e) {
+				this.error = e;
+			} catch (DataFormatException e) {
+				this.error = new IOException("Invalid gzip member at offset " + this.offset, e);
+			}
+			
+			try {
+				this.blocks.put(END_OF_MEMBER);
+			} catch (InterruptedException e) {
+				// no longer needed
+			}
+		}
+		
+		private void inflate() throws IOException, DataFormatException, InterruptedException {
+			Input input = new Input(this.offset);
+			Inflater inflater = new Inflater(true);
+			try {
+				readHeader(input);
+				
+				CRC32 crc = new CRC32();
+				long size = 0;
+				byte[] output = new byte[BUFFER_SIZE];
+				while(!inflater.finished()) {
+					if(inflater.needsInput()) {
+						int read = input.fill();
+						if(read <= 0) {
+							throw new EOFException("Unexpected end of gzip member at offset " + this.offset);
+						}
+						
+						inflater.setInput(input.bytes, 0, read);
+					}
+					
+					int inflated = inflater.inflate(output);
+					if(inflated > 0) {
+						crc.update(output, 0, inflated);
+						size += inflated;
+						this.blocks.put(Arrays.copyOf(output, inflated));
+					} else if(inflater.needsDictionary()) {
+						throw new DataFormatException("Gzip member needs a dictionary");
+					}
+				}
+				
+				// the trailer follows the deflated data
+				input.position -= inflater.getRemaining();
+				if(input.readInt() != crc.getValue()) {
+					throw new IOException("CRC mismatch in gzip member at offset " + this.offset);
+				}
+				
+				if(input.readInt() != (size & 0xffffffffl)) {
+					throw new IOException("Size mismatch in gzip member at offset " + this.offset);
+				}
+				
+				this.end = input.position;
+			} finally {
+				inflater.end();
+				input.close();
+			}
+		}
+		
+		private void readHeader(Input input) throws IOException {
+			if(input.readShort() != 0x8b1f || input.readByte() != 8) {
+				throw new IOException("Not a gzip member at offset " + this.offset);
+			}
+			
+			int flags = input.readByte();
+			
+			// modification time, extra flags and operating system
+			input.position += 6;
+			
+			if((flags & FEXTRA) != 0) {
+				input.position += input.readShort();
+			}
+			
+			if((flags & FNAME) != 0) {
+				while(input.readByte() != 0) {
+					// skip the name
+				}
+			}
+			
+			if((flags & FCOMMENT) != 0) {
+				while(input.readByte() != 0) {
+					// skip the comment
+				}
+			}
+			
+			if((flags & FHCRC) != 0) {
+				input.position += 2;
+			}
+		}
+		
+		void cancel() {
+			if(this.future != null) {
+				this.future.cancel(true);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Creates named daemon threads to inflate members.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	private static class InflaterThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "fa-inflater-" + this.count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Splits a stream, such as the decompressed data of a compressed file, into
+ * line aligned {@link FileChunk}s. As a stream cannot be read again at an
+ * offset, each chunk carries its bytes along with a look ahead into the
+ * next chunk, for the records that start in the chunk and end after it.
+ * 
+ * A record that runs past the look ahead is cut short at the limit of the
+ * chunk, which is marked as {@link FileChunk#truncated} so that the parsers
+ * can count the records cut short.
+ * 
+ * @author sangupta
+ *
+ */
+public class StreamChunker implements ChunkSource {
+	
+	/**
+	 * Most bytes after the end of a chunk that are carried with it
+	 */
+	public static final int MAX_LOOK_AHEAD = 1024 * 1024;
+	
+	private final InputStream stream;
+	
+	private final int chunkSize;
+	
+	/**
+	 * Bytes read from the stream that have not been handed out yet
+	 */
+	private byte[] buffer;
+	
+	/**
+	 * Number of bytes in the buffer
+	 */
+	private int count;
+	
+	/**
+	 * Offset in the stream of the first byte of the buffer
+	 */
+	private long start;
+	
+	private boolean endOfStream;
+	
+	/**
+	 * Index of the next chunk
+	 */
+	private int index;
+	
+	/**
+	 * Create a chunker for the stream.
+	 * 
+	 * @param stream
+	 *            the stream to split, which is closed along with the chunker
+	 * 
+	 * @param from
+	 *            the offset where the first chunk starts, the bytes before it
+	 *            are skipped
+	 * 
+	 * @param chunkSize
+	 *            the approximate size of each chunk
+	 * 
+	 * @throws IOException
+	 */
+	public StreamChunker(InputStream stream, long from, long chunkSize) throws IOException {
+		this.stream = stream;
+		this.chunkSize = (int) Math.min(chunkSize, Integer.MAX_VALUE - 2 * MAX_LOOK_AHEAD);
+		this.buffer = new byte[this.chunkSize + MAX_LOOK_AHEAD];
+		
+		this.start = IOUtils.skip(stream, from);
+		if(this.start < from) {
+			this.endOfStream = true;
+		}
+	}
+	
+	@Override
+	public FileChunk next() throws IOException {
+		fill(this.chunkSize);
+		if(this.count == 0) {
+			return null;
+		}
+		
+		int end = findLineEnd(this.chunkSize);
+		fill(end + MAX_LOOK_AHEAD);
+		
+		int limit = Math.min(this.count, end + MAX_LOOK_AHEAD);
+		boolean truncated = limit < this.count || !this.endOfStream;
+		ByteBuffer data = ByteBuffer.wrap(Arrays.copyOf(this.buffer, limit));
+		FileChunk chunk = new FileChunk(this.index++, this.start, this.start + end, this.start + limit, data, truncated);
+		
+		// keep the bytes not handed out
+		System.arraycopy(this.buffer, end, this.buffer, 0, this.count - end);
+		this.count -= end;
+		this.start += end;
+		
+		return chunk;
+	}
+	
+	/**
+	 * Find the end of the line that contains the byte at the given index of
+	 * the buffer, reading more of the stream if needed.
+	 * 
+	 * @param from
+	 * @return the index just after the line terminator, or the number of
+	 *         bytes left in the stream if no terminator follows
+	 * 
+	 * @throws IOException
+	 */
+	private int findLineEnd(int from) throws IOException {
+		// the line starts at from if the previous byte ends a line
+		int index = Math.max(0, from - 1);
+		while(true) {
+			for(; index < this.count; index++) {
+				byte current = this.buffer[index];
+				if(current == '\n') {
+					return index + 1;
+				}
+				
+				if(current == '\r') {
+					// a following \n is part of the same terminator
+					fill(index + 2);
+					if(index + 1 < this.count && this.buffer[index + 1] == '\n') {
+						return index + 2;
+					}
+					
+					return index + 1;
+				}
+			}
+			
+			if(this.endOfStream) {
+				return this.count;
+			}
+			
+			// the line continues
+			fill(this.count + MAX_LOOK_AHEAD);
+		}
+	}
+	
+	/**
+	 * Read from the stream until the buffer holds the given number of bytes,
+	 * or the stream ends.
+	 * 
+	 * @param wanted
+	 * @throws IOException
+	 */
+	private void fill(int wanted) throws IOException {
+		if(wanted < 0) {
+			throw new IOException("Line at offset " + this.start + " is too long to be read");
+		}
+		
+		if(wanted > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(wanted, this.buffer.length + MAX_LOOK_AHEAD));
+		}
+		
+		while(this.count < wanted && !this.endOfStream) {
+			int read = this.stream.read(this.buffer, this.count, wanted - this.count);
+			if(read == -1) {
+				this.endOfStream = true;
+				break;
+			}
+			
+			this.count += read;
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.stream.close();
+	}
+	
+}
\ No newline at end of file
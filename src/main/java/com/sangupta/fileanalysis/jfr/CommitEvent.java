@@ -0,0 +1,63 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Commit of a batch of rows inserted into a table.
+ * 
+ * @author sangupta
+ *
+ */
+@Name("com.sangupta.fileanalysis.Commit")
+@Label("Commit")
+@Category({ JfrEvents.CATEGORY, "Load" })
+@Description("Commit of a batch of inserted rows")
+@StackTrace(false)
+public class CommitEvent extends Event {
+	
+	@Label("Table")
+	String table;
+	
+	@Label("Rows")
+	int rows;
+	
+	/**
+	 * Create the event and start timing it.
+	 * 
+	 * @param table
+	 * @param rows
+	 */
+	public CommitEvent(String table, int rows) {
+		this.table = table;
+		this.rows = rows;
+		
+		begin();
+	}
+	
+}
\ No newline at end of file
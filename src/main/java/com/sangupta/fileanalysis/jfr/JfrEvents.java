@@ -0,0 +1,65 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.jfr;
+
+/**
+ * Custom events written to Java Flight Recorder, so that the time spent
+ * parsing, inserting, committing and querying shows up in a recording next
+ * to the garbage collection and I/O of the JVM, such as in JDK Mission
+ * Control. Events cost next to nothing unless a recording that enables
+ * them is running.
+ * 
+ * The events need the <code>jdk.jfr</code> API of Java 11, or Java 8 from
+ * update 262 on. Callers check {@link #AVAILABLE} before creating an event,
+ * so that the event classes are never loaded on an older Java.
+ * 
+ * @author sangupta
+ *
+ */
+public final class JfrEvents {
+	
+	/**
+	 * Category all events are listed under
+	 */
+	static final String CATEGORY = "FileAnalysis";
+	
+	/**
+	 * Whether the JVM supports custom events
+	 */
+	public static final boolean AVAILABLE = isAvailable();
+	
+	private JfrEvents() {
+		// not to be instantiated
+	}
+	
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing of one chunk of a file into a batch of rows.
+ * 
+ * @author sangupta
+ *
+ */
+@Name("com.sangupta.fileanalysis.Parse")
+@Label("Parse Chunk")
+@Category({ JfrEvents.CATEGORY, "Load" })
+@Description("Parsing of a chunk of a file into rows")
+@StackTrace(false)
+public class ParseEvent extends Event {
+	
+	@Label("File")
+	String file;
+	
+	@Label("Chunk")
+	int chunk;
+	
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+	
+	/**
+	 * Create the event and start timing it.
+	 * 
+	 * @param file
+	 * @param chunk
+	 *            the position of the chunk in the file
+	 * 
+	 * @param bytes
+	 */
+	public ParseEvent(String file, int chunk, long bytes) {
+		this.file = file;
+		this.chunk = chunk;
+		this.bytes = bytes;
+		
+		begin();
+	}
+	
+}
\ No newline at end of file
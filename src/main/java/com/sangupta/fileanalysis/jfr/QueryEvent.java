@@ -0,0 +1,76 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Execution of a statement by the database, up to its result being ready
+ * to be read. The time taken to show or export the result is not included,
+ * nor are queries answered from the cache.
+ * 
+ * @author sangupta
+ *
+ */
+@Name("com.sangupta.fileanalysis.Query")
+@Label("Query")
+@Category({ JfrEvents.CATEGORY, "Query" })
+@Description("Execution of a SQL statement")
+@StackTrace(false)
+public class QueryEvent extends Event {
+	
+	@Label("SQL")
+	String sql;
+	
+	@Label("Rows")
+	@Description("Rows returned or updated, -1 if not known")
+	long rows = -1;
+	
+	@Label("Background")
+	boolean background;
+	
+	/**
+	 * Create the event and start timing it.
+	 * 
+	 * @param sql
+	 * @param background
+	 *            whether the query runs as a background job
+	 */
+	public QueryEvent(String sql, boolean background) {
+		this.sql = sql;
+		this.background = background;
+		
+		begin();
+	}
+	
+	// Usual accessors follow
+	
+	public void setRows(long rows) {
+		this.rows = rows;
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.db.DBColumnType;
+
+/**
+ * Tests for {@link AnalysisConfig}.
+ * 
+ * @author sangupta
+ *
+ */
+public class AnalysisConfigTest {
+	
+	@Test
+	public void testFromArgs() throws IOException {
+		File file = File.createTempFile("fa-config", ".properties");
+		try {
+			FileUtils.writeStringToFile(file, "header=false\nindexes=level\ntype.Price=long\nfiles=a.log\n", "UTF-8");
+			
+			AnalysisConfig config = AnalysisConfig.fromArgs(new String[] { "--config=" + file.getPath(), "--indexes=none", "b.log", "logs/*.log" });
+			Assert.assertFalse(config.isInteractive());
+			
+			// arguments win over the config file
+			Assert.assertEquals("none", config.getString("indexes", "Columns to index: ", null));
+			Assert.assertFalse(config.getBoolean("header", "Data has header row (true): ", true));
+			
+			// missing choices take the default without asking
+			Assert.assertTrue(config.getBoolean("merge", "Merge records (true): ", true));
+			Assert.assertEquals(",", config.getString("delimiter", "Enter the file delimiter: ", ","));
+			
+			Assert.assertEquals(DBColumnType.LONG, config.getColumnType("price"));
+			Assert.assertNull(config.getColumnType("quantity"));
+			
+			Assert.assertEquals(Arrays.asList("a.log", "b.log", "logs/*.log"), config.getFiles());
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidArgument() throws IOException {
+		AnalysisConfig.fromArgs(new String[] { "--header" });
+	}
+	
+}
@@ -0,0 +1,66 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.ingest.IngestStats;
+
+/**
+ * Tests for {@link ProgressReporter}.
+ * 
+ * @author sangupta
+ *
+ */
+public class ProgressReporterTest {
+	
+	@Test
+	public void testEta() {
+		// a quarter read in ten seconds leaves thirty
+		Assert.assertEquals(30000, ProgressReporter.getEta(250, 1000, 10000));
+		Assert.assertEquals(0, ProgressReporter.getEta(1000, 1000, 10000));
+		
+		Assert.assertEquals(-1, ProgressReporter.getEta(0, 1000, 10000));
+		Assert.assertEquals(-1, ProgressReporter.getEta(250, IngestStats.UNKNOWN, 10000));
+	}
+	
+	@Test
+	public void testFormat() {
+		Assert.assertEquals("512 bytes", ProgressReporter.formatBytes(512));
+		Assert.assertEquals("1.5 KB", ProgressReporter.formatBytes(1536));
+		Assert.assertEquals("2.0 MB", ProgressReporter.formatBytes(2l * 1024l * 1024l));
+		Assert.assertEquals("3.00 GB", ProgressReporter.formatBytes(3l * 1024l * 1024l * 1024l));
+		
+		Assert.assertEquals("0:00:00", ProgressReporter.formatDuration(0));
+		Assert.assertEquals("0:01:05", ProgressReporter.formatDuration(65000));
+		Assert.assertEquals("1:02:03", ProgressReporter.formatDuration(3723000));
+	}
+	
+	@Test
+	public void testProgress() {
+		long mb = 1024l * 1024l;
+		Assert.assertEquals("Read 10.0 MB of 40.0 MB (25.0%), 500 rows/sec, 1.0 MB/sec, ETA 0:00:30", ProgressReporter.getProgress(10 * mb, 40 * mb, 5000, 10000));
+		Assert.assertEquals("Read 10.0 MB, 500 rows/sec, 1.0 MB/sec, ETA unknown", ProgressReporter.getProgress(10 * mb, IngestStats.UNKNOWN, 5000, 10000));
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.db.DBColumnType;
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.DatabaseTable;
+
+/**
+ * Tests for {@link QueryJob}.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryJobTest {
+	
+	@Test
+	public void testJobDoesNotBlockWriter() throws Exception {
+		final Database database = new Database("fa-query-job-test", true);
+		try {
+			final DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			QueryJob job = new QueryJob(1, "JOB_1", "select count(*) from system_range(1, 1000000) a, system_range(1, 1000) b");
+			job.start(database);
+			while(job.getElapsedTime() == 0) {
+				Thread.sleep(10);
+			}
+			
+			// load rows the way the file follower does while the job runs
+			FutureTask<Boolean> load = new FutureTask<Boolean>(new Callable<Boolean>() {
+				
+				@Override
+				public Boolean call() {
+					synchronized(database) {
+						database.insertRecord(table, new Object[] { "first" });
+						return database.flushBatches();
+					}
+				}
+				
+			});
+			new Thread(load).start();
+			
+			Assert.assertTrue(load.get(5, TimeUnit.SECONDS));
+			Assert.assertTrue(job.isRunning());
+			
+			Assert.assertTrue(job.cancel());
+			Assert.assertEquals("Cancelled", job.getStatus());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+}
\ No newline at end of file
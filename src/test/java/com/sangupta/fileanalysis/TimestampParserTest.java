@@ -0,0 +1,103 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimestampParser}.
+ * 
+ * @author sangupta
+ *
+ */
+public class TimestampParserTest {
+	
+	@Test
+	public void testParse() throws Exception {
+		TimestampParser parser = new TimestampParser("yyyy-MM-dd HH:mm:ss,SSS");
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS");
+		
+		// hours after noon, and the same second with different fractions
+		String[] dates = { "2015-06-01 14:05:09,001", "2015-06-01 14:05:09,999", "2015-06-01 02:05:09,250", "2015-12-31 23:59:59,000" };
+		for(String date : dates) {
+			Assert.assertEquals(date, format.parse(date).getTime(), parser.parseMillis(date));
+		}
+		
+		String[] invalid = { "", "2015-06-01", "2015-06-01 14:05:09", "2015-06-01 14:05:09,0a1", "2015-06-01 14:05:09.001", "java.lang.NullPointerException: at" };
+		for(String date : invalid) {
+			Assert.assertEquals(date, TimestampParser.INVALID, parser.parseMillis(date));
+		}
+		
+		Assert.assertNull(parser.parse(null));
+		
+		TimestampParser apache = new TimestampParser("dd/MMM/yyyy:HH:mm:ss Z");
+		SimpleDateFormat apacheFormat = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+		Assert.assertEquals(apacheFormat.parse("10/Oct/2000:13:55:36 -0700").getTime(), apache.parseMillis("10/Oct/2000:13:55:36 -0700"));
+	}
+	
+	@Test
+	public void testConcurrentParse() throws Exception {
+		final TimestampParser parser = new TimestampParser("yyyy-MM-dd HH:mm:ss,SSS");
+		final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS");
+		final long start = format.parse("2015-06-01 00:00:00,000").getTime();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for(int thread = 0; thread < 4; thread++) {
+			final int offset = thread * 3600 * 1000;
+			results.add(executor.submit(new Callable<Boolean>() {
+				
+				@Override
+				public Boolean call() throws Exception {
+					SimpleDateFormat expected = (SimpleDateFormat) format.clone();
+					for(int millis = 0; millis < 200000; millis += 7) {
+						String date = expected.format(new Date(start + offset + millis));
+						if(parser.parseMillis(date) != start + offset + millis) {
+							return false;
+						}
+					}
+					
+					return true;
+				}
+				
+			}));
+		}
+		
+		for(Future<Boolean> result : results) {
+			Assert.assertTrue(result.get());
+		}
+		
+		executor.shutdown();
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DBResultViewer}.
+ * 
+ * @author sangupta
+ *
+ */
+public class DBResultViewerTest {
+	
+	@Test
+	public void testNullValues() throws Exception {
+		Database database = new Database("fa-viewer-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("id", DBColumnType.LONG);
+			table.addColumn("hits", DBColumnType.INT);
+			table.addColumn("ratio", DBColumnType.DOUBLE);
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			database.insertRecord(table, new Object[] { "-", "", "x", "first" });
+			database.insertRecord(table, new Object[] { "7", "0", "0.5", "second" });
+			database.flushBatches();
+			
+			// read in one go
+			String text = view(database, "select id, hits, ratio, name from data order by linenum", false);
+			Assert.assertTrue(text, text.contains("NULL, NULL, NULL, first"));
+			Assert.assertTrue(text, text.contains("7, 0, 0.5, second"));
+			Assert.assertTrue(text, text.endsWith("Total number of rows displayed: 2\n"));
+			
+			// read in pages
+			text = view(database, "select id, hits, ratio, name from data", true);
+			Assert.assertTrue(text, text.contains("NULL, NULL, NULL, first"));
+			Assert.assertTrue(text, text.contains("7, 0, 0.5, second"));
+			Assert.assertTrue(text, text.endsWith("Total number of rows displayed: 2\n"));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	private static String view(Database database, String query, boolean paged) throws IOException {
+		final DBResultViewer viewer = new DBResultViewer(database);
+		
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(bytes, true, "UTF-8"));
+		try {
+			if(paged) {
+				PagedQuery pagedQuery = PagedQuery.of(database, query);
+				Assert.assertNotNull(pagedQuery);
+				viewer.viewResult(pagedQuery);
+			} else {
+				Assert.assertTrue(database.execute(query, new SQLStatementConsumer() {
+					
+					@Override
+					public void consume(Statement statement) {
+						try {
+							viewer.viewResult(statement);
+						} catch (SQLException e) {
+							throw new RuntimeException(e);
+						}
+					}
+					
+				}, false));
+			}
+		} finally {
+			System.setOut(out);
+		}
+		
+		return bytes.toString("UTF-8").replace("\r\n", "\n");
+	}
+	
+}
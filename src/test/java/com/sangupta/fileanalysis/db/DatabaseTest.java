@@ -0,0 +1,169 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the batched inserts of {@link Database}.
+ * 
+ * @author sangupta
+ *
+ */
+public class DatabaseTest {
+	
+	@Test
+	public void testBatchesAndFinalFlush() {
+		Database database = new Database("fa-database-batch-test", true);
+		try {
+			database.setBatchSize(3);
+			DatabaseTable table = createTable(database);
+			
+			for(int index = 0; index < 7; index++) {
+				Assert.assertTrue(database.insertRecord(table, new Object[] { "row" + index }));
+			}
+			
+			// two full batches are written, the last row waits for the flush
+			Assert.assertEquals(6, readNames(database).size());
+			
+			Assert.assertTrue(database.flushBatches());
+			Assert.assertEquals(7, readNames(database).size());
+			Assert.assertEquals(0, database.getIngestStats().getRejectedRows());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testBadRowKeepsRestOfBatch() {
+		Database database = new Database("fa-database-reject-test", true);
+		try {
+			database.setBatchSize(5);
+			DatabaseTable table = createTable(database);
+			database.getIngestStats().start(0);
+			
+			boolean success = true;
+			for(int index = 0; index < 5; index++) {
+				String name = index == 2 ? "a value far too long for the column" : "row" + index;
+				success = database.insertRecord(table, new Object[] { name }) && success;
+			}
+			
+			database.flushBatches();
+			
+			Assert.assertFalse(success);
+			Assert.assertEquals(1, database.getIngestStats().getRejectedRows());
+			Assert.assertNotNull(database.getIngestStats().getRejectReason());
+			
+			List<String> expected = new ArrayList<String>();
+			expected.add("row0");
+			expected.add("row1");
+			expected.add("row3");
+			expected.add("row4");
+			Assert.assertEquals(expected, readNames(database));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testUnparsableValuesCounted() {
+		Database database = new Database("fa-database-invalid-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn(new DBColumn("count", DBColumnType.INT));
+			table.addColumn(new DBColumn("time", DBColumnType.TIMESTAMP));
+			database.createTable(table);
+			database.getIngestStats().start(0);
+			
+			Assert.assertTrue(database.insertRecord(table, new Object[] { "12", "01/Feb/2015:10:20:30 +0000" }));
+			Assert.assertTrue(database.insertRecord(table, new Object[] { "-", "" }));
+			Assert.assertTrue(database.insertRecord(table, new Object[] { "twelve", "yesterday" }));
+			database.flushBatches();
+			
+			// blank values are not counted, the row is kept with NULLs
+			Assert.assertEquals(2, database.getIngestStats().getInvalidValues());
+			Assert.assertEquals(0, database.getIngestStats().getRejectedRows());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testMissingAndExtraValues() {
+		Database database = new Database("fa-database-values-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn(new DBColumn("name", DBColumnType.STRNG, 10));
+			table.addColumn(new DBColumn("note", DBColumnType.TEXT));
+			database.createTable(table);
+			database.getIngestStats().start(0);
+			
+			Assert.assertTrue(database.insertRecord(table, new Object[] { null, null }));
+			Assert.assertTrue(database.insertRecord(table, new Object[] { "second", "note" }));
+			Assert.assertFalse(database.insertRecord(table, new Object[] { "third", "note", "extra" }));
+			database.flushBatches();
+			
+			// missing values are NULL, too many values reject the row
+			Assert.assertEquals(Arrays.asList(null, "second"), readNames(database));
+			Assert.assertEquals(1, database.getIngestStats().getRejectedRows());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	private static DatabaseTable createTable(Database database) {
+		DatabaseTable table = new DatabaseTable("data");
+		table.addColumn(new DBColumn("name", DBColumnType.STRNG, 10));
+		database.createTable(table);
+		return table;
+	}
+	
+	private static List<String> readNames(Database database) {
+		final List<String> names = new ArrayList<String>();
+		database.execute("select name from data order by linenum", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					while(resultSet.next()) {
+						names.add(resultSet.getString(1));
+					}
+				} catch (SQLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+		});
+		
+		return names;
+	}
+	
+}
\ No newline at end of file
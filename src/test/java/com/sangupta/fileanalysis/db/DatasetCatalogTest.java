@@ -0,0 +1,169 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.db.DatasetCatalog.DatasetState;
+import com.sangupta.fileanalysis.io.FileFingerprint;
+
+/**
+ * Tests for {@link DatasetCatalog} and the {@link FileFingerprint}s it
+ * keeps.
+ * 
+ * @author sangupta
+ *
+ */
+public class DatasetCatalogTest {
+	
+	@Test
+	public void testUnchangedAndAppended() throws IOException {
+		File file = createFile("first line\nsecond line\n");
+		
+		Database database = new Database("fa-catalog-append-test", true);
+		try {
+			DatasetCatalog catalog = new DatasetCatalog(database);
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(file));
+			
+			catalog.record(FileFingerprint.of(file, file.length()));
+			Assert.assertEquals(DatasetState.UNCHANGED, catalog.getState(file));
+			Assert.assertEquals(file.length(), catalog.getFingerprint().size);
+			
+			long modified = file.lastModified();
+			write(file, "third line\n", true);
+			file.setLastModified(modified + 2000);
+			Assert.assertEquals(DatasetState.APPENDED, catalog.getState(file));
+			
+			// a partial load is never reused
+			catalog.clear();
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(file));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testRewrittenWithSameSize() throws IOException {
+		File file = createFile("first line\nsecond line\n");
+		long modified = file.lastModified();
+		
+		Database database = new Database("fa-catalog-rewrite-test", true);
+		try {
+			DatasetCatalog catalog = new DatasetCatalog(database);
+			catalog.record(FileFingerprint.of(file, file.length()));
+			
+			// same content, touched: nothing past the data loaded to load
+			file.setLastModified(modified + 2000);
+			Assert.assertEquals(DatasetState.APPENDED, catalog.getState(file));
+			
+			// different content and time
+			write(file, "FIRST LINE\nsecond line\n", false);
+			file.setLastModified(modified + 2000);
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(file));
+			
+			// different content, same size and time
+			file.setLastModified(modified);
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(file));
+			
+			// content back as it was
+			write(file, "first line\nsecond line\n", false);
+			file.setLastModified(modified);
+			Assert.assertEquals(DatasetState.UNCHANGED, catalog.getState(file));
+			
+			// grown, but the data loaded has changed
+			write(file, "FIRST LINE\nsecond line\nthird line\n", false);
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(file));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testFileSets() throws IOException {
+		List<File> files = new ArrayList<File>();
+		files.add(createFile("a,1\n"));
+		files.add(createFile("b,2\n"));
+		
+		Database database = new Database("fa-catalog-set-test", true);
+		try {
+			DatasetCatalog catalog = new DatasetCatalog(database);
+			
+			List<FileFingerprint> fingerprints = new ArrayList<FileFingerprint>();
+			for(File file : files) {
+				fingerprints.add(FileFingerprint.of(file, file.length()));
+			}
+			
+			catalog.record(fingerprints);
+			Assert.assertEquals(DatasetState.UNCHANGED, catalog.getState(files));
+			
+			// a file added to the set
+			files.add(createFile("c,3\n"));
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(files));
+			files.remove(2);
+			
+			// even appending to a file of a set needs a full load
+			write(files.get(1), "b,4\n", true);
+			Assert.assertEquals(DatasetState.NEW, catalog.getState(files));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testSameNameInDifferentFolders() throws IOException {
+		File first = new File(Files.createTempDirectory("fa-catalog").toFile(), "access.log");
+		File second = new File(Files.createTempDirectory("fa-catalog").toFile(), "access.log");
+		
+		String name = DatasetCatalog.getDatabaseName(first, "APACHE");
+		Assert.assertTrue(name.startsWith("access.log-"));
+		Assert.assertEquals(name, DatasetCatalog.getDatabaseName(new File(first.getPath()), "APACHE"));
+		
+		Assert.assertNotEquals(name, DatasetCatalog.getDatabaseName(second, "APACHE"));
+		Assert.assertNotEquals(name, DatasetCatalog.getDatabaseName(first, "CSV"));
+		
+		first.getParentFile().deleteOnExit();
+		second.getParentFile().deleteOnExit();
+	}
+	
+	private static File createFile(String text) throws IOException {
+		File file = File.createTempFile("fa-catalog", ".txt");
+		file.deleteOnExit();
+		
+		write(file, text, false);
+		return file;
+	}
+	
+	private static void write(File file, String text, boolean append) throws IOException {
+		FileOutputStream stream = new FileOutputStream(file, append);
+		stream.write(text.getBytes("UTF-8"));
+		stream.close();
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExportFormat}.
+ * 
+ * @author sangupta
+ *
+ */
+public class ExportFormatTest {
+	
+	@Test
+	public void testCsvQuoting() throws IOException {
+		String[] headers = new String[] { "name", "note" };
+		String text = write(ExportFormat.CSV, headers,
+				new String[] { "plain", "a,b" },
+				new String[] { "say \"hi\"", "first\r\nsecond" },
+				new String[] { null, "" });
+		
+		Assert.assertEquals("name,note\n"
+				+ "plain,\"a,b\"\n"
+				+ "\"say \"\"hi\"\"\",\"first\r\nsecond\"\n"
+				+ ",\n", text);
+	}
+	
+	@Test
+	public void testJsonEscaping() throws IOException {
+		String[] headers = new String[] { "name", "say \"what\"" };
+		String text = write(ExportFormat.JSON, headers,
+				new String[] { "tab\there", "quote \" and \\ and \u0001 and \n" },
+				new String[] { null, "" });
+		
+		Assert.assertEquals("[\n"
+				+ "{ \"name\": \"tab\\there\", \"say \\\"what\\\"\": \"quote \\\" and \\\\ and \\u0001 and \\n\" },\n"
+				+ "{ \"name\": null, \"say \\\"what\\\"\": \"\" }\n"
+				+ "]\n", text);
+		
+		// no rows is still an array
+		Assert.assertEquals("[\n]\n", write(ExportFormat.JSON, headers));
+	}
+	
+	@Test
+	public void testXmlElementNames() throws IOException {
+		String[] headers = new String[] { "count(*)", "1st", "level" };
+		String text = write(ExportFormat.XML, headers, new String[] { "42", null, "<a & b>" });
+		
+		Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<data>\n"
+				+ "\t<row>\n"
+				+ "\t\t<count___>42</count___>\n"
+				+ "\t\t<_1st></_1st>\n"
+				+ "\t\t<level>&lt;a &amp; b&gt;</level>\n"
+				+ "\t</row>\n"
+				+ "</data>\n", text);
+	}
+	
+	@Test
+	public void testGzipRoundTrip() throws IOException {
+		Database database = new Database("fa-export-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			for(int index = 0; index < 1000; index++) {
+				database.insertRecord(table, new Object[] { "name, " + index });
+			}
+			database.flushBatches();
+			
+			File plain = File.createTempFile("fa-export", ".csv");
+			plain.deleteOnExit();
+			File compressed = File.createTempFile("fa-export", ".csv.gz");
+			compressed.deleteOnExit();
+			
+			export(database, plain, false);
+			export(database, compressed, true);
+			
+			String expected = read(new FileInputStream(plain));
+			Assert.assertTrue(expected.startsWith("NAME\n\"name, 0\"\n\"name, 1\"\n"));
+			Assert.assertEquals(expected, read(new GZIPInputStream(new FileInputStream(compressed))));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	private static void export(final Database database, final File file, final boolean gzip) {
+		database.execute("select name from data order by linenum", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					Assert.assertEquals(1000, new DBResultViewer(database).export(statement.getResultSet(), ExportFormat.CSV, file, gzip));
+				} catch (SQLException e) {
+					throw new RuntimeException(e);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+		});
+	}
+	
+	private static String read(InputStream stream) throws IOException {
+		try {
+			return IOUtils.toString(stream, "UTF-8");
+		} finally {
+			stream.close();
+		}
+	}
+	
+	private static String write(ExportFormat format, String[] headers, String[]... rows) throws IOException {
+		StringWriter writer = new StringWriter();
+		format.writeStart(writer, headers);
+		for(int index = 0; index < rows.length; index++) {
+			format.writeRow(writer, headers, rows[index], index + 1);
+		}
+		format.writeEnd(writer);
+		
+		return writer.toString();
+	}
+	
+}
\ No newline at end of file
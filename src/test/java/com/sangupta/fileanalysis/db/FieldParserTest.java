@@ -0,0 +1,109 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.db.FieldParser.Status;
+import com.sangupta.fileanalysis.io.ByteSlice;
+
+/**
+ * Tests for {@link FieldParser}.
+ * 
+ * @author sangupta
+ *
+ */
+public class FieldParserTest {
+	
+	@Test
+	public void testParseLong() {
+		FieldParser parser = new FieldParser();
+		
+		String[] valid = { "0", "7", "-7", "+42", " 123 ", "007", "9223372036854775807", "-9223372036854775808" };
+		for(String text : valid) {
+			Assert.assertEquals(text, Status.VALUE, parser.parseLong(text));
+			Assert.assertEquals(text, Long.parseLong(text.trim()), parser.getLong());
+		}
+		
+		String[] invalid = { "+", "--1", "1.5", "12a", "a12", "9223372036854775808", "-9223372036854775809", "1 2" };
+		for(String text : invalid) {
+			Assert.assertEquals(text, Status.INVALID, parser.parseLong(text));
+		}
+		
+		Assert.assertEquals(Status.NULL, parser.parseLong(""));
+		Assert.assertEquals(Status.NULL, parser.parseLong("  "));
+		Assert.assertEquals(Status.NULL, parser.parseLong("-"));
+		Assert.assertEquals(Status.NULL, parser.parseLong(null));
+		
+		Assert.assertEquals(Status.VALUE, parser.parseInt("2147483647"));
+		Assert.assertEquals(Integer.MAX_VALUE, parser.getInt());
+		Assert.assertEquals(Status.INVALID, parser.parseInt("2147483648"));
+	}
+	
+	@Test
+	public void testParseDouble() {
+		FieldParser parser = new FieldParser();
+		
+		String[] valid = { "0", "-0", "1.5", "-2.25", ".5", "5.", "0.001", "1e3", "1.5E-7", "-3.14159265358979", "123456789012345678901234", "4.9e-324", "1e400", "0.1", "0.30000000000000004" };
+		for(String text : valid) {
+			Assert.assertEquals(text, Status.VALUE, parser.parseDouble(text));
+			Assert.assertEquals(text, Double.parseDouble(text), parser.getDouble(), 0d);
+		}
+		
+		String[] invalid = { ".", "1.2.3", "1e", "e5", "1e+", "NaN", "12a", "1,5" };
+		for(String text : invalid) {
+			Assert.assertEquals(text, Status.INVALID, parser.parseDouble(text));
+		}
+		
+		Assert.assertEquals(Status.NULL, parser.parseDouble("-"));
+		
+		// random numbers round trip exactly
+		Random random = new Random(42);
+		for(int index = 0; index < 10000; index++) {
+			double expected = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+			String text = String.valueOf(expected);
+			Assert.assertEquals(Status.VALUE, parser.parseDouble(text));
+			Assert.assertEquals(text, expected, parser.getDouble(), 0d);
+		}
+	}
+	
+	@Test
+	public void testParseByteSlice() {
+		Charset charset = Charset.forName("UTF-8");
+		ByteBuffer buffer = ByteBuffer.wrap("GET /index 200 - 1.25".getBytes(charset));
+		ByteSlice[] fields = new ByteSlice(buffer, 0, buffer.capacity(), charset).splitByWholeSeparator(new byte[] { ' ' });
+		
+		FieldParser parser = new FieldParser();
+		Assert.assertEquals(Status.INVALID, parser.parseLong(fields[0]));
+		Assert.assertEquals(Status.VALUE, parser.parseLong(fields[2]));
+		Assert.assertEquals(200, parser.getLong());
+		Assert.assertEquals(Status.NULL, parser.parseLong(fields[3]));
+		Assert.assertEquals(Status.VALUE, parser.parseDouble(fields[4]));
+		Assert.assertEquals(1.25d, parser.getDouble(), 0d);
+	}
+	
+}
\ No newline at end of file
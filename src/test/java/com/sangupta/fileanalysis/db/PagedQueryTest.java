@@ -0,0 +1,74 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PagedQuery}.
+ * 
+ * @author sangupta
+ *
+ */
+public class PagedQueryTest {
+	
+	@Test
+	public void testPageable() {
+		Database database = new Database("fa-paged-query-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			PagedQuery query = PagedQuery.of(database, "select * from data;");
+			Assert.assertNotNull(query);
+			Assert.assertEquals("SELECT LINENUM, * FROM data ORDER BY LINENUM LIMIT 20", query.getPageQuery(null, 20));
+			Assert.assertEquals("SELECT LINENUM, * FROM data WHERE LINENUM > 40 ORDER BY LINENUM LIMIT 20", query.getPageQuery(40l, 20));
+			
+			query = PagedQuery.of(database, "SELECT name FROM DATA WHERE name = 'order' or name = 'it''s'");
+			Assert.assertNotNull(query);
+			Assert.assertEquals("SELECT LINENUM, name FROM DATA WHERE (name = 'order' or name = 'it''s') AND LINENUM > 7 ORDER BY LINENUM LIMIT 10", query.getPageQuery(7l, 10));
+			
+			// the order or number of rows would change
+			Assert.assertNull(PagedQuery.of(database, "select count(*) from data"));
+			Assert.assertNull(PagedQuery.of(database, "select * from data order by name"));
+			Assert.assertNull(PagedQuery.of(database, "select distinct name from data"));
+			Assert.assertNull(PagedQuery.of(database, "select * from data limit 10"));
+			Assert.assertNull(PagedQuery.of(database, "select * from data where name in (select name from data)"));
+			Assert.assertNull(PagedQuery.of(database, "select * from data d, data e"));
+			Assert.assertNull(PagedQuery.of(database, "select * from data where name = 'x'; drop table data"));
+			
+			// no key column
+			database.execute("create table plain (name varchar(255))");
+			Assert.assertNull(PagedQuery.of(database, "select * from plain"));
+			Assert.assertNull(PagedQuery.of(database, "show tables"));
+			
+			// key column copied without being the primary key
+			database.execute("create table job_1 as select * from data");
+			Assert.assertNull(PagedQuery.of(database, "select * from job_1"));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+}
\ No newline at end of file
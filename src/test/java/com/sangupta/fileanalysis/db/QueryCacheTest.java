@@ -0,0 +1,174 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link QueryCache}.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryCacheTest {
+	
+	@Test
+	public void testNormalize() {
+		Assert.assertEquals("select level, count(*) from logs where msg = 'A  B' group by level", QueryCache.normalize("  SELECT level,\n\tCOUNT(*)  FROM logs WHERE msg = 'A  B' GROUP BY level ;"));
+		
+		Assert.assertTrue(QueryCache.isCacheable(QueryCache.normalize("select * from data")));
+		Assert.assertFalse(QueryCache.isCacheable(QueryCache.normalize("select now() from data")));
+		Assert.assertFalse(QueryCache.isCacheable(QueryCache.normalize("select 1; delete from data")));
+		Assert.assertFalse(QueryCache.isCacheable(QueryCache.normalize("delete from data")));
+		
+		Assert.assertTrue(QueryCache.isReadOnly(QueryCache.normalize("show tables")));
+		Assert.assertFalse(QueryCache.isReadOnly(QueryCache.normalize("insert into data (name) values ('a')")));
+	}
+	
+	@Test
+	public void testCachedUntilDataChanges() {
+		Database database = new Database("fa-query-cache-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			database.insertRecord(table, new Object[] { "first" });
+			database.flushBatches();
+			
+			QueryCache cache = database.getQueryCache();
+			Assert.assertEquals("[first]", names(database, "select name from data order by name"));
+			Assert.assertEquals(0, cache.getHits());
+			Assert.assertEquals(1, cache.getMisses());
+			
+			Assert.assertEquals("[first]", names(database, "SELECT name FROM data ORDER BY name;"));
+			Assert.assertEquals(1, cache.getHits());
+			
+			// a write makes the cached result stale
+			database.insertRecord(table, new Object[] { "second" });
+			database.flushBatches();
+			
+			Assert.assertEquals("[first, second]", names(database, "select name from data order by name"));
+			Assert.assertEquals(1, cache.getHits());
+			Assert.assertEquals(2, cache.getMisses());
+			Assert.assertEquals(1, cache.getSize());
+			
+			database.execute("delete from data where name = 'first'");
+			Assert.assertEquals("[second]", names(database, "select name from data order by name"));
+			Assert.assertEquals("[second]", names(database, "select name from data order by name"));
+			Assert.assertEquals(2, cache.getHits());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testBypass() {
+		Database database = new Database("fa-query-cache-bypass-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			database.insertRecord(table, new Object[] { "first" });
+			database.flushBatches();
+			
+			for(int run = 0; run < 2; run++) {
+				final List<String> names = new ArrayList<String>();
+				Assert.assertTrue(database.execute("select name from data", new SQLStatementConsumer() {
+					
+					@Override
+					public void consume(Statement statement) {
+						try {
+							ResultSet resultSet = statement.getResultSet();
+							Assert.assertEquals(ResultSet.TYPE_FORWARD_ONLY, resultSet.getType());
+							while(resultSet.next()) {
+								names.add(resultSet.getString(1));
+							}
+						} catch (SQLException e) {
+							throw new RuntimeException(e);
+						}
+					}
+					
+				}, false));
+				
+				Assert.assertEquals("[first]", names.toString());
+			}
+			
+			QueryCache cache = database.getQueryCache();
+			Assert.assertEquals(0, cache.getHits());
+			Assert.assertEquals(0, cache.getMisses());
+			Assert.assertEquals(0, cache.getSize());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testClobColumn() {
+		Database database = new Database("fa-query-cache-clob-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.TEXT);
+			database.createTable(table);
+			
+			database.insertRecord(table, new Object[] { "first" });
+			database.flushBatches();
+			
+			// read from the cache both times
+			Assert.assertEquals("[first]", names(database, "select name from data"));
+			Assert.assertEquals("[first]", names(database, "select name from data"));
+			Assert.assertEquals(1, database.getQueryCache().getHits());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	private static String names(Database database, String query) {
+		final List<String> names = new ArrayList<String>();
+		database.execute(query, new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					while(resultSet.next()) {
+						names.add(resultSet.getString(1));
+					}
+				} catch (SQLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+		});
+		
+		return names.toString();
+	}
+	
+}
\ No newline at end of file
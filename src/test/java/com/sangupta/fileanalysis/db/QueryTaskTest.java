@@ -0,0 +1,115 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link QueryTask}.
+ * 
+ * @author sangupta
+ *
+ */
+public class QueryTaskTest {
+	
+	@Test
+	public void testQueryDoesNotWaitForWriter() throws Exception {
+		Database database = new Database("fa-query-task-test", true);
+		try {
+			DatabaseTable table = new DatabaseTable("data");
+			table.addColumn("name", DBColumnType.STRNG);
+			database.createTable(table);
+			
+			database.insertRecord(table, new Object[] { "first" });
+			database.flushBatches();
+			
+			final AtomicLong count = new AtomicLong();
+			
+			// as if rows were being loaded
+			synchronized(database) {
+				QueryTask task = database.submit("select count(*) from data", new SQLStatementConsumer() {
+					
+					@Override
+					public void consume(Statement statement) {
+						try {
+							ResultSet resultSet = statement.getResultSet();
+							resultSet.next();
+							count.set(resultSet.getLong(1));
+						} catch (SQLException e) {
+							throw new RuntimeException(e);
+						}
+					}
+					
+				});
+				
+				Assert.assertTrue(task.get(10, TimeUnit.SECONDS));
+			}
+			
+			Assert.assertEquals(1, count.get());
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testTimeout() throws Exception {
+		Database database = new Database("fa-query-task-timeout-test", true);
+		try {
+			database.setQueryTimeout(1);
+			Assert.assertFalse(database.submit("select count(*) from system_range(1, 1000000) a, system_range(1, 1000) b", null).get(30, TimeUnit.SECONDS));
+			
+			// the limit is not left behind on the connection
+			database.setQueryTimeout(0);
+			Assert.assertTrue(database.submit("select 1", null).get(30, TimeUnit.SECONDS));
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+	@Test
+	public void testCancel() throws Exception {
+		Database database = new Database("fa-query-task-cancel-test", true);
+		try {
+			QueryTask task = database.submit("select count(*) from system_range(1, 1000000) a, system_range(1, 1000) b", null);
+			Assert.assertTrue(task.cancel(true));
+			Assert.assertTrue(task.isCancelled());
+			
+			try {
+				task.get();
+				Assert.fail("Cancelled task should not return a result");
+			} catch (CancellationException e) {
+				// expected
+			}
+		} finally {
+			database.closeDatabase();
+		}
+	}
+	
+}
\ No newline at end of file
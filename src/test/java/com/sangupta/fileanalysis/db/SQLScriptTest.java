@@ -0,0 +1,54 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SQLScript}.
+ * 
+ * @author sangupta
+ *
+ */
+public class SQLScriptTest {
+	
+	@Test
+	public void testSplit() {
+		String script = "-- errors by level\n"
+				+ "select level, count(*) from logs group by level;\n"
+				+ "\n"
+				+ "/* messages; with a semi-colon */\n"
+				+ "select * from logs where msg = 'a;b' and msg <> 'it''s;' ;\n"
+				+ "select \"odd;name\" from t -- trailing; comment\n";
+		
+		Assert.assertEquals(Arrays.asList(
+				"select level, count(*) from logs group by level",
+				"select * from logs where msg = 'a;b' and msg <> 'it''s;'",
+				"select \"odd;name\" from t"), SQLScript.split(script));
+		
+		Assert.assertTrue(SQLScript.split(" ;\n-- nothing\n;").isEmpty());
+	}
+	
+}
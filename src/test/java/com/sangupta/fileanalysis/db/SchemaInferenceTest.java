@@ -0,0 +1,98 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.db;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SchemaInference}.
+ * 
+ * @author sangupta
+ *
+ */
+public class SchemaInferenceTest {
+	
+	@Test
+	public void testBlankFirstValue() {
+		DBColumn column = infer("", "-", " 12 ", "7");
+		Assert.assertEquals(DBColumnType.INT, column.columnType);
+		
+		// only blanks
+		Assert.assertEquals(DBColumnType.STRNG, infer("", "-").columnType);
+	}
+	
+	@Test
+	public void testWidening() {
+		Assert.assertEquals("INT", infer("1", "-2").getDBType());
+		Assert.assertEquals("BIGINT", infer("1", "3000000000").getDBType());
+		Assert.assertEquals("DOUBLE", infer("1", "3000000000", "1.5").getDBType());
+		Assert.assertEquals("VARCHAR", infer("1", "3000000000", "1.5", "abc").getDBType());
+	}
+	
+	@Test
+	public void testTimestamps() {
+		long expected = LocalDateTime.of(2015, 2, 1, 10, 20, 30).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		
+		assertTimestamp(expected, "2015-02-01 10:20:30", "2015-02-01 10:20:31");
+		assertTimestamp(expected + 123, "2015-02-01 10:20:30.123", "");
+		assertTimestamp(expected + 123, "2015-02-01 10:20:30,123", "-");
+		assertTimestamp(expected, "2015-02-01T10:20:30", "2015-02-01T10:20:31");
+		assertTimestamp(expected + 123, "2015-02-01T10:20:30.123", "2015-02-01T10:20:31.456");
+		assertTimestamp(1422786030000l, "2015-02-01T10:20:30Z", "2015-02-01T11:20:30+01:00");
+		assertTimestamp(1422786030000l, "01/Feb/2015:10:20:30 +0000", "01/Feb/2015:10:20:31 +0000");
+		
+		// values in different formats, or not timestamps at all
+		Assert.assertEquals(DBColumnType.STRNG, infer("2015-02-01 10:20:30", "2015-02-01T10:20:30").columnType);
+		Assert.assertEquals(DBColumnType.STRNG, infer("2015-02-01 10:20:30", "soon").columnType);
+	}
+	
+	@Test
+	public void testLongValues() {
+		String longest = StringUtils.repeat('x', SchemaInference.MAX_VARCHAR_LENGTH);
+		Assert.assertEquals("VARCHAR", infer("short", longest).getDBType());
+		Assert.assertEquals("CLOB", infer("short", longest + "x").getDBType());
+	}
+	
+	private static void assertTimestamp(long expected, String first, String second) {
+		DBColumn column = infer(first, second);
+		Assert.assertEquals(DBColumnType.TIMESTAMP, column.columnType);
+		Assert.assertEquals(expected, column.parseTimestamp(first).getTime());
+	}
+	
+	private static DBColumn infer(String... values) {
+		SchemaInference inference = new SchemaInference();
+		for(String value : values) {
+			inference.addRow(new Object[] { value });
+		}
+		
+		List<DBColumn> columns = inference.getColumns(new String[] { "value" });
+		Assert.assertEquals("value", columns.get(0).name);
+		return columns.get(0);
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sangupta.fileanalysis.io.ByteSlice;
+
+/**
+ * Compares the time taken by {@link ApacheLogTokenizer} to split lines of an
+ * access log with that of the earlier tokenizer, which copied each line
+ * into a {@link StringBuilder} and inserted the request fields into a
+ * {@link List}. Run with <code>main</code>, as it is too slow for a test.
+ * 
+ * @author sangupta
+ *
+ */
+public class ApacheLogTokenizerBenchmark {
+	
+	private static final String[] HTTP_VERBS = ApacheLogTokenizer.HTTP_VERBS;
+	
+	private static final String[] OS_DECIPHER_WORDS = { "Macintosh", "Mac OS X" };
+	
+	private static final String[] BROWSER_DECIPHER_WORDS = { "AppleWebKit", "Gecko", "Chrome", "KHTML", "Safari" };
+	
+	private static final int LINES = 100000;
+	
+	private static final int ROUNDS = 10;
+	
+	static final String[] SAMPLE_LINES = {
+		"127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\" 200 2326",
+		"192.168.1.20 - - [10/Oct/2000:13:55:37 -0700] \"POST /api/v1/orders?id=1234 HTTP/1.1\" 201 512 \"http://example.com/start\" \"Mozilla/5.0 (Macintosh; Intel Mac OS X 10_10_3) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/43.0 Safari/537.36\"",
+		"10.0.0.7 - - [10/Oct/2000:13:55:38 -0700] \"DELETE /items/42 HTTP/1.1\" 404 - \"-\" \"curl/7.43.0\"",
+		"10.0.0.8 - - [10/Oct/2000:13:55:39 -0700] \"GET /\" 200 18",
+		"10.0.0.9 - - [10/Oct/2000:13:55:40 -0700] \"-\" 400 0 \"\" \"\""
+	};
+	
+	public static void main(String[] args) {
+		Charset charset = Charset.forName("UTF-8");
+		
+		List<String> lines = new ArrayList<String>();
+		List<ByteSlice> slices = new ArrayList<ByteSlice>();
+		for(int index = 0; index < LINES; index++) {
+			String line = SAMPLE_LINES[index % SAMPLE_LINES.length];
+			lines.add(line);
+			
+			byte[] bytes = line.getBytes(charset);
+			slices.add(new ByteSlice(ByteBuffer.wrap(bytes), 0, bytes.length, charset));
+		}
+		
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			long fields = 0;
+			for(ByteSlice slice : slices) {
+				// the earlier tokenizer decoded the line first
+				fields += parseLogLine(slice.toString()).size();
+			}
+			long legacy = System.nanoTime() - start;
+			
+			ApacheLogTokenizer tokenizer = new ApacheLogTokenizer();
+			start = System.nanoTime();
+			for(ByteSlice slice : slices) {
+				fields -= tokenizer.tokenize(slice);
+			}
+			long current = System.nanoTime() - start;
+			
+			if(fields != 0) {
+				throw new IllegalStateException("Tokenizers differ in the number of fields");
+			}
+			
+			System.out.println("Round " + (round + 1) + ": earlier " + (legacy / 1000000) + " millis, tokenizer " + (current / 1000000) + " millis, speedup " + String.format("%.1f", (double) legacy / current) + "x");
+		}
+	}
+	
+	/**
+	 * The earlier implementation, kept as the baseline.
+	 * 
+	 * @param logLine
+	 * @return
+	 */
+	static List<String> parseLogLine(final String logLine) {
+		List<String> tokens = parseBaseTokens(logLine);
+		
+		// bifurcate the request method etc as well
+		int endIndex = tokens.size();
+		for(int index = 0; index < endIndex; index++) {
+			String token = tokens.get(index);
+			
+			// check for http verb
+			if(startsWithAny(token, HTTP_VERBS)) {
+				int space = token.indexOf(' ');
+				if(space != -1) {
+					String verb = token.substring(0, space);
+					if(isAnyOf(verb, HTTP_VERBS)) {
+						// add a new token here - verb comes first
+						tokens.add(index, verb);
+						index++;
+						endIndex++;
+						
+						// extract protocol
+						int lastSpace = token.lastIndexOf(' ');
+						if(lastSpace != space) {
+							String protocol = token.substring(lastSpace + 1);
+							tokens.add(index + 1, protocol);
+							index++;
+							endIndex++;
+						}
+						
+						// trim the current path
+						if(space != lastSpace) {
+							token = token.substring(space + 1, lastSpace);
+							tokens.set(index - 1, token);
+						} else {
+							token = token.substring(space + 1);
+							tokens.set(index - 1, token);
+						}
+						
+						continue;
+					}
+				}
+			}
+			
+			// check for OS
+			if(containsAny(token, OS_DECIPHER_WORDS) && containsAny(token, BROWSER_DECIPHER_WORDS)) {
+				String os = decipherOSFromUserAgent(token);
+				if(os != null) {
+					tokens.add(index, os);
+					index++;
+					endIndex++;
+					continue;
+				}
+			}
+		}
+		
+		return tokens;
+	}
+	
+	private static String decipherOSFromUserAgent(String token) {
+		return null;
+	}
+	
+	private static List<String> parseBaseTokens(final String logLine) {
+		List<String> tokens = new ArrayList<String>();
+		
+		StringBuilder builder = new StringBuilder(100);
+		char[] charArray = logLine.toCharArray();
+		
+		boolean inQuotes = false;
+		boolean inBrackets = false;
+		
+		for (int index = 0; index < charArray.length; index++) {
+			if (charArray[index] == '"') {
+				inQuotes = inQuotes ? false : true;
+			} else if (charArray[index] == '[') {
+				inBrackets = true;
+			} else if (charArray[index] == ']') {
+				if (inBrackets) {
+					inBrackets = false;
+				}
+			} else if (charArray[index] == ' ' && (!inQuotes) && (!inBrackets)) {
+				tokens.add(builder.toString());
+				builder.setLength(0);
+			} else {
+				builder.append(charArray[index]);
+			}
+		}
+		
+		if (builder.length() > 0) {
+			tokens.add(builder.toString());
+		}
+		
+		return tokens;
+	}
+	
+	private static boolean isAnyOf(String value, String[] list) {
+		for(String item : list) {
+			if(item.equals(value)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static boolean containsAny(String value, String[] list) {
+		for(String item : list) {
+			if(value.contains(item)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static boolean startsWithAny(String value, String[] list) {
+		for(String item : list) {
+			if(value.startsWith(item)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+}
\ No newline at end of file
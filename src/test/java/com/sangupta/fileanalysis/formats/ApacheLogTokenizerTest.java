@@ -0,0 +1,74 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ApacheLogTokenizer}.
+ * 
+ * @author sangupta
+ *
+ */
+public class ApacheLogTokenizerTest {
+	
+	@Test
+	public void testTokenize() {
+		ApacheLogTokenizer tokenizer = new ApacheLogTokenizer();
+		
+		List<String> expected = Arrays.asList("127.0.0.1", "-", "frank", "10/Oct/2000:13:55:36 -0700", "GET", "/apache_pb.gif", "HTTP/1.0", "200", "2326");
+		Assert.assertEquals(expected, tokenize(tokenizer, ApacheLogTokenizerBenchmark.SAMPLE_LINES[0]));
+		
+		// the tokenizer is reused across lines
+		expected = Arrays.asList("10.0.0.8", "-", "-", "10/Oct/2000:13:55:39 -0700", "GET", "/", "200", "18");
+		Assert.assertEquals(expected, tokenize(tokenizer, ApacheLogTokenizerBenchmark.SAMPLE_LINES[3]));
+	}
+	
+	@Test
+	public void testSameAsEarlierTokenizer() {
+		ApacheLogTokenizer tokenizer = new ApacheLogTokenizer();
+		for(String line : ApacheLogTokenizerBenchmark.SAMPLE_LINES) {
+			if(line.contains("\"GET /\"")) {
+				// the earlier tokenizer swapped the verb and path of requests without a protocol
+				continue;
+			}
+			
+			Assert.assertEquals(line, ApacheLogTokenizerBenchmark.parseLogLine(line), tokenize(tokenizer, line));
+		}
+	}
+	
+	private static List<String> tokenize(ApacheLogTokenizer tokenizer, String line) {
+		List<String> tokens = new ArrayList<String>();
+		int fields = tokenizer.tokenize(line);
+		for(int field = 0; field < fields; field++) {
+			tokens.add(line.substring(tokenizer.getStart(field), tokenizer.getEnd(field)));
+		}
+		
+		return tokens;
+	}
+	
+}
\ No newline at end of file
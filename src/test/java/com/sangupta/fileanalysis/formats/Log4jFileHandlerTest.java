@@ -0,0 +1,190 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.AnalysisConfig;
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.SQLStatementConsumer;
+import com.sangupta.fileanalysis.io.StreamChunker;
+
+/**
+ * Tests for the parsing of log records split into chunks by
+ * {@link Log4jFileHandler}.
+ * 
+ * @author sangupta
+ *
+ */
+public class Log4jFileHandlerTest {
+	
+	private static final String FIRST = "01 Feb 2015 10:20:30,100 [main] [:] INFO com.example.App - started";
+	
+	private static final String SECOND = "01 Feb 2015 10:20:31,200 [worker-1] [:] ERROR com.example.Job - failed";
+	
+	private static final String TRACE = "java.lang.IllegalStateException: boom\n\tat com.example.Job.run(Job.java:42)\n\tat java.lang.Thread.run(Thread.java:745)";
+	
+	private static final String THIRD = "01 Feb 2015 10:20:32,300 [main] [:] WARN com.example.App - stopping";
+	
+	@Test
+	public void testBoundaryAtLineEnd() throws IOException {
+		String text = FIRST + "\n" + SECOND + "\n" + TRACE + "\n" + THIRD + "\n";
+		assertRecords(text, FIRST.length() + 1);
+	}
+	
+	@Test
+	public void testCrLfSplitAcrossBoundary() throws IOException {
+		String text = toCrLf(FIRST + "\n" + SECOND + "\n" + TRACE + "\n" + THIRD + "\n");
+		
+		// the chunk would end between the \r and \n of the first line
+		assertRecords(text, FIRST.length() + 1);
+	}
+	
+	@Test
+	public void testStackTraceSpansChunks() throws IOException {
+		String text = FIRST + "\n" + SECOND + "\n" + TRACE + "\n" + THIRD;
+		
+		// a chunk ends in the middle of the trace
+		assertRecords(text, FIRST.length() + SECOND.length() + 10);
+	}
+	
+	@Test
+	public void testEveryChunkSize() throws IOException {
+		String text = FIRST + "\n" + SECOND + "\n" + TRACE + "\n" + THIRD + "\n";
+		for(String file : new String[] { text, toCrLf(text) }) {
+			for(int chunkSize = 1; chunkSize <= file.length() + 1; chunkSize++) {
+				assertRecords(file, chunkSize);
+			}
+		}
+	}
+	
+	@Test
+	public void testTraceBeyondLookAheadCounted() throws IOException {
+		StringBuilder trace = new StringBuilder();
+		while(trace.length() < 2 * StreamChunker.MAX_LOOK_AHEAD) {
+			trace.append("\tat com.example.Job.run(Job.java:42)\n");
+		}
+		
+		File file = File.createTempFile("fa-log4j-truncated", ".log.gz");
+		file.deleteOnExit();
+		
+		OutputStream stream = new GZIPOutputStream(new FileOutputStream(file));
+		stream.write((FIRST + "\n" + SECOND + "\n" + trace + THIRD + "\n").getBytes("UTF-8"));
+		stream.close();
+		
+		Database database = new Database("fa-log4j-truncated-test", true);
+		try {
+			Log4jFileHandler handler = new Log4jFileHandler();
+			handler.setConfig(AnalysisConfig.of(new Properties()));
+			handler.initialize(database, file);
+			handler.getIngestConfig().setChunkSize(1024);
+			handler.readConfiguration();
+			handler.createDBTables();
+			handler.loadFile();
+			database.flushBatches();
+			
+			// the trace is cut short, and the lines past the look ahead are
+			// not read as records of their own
+			Assert.assertEquals(3, readRecords(database).size());
+			Assert.assertEquals(1, database.getIngestStats().getTruncatedRecords());
+		} finally {
+			database.closeDatabase();
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Load the text in chunks of the given size, and check that each record
+	 * is loaded once, in the order of the file.
+	 * 
+	 */
+	private static void assertRecords(String text, long chunkSize) throws IOException {
+		File file = File.createTempFile("fa-log4j-chunks", ".log");
+		file.deleteOnExit();
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		stream.write(text.getBytes("UTF-8"));
+		stream.close();
+		
+		Properties properties = new Properties();
+		properties.setProperty("long.messages", "true");
+		
+		Database database = new Database("fa-log4j-chunk-test", true);
+		try {
+			Log4jFileHandler handler = new Log4jFileHandler();
+			handler.setConfig(AnalysisConfig.of(properties));
+			handler.initialize(database, file);
+			handler.getIngestConfig().setChunkSize(chunkSize);
+			handler.readConfiguration();
+			handler.createDBTables();
+			handler.loadFile();
+			database.flushBatches();
+			
+			// records without a stack trace have no error
+			List<String> expected = Arrays.asList("started|null", "failed|" + TRACE, "stopping|null");
+			Assert.assertEquals("chunk size " + chunkSize, expected, readRecords(database));
+		} finally {
+			database.closeDatabase();
+			file.delete();
+		}
+	}
+	
+	private static List<String> readRecords(Database database) {
+		final List<String> records = new ArrayList<String>();
+		database.execute("select msg, error from logs order by linenum", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					while(resultSet.next()) {
+						records.add(resultSet.getString(1) + "|" + resultSet.getString(2));
+					}
+				} catch (SQLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+		});
+		
+		return records;
+	}
+	
+	private static String toCrLf(String text) {
+		return text.replace("\n", "\r\n");
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.AnalysisConfig;
+import com.sangupta.fileanalysis.db.Database;
+import com.sangupta.fileanalysis.db.SQLStatementConsumer;
+
+/**
+ * Tests for {@link TSVFileHandler}.
+ * 
+ * @author sangupta
+ *
+ */
+public class TSVFileHandlerTest {
+	
+	@Test
+	public void testBlankLinesBeforeHeader() throws IOException {
+		Assert.assertEquals(Arrays.asList("1|one", "2|two"), load("id\tname\n1\tone\n2\ttwo\n"));
+		Assert.assertEquals(Arrays.asList("1|one", "2|two"), load("\n  \r\nid\tname\n1\tone\n\n2\ttwo\n"));
+	}
+	
+	/**
+	 * Load the text with a header row and read back its rows.
+	 * 
+	 */
+	private static List<String> load(String text) throws IOException {
+		File file = File.createTempFile("fa-tsv", ".tsv");
+		file.deleteOnExit();
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		stream.write(text.getBytes("UTF-8"));
+		stream.close();
+		
+		Properties properties = new Properties();
+		properties.setProperty("header", "true");
+		
+		Database database = new Database("fa-tsv-test", true);
+		try {
+			TSVFileHandler handler = new TSVFileHandler();
+			handler.setConfig(AnalysisConfig.of(properties));
+			handler.initialize(database, file);
+			handler.readConfiguration();
+			handler.createDBTables();
+			handler.loadFile();
+			database.flushBatches();
+			
+			// the header is not read as a row of values
+			Assert.assertEquals(0, database.getIngestStats().getInvalidValues());
+			return readRows(database);
+		} finally {
+			database.closeDatabase();
+			file.delete();
+		}
+	}
+	
+	private static List<String> readRows(Database database) {
+		final List<String> rows = new ArrayList<String>();
+		database.execute("select id, name from data order by linenum", new SQLStatementConsumer() {
+			
+			@Override
+			public void consume(Statement statement) {
+				try {
+					ResultSet resultSet = statement.getResultSet();
+					while(resultSet.next()) {
+						rows.add(resultSet.getInt(1) + "|" + resultSet.getString(2));
+					}
+				} catch (SQLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+		});
+		
+		return rows;
+	}
+	
+}
\ No newline at end of file
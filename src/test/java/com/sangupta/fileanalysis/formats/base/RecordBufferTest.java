@@ -0,0 +1,133 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.formats.base;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.fileanalysis.io.MappedLineReader;
+
+/**
+ * Tests for {@link RecordBuffer}.
+ * 
+ * @author sangupta
+ *
+ */
+public class RecordBufferTest {
+	
+	@Test
+	public void testSameAsConcatenation() throws IOException {
+		String text = "REC one line only\n"
+				+ "REC failed\n"
+				+ "java.lang.IllegalStateException: boom\n"
+				+ "\n"
+				+ "\tat com.example.Job.run(Job.java:42)\n"
+				+ "REC another single line\n"
+				+ "REC failed again\n"
+				+ "java.io.IOException: gone\n"
+				+ "\tat com.example.Job.read(Job.java:7)";
+		
+		File file = File.createTempFile("fa-record-buffer", ".log");
+		file.deleteOnExit();
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		stream.write(text.getBytes("UTF-8"));
+		stream.close();
+		
+		// the buffer is reused across records, as by the parser
+		RecordBuffer buffer = new RecordBuffer();
+		String line = null;
+		List<String> messages = new ArrayList<String>();
+		
+		MappedLineReader reader = MappedLineReader.forHead(file, Charset.forName("UTF-8"));
+		try {
+			String segment;
+			while((segment = reader.readLine()) != null) {
+				if(segment.startsWith("REC")) {
+					assertSame(line, buffer, messages);
+					line = segment;
+				} else {
+					line = line + "\n" + segment;
+				}
+				
+				buffer.append(segment);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		// the last record ends at the end of the file, without a new line
+		assertSame(line, buffer, messages);
+		
+		List<String> expected = new ArrayList<String>();
+		expected.add("REC one line only");
+		expected.add("REC failed");
+		expected.add("REC another single line");
+		expected.add("REC failed again");
+		Assert.assertEquals(expected, messages);
+	}
+	
+	@Test
+	public void testSingleLine() {
+		RecordBuffer buffer = new RecordBuffer();
+		Assert.assertTrue(buffer.isEmpty());
+		
+		buffer.append("only line");
+		Assert.assertEquals(1, buffer.getSegmentCount());
+		Assert.assertEquals("only line", buffer.getSegments(0, 1));
+		Assert.assertNull(buffer.getSegments(1, buffer.getSegmentCount()));
+		
+		buffer.clear();
+		Assert.assertTrue(buffer.isEmpty());
+	}
+	
+	/**
+	 * Check that the message and error copied out of the buffer are those
+	 * split out of the record built by concatenation, as was done before,
+	 * and start the next record.
+	 * 
+	 */
+	private static void assertSame(String line, RecordBuffer buffer, List<String> messages) {
+		if(line == null) {
+			Assert.assertTrue(buffer.isEmpty());
+			return;
+		}
+		
+		int newLine = line.indexOf('\n');
+		String message = newLine < 0 ? line : line.substring(0, newLine);
+		String error = newLine < 0 ? null : line.substring(newLine + 1);
+		
+		Assert.assertEquals(message, buffer.getSegments(0, 1));
+		Assert.assertEquals(error, buffer.getSegments(1, buffer.getSegmentCount()));
+		messages.add(message);
+		
+		buffer.clear();
+	}
+	
+}
\ No newline at end of file
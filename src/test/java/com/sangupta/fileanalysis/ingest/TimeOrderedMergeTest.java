@@ -0,0 +1,117 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.ingest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimeOrderedMerge}.
+ * 
+ * @author sangupta
+ *
+ */
+public class TimeOrderedMergeTest {
+	
+	@Test
+	public void testMerge() throws IOException {
+		// rows are { time, name }, a null time sorts with the row before
+		final Object[][][] sources = {
+			{ row(1l, "a1"), row(4l, "a4"), row(null, "a4+"), row(9l, "a9") },
+			{ row(2l, "b2"), row(4l, "b4"), row(5l, "b5") },
+			{ },
+			{ row(null, "d0"), row(3l, "d3"), row(10l, "d10") }
+		};
+		
+		final List<String> merged = new ArrayList<String>();
+		new TimeOrderedMerge(sources.length) {
+			
+			@Override
+			protected void read(int source) throws IOException {
+				// hand over one row at a time to cross batches
+				for(Object[] row : sources[source]) {
+					emit(source, new ArrayList<Object[]>(Arrays.asList(new Object[][] { row })));
+				}
+			}
+			
+			@Override
+			protected long getTime(Object[] row) {
+				return row[0] == null ? NO_TIME : (Long) row[0];
+			}
+			
+			@Override
+			protected void consume(int source, Object[] row) {
+				merged.add((String) row[1]);
+			}
+			
+		}.execute();
+		
+		Assert.assertEquals(Arrays.asList("d0", "a1", "b2", "d3", "a4", "a4+", "b4", "b5", "a9", "d10"), merged);
+	}
+	
+	@Test
+	public void testSourceError() {
+		try {
+			new TimeOrderedMerge(2) {
+				
+				@Override
+				protected void read(int source) throws IOException {
+					if(source == 1) {
+						throw new IOException("broken");
+					}
+					
+					List<Object[]> rows = new ArrayList<Object[]>();
+					for(long time = 0; time < 100; time++) {
+						rows.add(row(time, "a"));
+					}
+					
+					emit(source, rows);
+				}
+				
+				@Override
+				protected long getTime(Object[] row) {
+					return (Long) row[0];
+				}
+				
+				@Override
+				protected void consume(int source, Object[] row) {
+					// nothing to do
+				}
+				
+			}.execute();
+			
+			Assert.fail("Error in source was not reported");
+		} catch(IOException e) {
+			Assert.assertEquals("broken", e.getMessage());
+		}
+	}
+	
+	private static Object[] row(Long time, String name) {
+		return new Object[] { time, name };
+	}
+	
+}
\ No newline at end of file
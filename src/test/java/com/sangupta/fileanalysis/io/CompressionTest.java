@@ -0,0 +1,65 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Compression}.
+ * 
+ * @author sangupta
+ *
+ */
+public class CompressionTest {
+	
+	@Test
+	public void testDetectBzip2() throws IOException {
+		// start of a stream with one block, and an empty stream
+		Assert.assertEquals(Compression.BZIP2, detect(new byte[] { 'B', 'Z', 'h', '9', 0x31, 0x41, 0x59, 0x26, 0x53, 0x59, 0x63, 0x3e }));
+		Assert.assertEquals(Compression.BZIP2, detect(new byte[] { 'B', 'Z', 'h', '1', 0x17, 0x72, 0x45, 0x38, 0x50, (byte) 0x90, 0, 0, 0, 0 }));
+		
+		// text that happens to start alike
+		Assert.assertEquals(Compression.NONE, detect("BZh is a bzip2 header\n".getBytes("UTF-8")));
+		Assert.assertEquals(Compression.NONE, detect("BZh9 blocks\n".getBytes("UTF-8")));
+		Assert.assertEquals(Compression.NONE, detect("BZh".getBytes("UTF-8")));
+	}
+	
+	private static Compression detect(byte[] bytes) throws IOException {
+		File file = File.createTempFile("fa-compression", ".dat");
+		try {
+			OutputStream output = new FileOutputStream(file);
+			output.write(bytes);
+			output.close();
+			
+			return Compression.detect(file);
+		} finally {
+			file.delete();
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FileChunker}.
+ * 
+ * @author sangupta
+ *
+ */
+public class FileChunkerTest {
+	
+	@Test
+	public void testBoundaryAtLineEnd() throws IOException {
+		File file = writeFile("aaaa\nbbbb\ncccc\n");
+		
+		// each chunk ends right after a terminator, and is not extended
+		Assert.assertEquals(ends(0, 5, 10, 15), getChunks(file, 5));
+	}
+	
+	@Test
+	public void testCrLfSplitAcrossBoundary() throws IOException {
+		File file = writeFile("aaa\r\nbbb\r\nccc");
+		
+		// the boundary falls between \r and \n, which end the same line
+		Assert.assertEquals(ends(0, 5, 10, 13), getChunks(file, 4));
+		
+		// a lone \r ends a line too
+		file = writeFile("aaa\rbbb\r\nccc");
+		Assert.assertEquals(ends(0, 4, 9, 12), getChunks(file, 4));
+	}
+	
+	@Test
+	public void testEveryChunkSize() throws IOException {
+		String text = "first\nsecond\r\nthird\rfourth\r\n\nsixth";
+		File file = writeFile(text);
+		
+		for(int chunkSize = 1; chunkSize <= text.length() + 1; chunkSize++) {
+			List<Long> ends = getChunks(file, chunkSize);
+			Assert.assertEquals(Long.valueOf(text.length()), ends.get(ends.size() - 1));
+			
+			for(int index = 1; index < ends.size() - 1; index++) {
+				int end = ends.get(index).intValue();
+				char previous = text.charAt(end - 1);
+				Assert.assertTrue("chunk size " + chunkSize + " ends at " + end, previous == '\n' || (previous == '\r' && text.charAt(end) != '\n'));
+			}
+		}
+	}
+	
+	/**
+	 * Get the start of the first chunk followed by the end of each chunk.
+	 * 
+	 */
+	private static List<Long> getChunks(File file, long chunkSize) throws IOException {
+		List<Long> ends = new ArrayList<Long>();
+		ends.add(0l);
+		
+		FileChunker chunker = new FileChunker(file, 0, chunkSize);
+		try {
+			FileChunk chunk;
+			while((chunk = chunker.next()) != null) {
+				Assert.assertEquals(ends.get(ends.size() - 1), Long.valueOf(chunk.start));
+				ends.add(chunk.end);
+			}
+		} finally {
+			chunker.close();
+		}
+		
+		return ends;
+	}
+	
+	private static List<Long> ends(long... offsets) {
+		List<Long> list = new ArrayList<Long>();
+		for(long offset : offsets) {
+			list.add(offset);
+		}
+		
+		return list;
+	}
+	
+	private static File writeFile(String text) throws IOException {
+		File file = File.createTempFile("fa-file-chunker", ".txt");
+		file.deleteOnExit();
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		stream.write(text.getBytes("UTF-8"));
+		stream.close();
+		
+		return file;
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link InputFiles}.
+ * 
+ * @author sangupta
+ *
+ */
+public class InputFilesTest {
+	
+	@Test
+	public void testResolve() throws IOException {
+		File folder = Files.createTempDirectory("fa-input-files").toFile();
+		try {
+			File first = touch(folder, "app-1.log");
+			File second = touch(folder, "app-2.log.gz");
+			File other = touch(folder, "other.txt");
+			touch(folder, ".hidden.log");
+			File nested = touch(new File(folder, "host"), "app-3.log");
+			
+			String base = folder.getAbsolutePath() + File.separator;
+			
+			assertFiles(InputFiles.resolve(first.getPath()), first);
+			assertFiles(InputFiles.resolve(folder.getPath()), first, second, other);
+			assertFiles(InputFiles.resolve(base + "*.log*"), first, second);
+			assertFiles(InputFiles.resolve(base + "app-?.log"), first);
+			assertFiles(InputFiles.resolve(base + "*/*.log"), nested);
+			assertFiles(InputFiles.resolve(base + "**.log"), first, nested);
+			assertFiles(InputFiles.resolve(base + "*.{txt,gz}"), second, other);
+			assertFiles(InputFiles.resolve(base + "missing/*.log"));
+			assertFiles(InputFiles.resolve(base + "missing.log"));
+			
+			Assert.assertTrue(InputFiles.isGlob("/var/log/app/*.log*"));
+			Assert.assertFalse(InputFiles.isGlob("/var/log/app/access.log"));
+		} finally {
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+	
+	private static File touch(File folder, String name) throws IOException {
+		File file = new File(folder, name);
+		FileUtils.writeStringToFile(file, name);
+		return file;
+	}
+	
+	private static void assertFiles(List<File> actual, File... expected) {
+		Assert.assertEquals(expected.length, actual.size());
+		for(int index = 0; index < expected.length; index++) {
+			Assert.assertEquals(expected[index].getAbsolutePath(), actual.get(index).getAbsolutePath());
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MappedLineReader}.
+ * 
+ * @author sangupta
+ *
+ */
+public class MappedLineReaderTest {
+	
+	@Test
+	public void testLinesAcrossWindows() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		String[] terminators = { "\n", "\r\n", "\r" };
+		for(int index = 0; index < 200; index++) {
+			builder.append("line number ").append(index);
+			for(int repeat = 0; repeat < index % 5; repeat++) {
+				builder.append(" - some more text");
+			}
+			
+			builder.append(terminators[index % terminators.length]);
+			if(index % 17 == 0) {
+				builder.append("\n");
+			}
+		}
+		builder.append("last line without terminator");
+		
+		File file = File.createTempFile("fa-mapped-reader", ".txt");
+		file.deleteOnExit();
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		stream.write(builder.toString().getBytes("UTF-8"));
+		stream.close();
+		
+		List<String> expected = new ArrayList<String>();
+		BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
+		String line;
+		while((line = bufferedReader.readLine()) != null) {
+			expected.add(line);
+		}
+		bufferedReader.close();
+		
+		// windows smaller than the lines force remapping
+		for(int windowSize : new int[] { 1, 7, 64, MappedLineReader.DEFAULT_WINDOW_SIZE }) {
+			List<String> actual = new ArrayList<String>();
+			long position = 0;
+			
+			MappedLineReader reader = new MappedLineReader(file, 0, Charset.forName("UTF-8"), windowSize);
+			while((line = reader.readLine()) != null) {
+				Assert.assertEquals(position, reader.getLineStart());
+				position = reader.getPosition();
+				
+				actual.add(line);
+			}
+			reader.close();
+			
+			Assert.assertEquals("window size " + windowSize, expected, actual);
+			Assert.assertEquals(file.length(), position);
+		}
+	}
+	
+}
\ No newline at end of file
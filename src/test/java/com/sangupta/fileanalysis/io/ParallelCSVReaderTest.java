@@ -0,0 +1,149 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import au.com.bytecode.opencsv.CSVReader;
+
+import com.sangupta.fileanalysis.ingest.IngestConfig;
+
+/**
+ * Tests for {@link ParallelCSVReader}.
+ * 
+ * @author sangupta
+ *
+ */
+public class ParallelCSVReaderTest {
+	
+	@Test
+	public void testMatchesCSVReader() throws IOException {
+		File file = File.createTempFile("fa-parallel-csv", ".csv");
+		file.deleteOnExit();
+		
+		PrintWriter writer = new PrintWriter(file);
+		writer.println("id,name,notes");
+		for(int index = 0; index < 500; index++) {
+			if(index % 7 == 0) {
+				// quoted field spanning multiple lines
+				writer.println(index + ",\"name " + index + "\",\"first line,\nsecond \"\"line\"\"\nthird\"");
+			} else if(index % 11 == 0) {
+				writer.println(index + ",\"quoted, with comma\",");
+			} else {
+				writer.println(index + ",name " + index + ",plain");
+			}
+		}
+		writer.close();
+		
+		List<String> expected = new ArrayList<String>();
+		CSVReader csvReader = new CSVReader(new FileReader(file));
+		csvReader.readNext();
+		String[] record;
+		while((record = csvReader.readNext()) != null) {
+			expected.add(Arrays.toString(record));
+		}
+		csvReader.close();
+		
+		// small chunks so that many begin inside quoted fields
+		for(long chunkSize : new long[] { 13, 64, 1000, 1 << 20 }) {
+			IngestConfig config = new IngestConfig();
+			config.setChunkSize(chunkSize);
+			config.setParseThreads(4);
+			
+			// a tiny queue keeps the reader waiting on the writer
+			config.setQueueCapacity(1);
+			
+			ParallelCSVReader reader = new ParallelCSVReader(file, config);
+			final List<String> actual = new ArrayList<String>();
+			reader.read(reader.skipRecords(1), new ParallelCSVReader.RowHandler() {
+				
+				@Override
+				public void handleRows(List<Object[]> rows) {
+					for(Object[] row : rows) {
+						actual.add(Arrays.toString(row));
+					}
+				}
+				
+			});
+			
+			Assert.assertEquals("chunk size " + chunkSize, expected, actual);
+		}
+		
+		// the same file compressed in several gzip members
+		File compressed = File.createTempFile("fa-parallel-csv", ".csv.gz");
+		compressed.deleteOnExit();
+		
+		byte[] bytes = FileUtils.readFileToByteArray(file);
+		OutputStream output = new FileOutputStream(compressed);
+		for(int start = 0; start < bytes.length; start += 4000) {
+			GZIPOutputStream member = new GZIPOutputStream(output) {
+				
+				@Override
+				public void close() throws IOException {
+					// keep the file open for the next member
+					finish();
+				}
+				
+			};
+			
+			member.write(bytes, start, Math.min(4000, bytes.length - start));
+			member.close();
+		}
+		output.close();
+		
+		for(long chunkSize : new long[] { 13, 1000, 1 << 20 }) {
+			IngestConfig config = new IngestConfig();
+			config.setChunkSize(chunkSize);
+			config.setParseThreads(4);
+			config.setDecompressThreads(3);
+			
+			ParallelCSVReader reader = new ParallelCSVReader(compressed, config);
+			final List<String> actual = new ArrayList<String>();
+			reader.read(reader.skipRecords(1), new ParallelCSVReader.RowHandler() {
+				
+				@Override
+				public void handleRows(List<Object[]> rows) {
+					for(Object[] row : rows) {
+						actual.add(Arrays.toString(row));
+					}
+				}
+				
+			});
+			
+			Assert.assertEquals("compressed, chunk size " + chunkSize, expected, actual);
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelGzipInputStream}.
+ * 
+ * @author sangupta
+ *
+ */
+public class ParallelGzipInputStreamTest {
+	
+	@Test
+	public void testReadsAllMembers() throws IOException {
+		Random random = new Random(42);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		
+		File file = File.createTempFile("fa-parallel-gzip", ".gz");
+		file.deleteOnExit();
+		
+		OutputStream output = new FileOutputStream(file);
+		for(int member = 0; member < 20; member++) {
+			byte[] data = new byte[random.nextInt(300000)];
+			for(int index = 0; index < data.length; index++) {
+				data[index] = (byte) ('a' + random.nextInt(8));
+			}
+			
+			// stored members hold the bytes of a member header as they are
+			if(member % 5 == 0) {
+				System.arraycopy(new byte[] { 0x1f, (byte) 0x8b, 8, 0 }, 0, data, data.length / 2, 4);
+			}
+			
+			expected.write(data);
+			output.write(gzip(data, member % 5 == 0 ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION));
+		}
+		output.close();
+		
+		for(int threads = 1; threads <= 4; threads++) {
+			InputStream stream = new ParallelGzipInputStream(file, threads);
+			try {
+				Assert.assertTrue("threads " + threads, Arrays.equals(expected.toByteArray(), IOUtils.toByteArray(stream)));
+			} finally {
+				stream.close();
+			}
+		}
+		
+		// the same data is read via the detected compression
+		Assert.assertEquals(Compression.GZIP, Compression.detect(file));
+		InputStream stream = Compression.GZIP.open(file, 1);
+		try {
+			Assert.assertTrue(Arrays.equals(expected.toByteArray(), IOUtils.toByteArray(stream)));
+		} finally {
+			stream.close();
+		}
+	}
+	
+	@Test
+	public void testCorruptMember() throws IOException {
+		File file = File.createTempFile("fa-parallel-gzip", ".gz");
+		file.deleteOnExit();
+		
+		OutputStream output = new FileOutputStream(file);
+		output.write(gzip("first member\n".getBytes("UTF-8"), Deflater.DEFAULT_COMPRESSION));
+		output.write(gzip("second member\n".getBytes("UTF-8"), Deflater.DEFAULT_COMPRESSION));
+		output.close();
+		
+		// break the checksum of the last member
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		randomAccessFile.seek(randomAccessFile.length() - 8);
+		randomAccessFile.write(~randomAccessFile.read());
+		randomAccessFile.close();
+		
+		InputStream stream = new ParallelGzipInputStream(file, 2);
+		try {
+			IOUtils.toByteArray(stream);
+			Assert.fail("Corrupt member was read");
+		} catch(IOException e) {
+			// expected
+		} finally {
+			stream.close();
+		}
+	}
+	
+	@Test
+	public void testNotGzip() throws IOException {
+		File file = File.createTempFile("fa-parallel-gzip", ".txt");
+		file.deleteOnExit();
+		
+		OutputStream output = new FileOutputStream(file);
+		output.write("plain text\n".getBytes("UTF-8"));
+		output.close();
+		
+		Assert.assertEquals(Compression.NONE, Compression.detect(file));
+		
+		try {
+			new ParallelGzipInputStream(file, 2);
+			Assert.fail("Plain file was read as gzip");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+	
+	private static byte[] gzip(byte[] data, final int level) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPOutputStream stream = new GZIPOutputStream(bytes) {
+			
+			{
+				this.def.setLevel(level);
+			}
+			
+		};
+		
+		stream.write(data);
+		stream.close();
+		return bytes.toByteArray();
+	}
+	
+}
\ No newline at end of file
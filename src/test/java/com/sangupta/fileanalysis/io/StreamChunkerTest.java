@@ -0,0 +1,108 @@
+/**
+ *
+ * FileAnalysis - SQLize files to analyze dumps and logs
+ * Copyright (c) 2014-2015, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/fileanalysis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package com.sangupta.fileanalysis.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StreamChunker}.
+ * 
+ * @author sangupta
+ *
+ */
+public class StreamChunkerTest {
+	
+	@Test
+	public void testChunksAlignToLines() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for(int index = 0; index < 300; index++) {
+			builder.append("line ").append(index).append(index % 3 == 0 ? "\r\n" : "\n");
+			if(index % 17 == 0) {
+				builder.append('\r');
+			}
+		}
+		
+		Charset charset = Charset.forName("UTF-8");
+		byte[] bytes = builder.toString().getBytes(charset);
+		
+		for(long chunkSize : new long[] { 1, 7, 10, 64, 1 << 20 }) {
+			StreamChunker chunker = new StreamChunker(new ByteArrayInputStream(bytes), 8, chunkSize);
+			StringBuilder lines = new StringBuilder();
+			long expectedStart = 8;
+			
+			FileChunk chunk;
+			while((chunk = chunker.next()) != null) {
+				Assert.assertEquals(expectedStart, chunk.start);
+				Assert.assertTrue(chunk.start == 0 || bytes[(int) chunk.start - 1] == '\n' || (bytes[(int) chunk.start - 1] == '\r' && bytes[(int) chunk.start] != '\n'));
+				
+				MappedLineReader reader = MappedLineReader.forChunk(null, chunk, chunk.start, charset);
+				String line;
+				while(reader.getPosition() < chunk.end && (line = reader.readLine()) != null) {
+					lines.append(line).append('\n');
+				}
+				
+				Assert.assertEquals(chunk.end, reader.getPosition());
+				reader.close();
+				expectedStart = chunk.end;
+			}
+			
+			chunker.close();
+			Assert.assertEquals(bytes.length, expectedStart);
+			
+			String expected = new String(bytes, 8, bytes.length - 8, charset).replace("\r\n", "\n").replace('\r', '\n');
+			Assert.assertEquals("chunk size " + chunkSize, expected, lines.toString());
+		}
+	}
+	
+	@Test
+	public void testTruncatedLookAhead() throws IOException {
+		byte[] bytes = new byte[3 * StreamChunker.MAX_LOOK_AHEAD];
+		Arrays.fill(bytes, (byte) 'x');
+		for(int index = 99; index < bytes.length; index += 100) {
+			bytes[index] = '\n';
+		}
+		
+		StreamChunker chunker = new StreamChunker(new ByteArrayInputStream(bytes), 0, StreamChunker.MAX_LOOK_AHEAD / 2);
+		
+		// the look ahead stops short of the end of the stream
+		FileChunk chunk = chunker.next();
+		Assert.assertEquals(chunk.end + StreamChunker.MAX_LOOK_AHEAD, chunk.limit);
+		Assert.assertTrue(chunk.truncated);
+		
+		// the look ahead reaches the end of the stream
+		FileChunk last = chunk;
+		while((chunk = chunker.next()) != null) {
+			last = chunk;
+		}
+		
+		chunker.close();
+		Assert.assertEquals(bytes.length, last.limit);
+		Assert.assertFalse(last.truncated);
+	}
+	
+}
\ No newline at end of file